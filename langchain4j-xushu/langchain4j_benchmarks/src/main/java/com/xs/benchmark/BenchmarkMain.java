@@ -0,0 +1,30 @@
+package com.xs.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 入口：java -jar target/benchmarks.jar [JMH参数]
+ * 在命令行参数基础上始终加上 gc 和峰值堆内存两个profiler，例如
+ * java -jar target/benchmarks.jar wordAlignment -p length=1000 -p language=ZH
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .addProfiler(PeakHeapProfiler.class);
+        // include 列表会与命令行合并，只在命令行没有指定基准时才默认跑编辑距离基准
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(EditDistanceBenchmark.class.getSimpleName());
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,42 @@
+package com.xs.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字符级编辑距离打分的吞吐量基准。字符级DP是 O(字符数²)，英文一个单词约7个字符，
+ * 2万词的文本约14万字符，单次调用就要几十秒，所以长度只到 2000（英文约1.4万字符）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class CharEditDistanceBenchmark extends TranscriptBenchmark {
+
+    @Param({"10", "100", "1000", "2000"})
+    int length;
+
+    @Override
+    protected int length() {
+        return length;
+    }
+
+    @Benchmark
+    public int charDistance() throws Throwable {
+        return Scorers.charDistance(referenceText, hypothesisText);
+    }
+
+    @Benchmark
+    public Object charAlignment() throws Throwable {
+        return Scorers.charAlignment(referenceText, hypothesisText);
+    }
+}
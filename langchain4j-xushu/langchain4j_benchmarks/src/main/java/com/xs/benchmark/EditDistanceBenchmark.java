@@ -0,0 +1,54 @@
+package com.xs.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单词级编辑距离打分的吞吐量基准。
+ * 参数覆盖文本长度、错误率、词表大小和语言（英文按单词，中文按汉字）；
+ * 默认附带 gc（分配速率）和 PeakHeapProfiler（峰值堆内存）两个profiler，见 BenchmarkMain。
+ * 字符级打分见 CharEditDistanceBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class EditDistanceBenchmark extends TranscriptBenchmark {
+
+    @Param({"10", "100", "1000", "5000", "20000"})
+    int length;
+
+    @Override
+    protected int length() {
+        return length;
+    }
+
+    @Benchmark
+    public Object wordAlignment() throws Throwable {
+        return Scorers.wordAlignment(referenceTokens, hypothesisTokens);
+    }
+
+    @Benchmark
+    public int wordDistance() throws Throwable {
+        return Scorers.wordDistance(referenceTokens, hypothesisTokens);
+    }
+
+    @Benchmark
+    public Object wordErrorCounts() throws Throwable {
+        return Scorers.wordErrorCounts(referenceTokens, hypothesisTokens);
+    }
+
+    @Benchmark
+    public Object weightedAlignment() throws Throwable {
+        return Scorers.weightedAlignment(referenceSpaced, hypothesisSpaced, weightTable);
+    }
+}
@@ -0,0 +1,98 @@
+package com.xs.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 被测打分代码位于 langchain4j_demos 的默认包，无法被具名包 import，
+ * 而 JMH 又不允许基准类放在默认包，所以这里通过 MethodHandle 调用。
+ * 句柄保存在 static final 字段中，JIT 可以把调用内联，不影响测量结果
+ */
+final class Scorers {
+
+    private static final MethodHandle WORD_ALIGNMENT = handle(
+            "WordLevelLevenshtein", "wordLevelLevenshtein",
+            MethodType.methodType(Object.class, List.class, List.class), List.class, List.class);
+    private static final MethodHandle WORD_DISTANCE = handle(
+            "WordLevelLevenshtein", "wordLevelDistance",
+            MethodType.methodType(int.class, List.class, List.class), List.class, List.class);
+    private static final MethodHandle WORD_ERROR_COUNTS = handle(
+            "WordLevelLevenshtein", "wordErrorCounts",
+            MethodType.methodType(Object.class, List.class, List.class), List.class, List.class);
+    private static final MethodHandle CHAR_DISTANCE = handle(
+            "CharErrorRate", "distance",
+            MethodType.methodType(int.class, String.class, String.class), String.class, String.class);
+    private static final MethodHandle CHAR_ALIGNMENT = handle(
+            "CharErrorRate", "align",
+            MethodType.methodType(Object.class, String.class, String.class), String.class, String.class);
+    private static final MethodHandle WEIGHTED_ALIGNMENT = handle(
+            "WeightedWordLevenshtein", "weightedWordLevenshtein",
+            MethodType.methodType(Object.class, String.class, String.class, Object.class),
+            String.class, String.class, load("WeightTable"));
+
+    private Scorers() {
+    }
+
+    static Object wordAlignment(List<String> reference, List<String> hypothesis) throws Throwable {
+        return (Object) WORD_ALIGNMENT.invokeExact(reference, hypothesis);
+    }
+
+    static int wordDistance(List<String> reference, List<String> hypothesis) throws Throwable {
+        return (int) WORD_DISTANCE.invokeExact(reference, hypothesis);
+    }
+
+    static Object wordErrorCounts(List<String> reference, List<String> hypothesis) throws Throwable {
+        return (Object) WORD_ERROR_COUNTS.invokeExact(reference, hypothesis);
+    }
+
+    static int charDistance(String reference, String hypothesis) throws Throwable {
+        return (int) CHAR_DISTANCE.invokeExact(reference, hypothesis);
+    }
+
+    static Object charAlignment(String reference, String hypothesis) throws Throwable {
+        return (Object) CHAR_ALIGNMENT.invokeExact(reference, hypothesis);
+    }
+
+    static Object weightedAlignment(String reference, String hypothesis, Object weightTable) throws Throwable {
+        return (Object) WEIGHTED_ALIGNMENT.invokeExact(reference, hypothesis, weightTable);
+    }
+
+    /**
+     * 构建 WeightTable（构造器是包级私有的）
+     */
+    static Object weightTable(Map<String, ? extends Number> weights,
+                              double insertCost, double deleteCost, double substituteCost) {
+        try {
+            Constructor<?> constructor = load("WeightTable")
+                    .getDeclaredConstructor(Map.class, double.class, double.class, double.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(weights, insertCost, deleteCost, substituteCost);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot create WeightTable", e);
+        }
+    }
+
+    private static MethodHandle handle(String className, String methodName, MethodType erased,
+                                       Class<?>... parameterTypes) {
+        try {
+            Method method = load(className).getDeclaredMethod(methodName, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot bind " + className + "." + methodName, e);
+        }
+    }
+
+    private static Class<?> load(String className) {
+        try {
+            return Class.forName(className, true, Scorers.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("scorer class not on classpath: " + className, e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.xs.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准共用的参数和数据：错误率、词表大小、语言（英文按单词，中文按汉字），
+ * 文本长度由子类声明，各自决定取值范围
+ */
+@State(Scope.Benchmark)
+public abstract class TranscriptBenchmark {
+
+    @Param({"0.05", "0.3"})
+    double errorRate;
+
+    @Param({"100", "10000"})
+    int vocabularySize;
+
+    @Param({"EN", "ZH"})
+    String language;
+
+    protected List<String> referenceTokens;
+    protected List<String> hypothesisTokens;
+    protected String referenceText;
+    protected String hypothesisText;
+    // 带权重打分按空格分词，中文先按汉字加空格
+    protected String referenceSpaced;
+    protected String hypothesisSpaced;
+    protected Object weightTable;
+
+    /**
+     * 参考文本的单词数（中文为汉字数）
+     */
+    protected abstract int length();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TranscriptGenerator generator = new TranscriptGenerator(
+                TranscriptGenerator.Language.valueOf(language), length(), errorRate, vocabularySize, 42L);
+        referenceTokens = generator.referenceTokens;
+        hypothesisTokens = generator.hypothesisTokens;
+        referenceText = generator.referenceText;
+        hypothesisText = generator.hypothesisText;
+        referenceSpaced = String.join(" ", referenceTokens);
+        hypothesisSpaced = String.join(" ", hypothesisTokens);
+
+        // 参考文本前10个单词作为关键词
+        Map<String, Double> weights = new HashMap<>();
+        for (int i = 0; i < Math.min(10, referenceTokens.size()); i++) {
+            weights.put(referenceTokens.get(i), 3.0);
+        }
+        weightTable = Scorers.weightTable(weights, 1.0, 1.0, 1.5);
+    }
+}
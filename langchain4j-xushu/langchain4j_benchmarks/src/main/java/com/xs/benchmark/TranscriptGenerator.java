@@ -0,0 +1,77 @@
+package com.xs.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 生成确定性的（参考文本，识别结果）对：从固定大小的词表随机取词得到参考文本，
+ * 再按错误率逐词注入替换、删除、插入得到识别结果。
+ * 英文为空格分隔的单词，中文为不分词的汉字串（每个汉字一个单元）
+ */
+final class TranscriptGenerator {
+
+    enum Language {
+        EN, ZH
+    }
+
+    final List<String> referenceTokens;
+    final List<String> hypothesisTokens;
+    // 原始文本：英文用空格连接，中文直接拼接
+    final String referenceText;
+    final String hypothesisText;
+
+    TranscriptGenerator(Language language, int length, double errorRate, int vocabularySize, long seed) {
+        Random random = new Random(seed);
+        String[] vocabulary = vocabulary(language, vocabularySize, random);
+
+        referenceTokens = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            referenceTokens.add(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+
+        hypothesisTokens = new ArrayList<>(length + length / 8);
+        for (String token : referenceTokens) {
+            if (random.nextDouble() >= errorRate) {
+                hypothesisTokens.add(token);
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0:
+                    hypothesisTokens.add(vocabulary[random.nextInt(vocabulary.length)]);
+                    break;
+                case 1:
+                    break;
+                default:
+                    hypothesisTokens.add(token);
+                    hypothesisTokens.add(vocabulary[random.nextInt(vocabulary.length)]);
+                    break;
+            }
+        }
+
+        String separator = language == Language.EN ? " " : "";
+        referenceText = String.join(separator, referenceTokens);
+        hypothesisText = String.join(separator, hypothesisTokens);
+    }
+
+    private static String[] vocabulary(Language language, int size, Random random) {
+        String[] words = new String[size];
+        if (language == Language.ZH) {
+            // CJK统一汉字基本区共20992个
+            for (int i = 0; i < size; i++) {
+                words[i] = new String(Character.toChars(0x4E00 + i % 20992));
+            }
+            return words;
+        }
+        for (int i = 0; i < size; i++) {
+            int length = 2 + random.nextInt(8);
+            StringBuilder word = new StringBuilder(length + 6);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            // 追加序号保证词表内单词互不相同
+            words[i] = word.append(i).toString();
+        }
+        return words;
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * 样本音频指纹：
+ * 精确指纹为文件内容的SHA-256（即 Sample.fingerprint），按窗口映射文件逐段更新摘要，不读入堆；
+ * 感知指纹为频谱峰值对（landmark）哈希，对重新编码、加噪、截掉开头等近似重复依然稳定，
+ * 只对裸PCM样本计算（其他格式需先按 README 转成 s16le）。
+ * 批量导入时 fingerprintAll 在 ForkJoinPool 上按文件并行
+ */
+final class AudioFingerprinter {
+
+    // 每次映射的窗口大小，超过2GB的文件也能逐段处理
+    private static final long MAP_WINDOW = 64L << 20;
+
+    // 感知指纹参数：64ms 帧、32ms 帧移，只看 300~4000Hz，频率按16Hz量化
+    static final int FRAME_MILLIS = 64;
+    static final int HOP_MILLIS = 32;
+    private static final double MIN_HZ = 300;
+    private static final double MAX_HZ = 4000;
+    private static final int HZ_QUANTUM = 16;
+    private static final int BANDS = 6;
+    private static final int PEAKS_PER_FRAME = 3;
+    private static final double PEAK_OVER_MEAN = 2.0;
+    private static final double SILENCE = 1e-3;
+    // 每个锚点与其后 1..MAX_DT 帧内最多 FAN_OUT 个峰配对
+    private static final int FAN_OUT = 5;
+    private static final int MAX_DT = 31;
+
+    private AudioFingerprinter() {
+    }
+
+    /**
+     * 一个文件的精确指纹和感知指纹（非PCM文件感知指纹为 null）
+     */
+    static AudioFingerprint fingerprint(Path file) throws IOException {
+        String sha256 = sha256(file);
+        PerceptualFingerprint perceptual = null;
+        if (file.getFileName().toString().endsWith(".pcm")) {
+            perceptual = perceptual(PcmAudio.open(file));
+        }
+        return new AudioFingerprint(file, sha256, perceptual);
+    }
+
+    /**
+     * 按文件并行计算指纹，结果顺序与输入一致
+     */
+    static List<AudioFingerprint> fingerprintAll(List<Path> files, ForkJoinPool pool) throws IOException {
+        try {
+            return pool.submit(() -> files.parallelStream()
+                    .map(file -> {
+                        try {
+                            return fingerprint(file);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while fingerprinting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 文件内容的SHA-256（十六进制），按 MAP_WINDOW 分段映射后直接喂给摘要
+     */
+    static String sha256(Path file) throws IOException {
+        MessageDigest digest = Sha256.newDigest();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_WINDOW, size - position));
+                digest.update(window);
+            }
+        }
+        return Sha256.hex(digest.digest());
+    }
+
+    /**
+     * 频谱峰值对指纹：每帧在若干对数频带内取明显高于帧均值的峰，保留最强的几个，
+     * 再把每个峰与其后一段时间内的峰配对，哈希为（频率1，频率2，时间差）
+     */
+    static PerceptualFingerprint perceptual(PcmAudio audio) {
+        PcmFormat format = audio.format();
+        int frameSamples = format.sampleRate * FRAME_MILLIS / 1000;
+        int hopSamples = format.sampleRate * HOP_MILLIS / 1000;
+        int fftSize = Integer.highestOneBit(Math.max(2, frameSamples - 1)) << 1;
+        int frames = audio.frames() < frameSamples ? 0 : (audio.frames() - frameSamples) / hopSamples + 1;
+
+        Fft fft = new Fft(fftSize, frameSamples);
+        double binHz = (double) format.sampleRate / fftSize;
+        int lowBin = Math.max(1, (int) Math.ceil(MIN_HZ / binHz));
+        int highBin = Math.min(fftSize / 2 - 1, (int) Math.floor(MAX_HZ / binHz));
+        int[] bandEdges = new int[BANDS + 1];
+        for (int b = 0; b <= BANDS; b++) {
+            double hz = MIN_HZ * Math.pow(MAX_HZ / MIN_HZ, (double) b / BANDS);
+            bandEdges[b] = Math.min(highBin + 1, Math.max(lowBin, (int) Math.round(hz / binHz)));
+        }
+
+        // peaks[t] 为第 t 帧保留的峰（量化后的频率），按强度降序
+        int[][] peaks = new int[frames][];
+        double[] samples = new double[frameSamples];
+        double[] magnitude = new double[fftSize / 2];
+        double[] bandPeak = new double[BANDS];
+        int[] bandBin = new int[BANDS];
+        for (int t = 0; t < frames; t++) {
+            int start = t * hopSamples;
+            for (int k = 0; k < frameSamples; k++) {
+                samples[k] = audio.sample(start + k, 0) / 32768.0;
+            }
+            fft.magnitude(samples, magnitude);
+
+            double mean = 0;
+            for (int bin = lowBin; bin <= highBin; bin++) mean += magnitude[bin];
+            mean /= highBin - lowBin + 1;
+
+            int found = 0;
+            for (int b = 0; b < BANDS; b++) {
+                bandPeak[b] = 0;
+                for (int bin = bandEdges[b]; bin < bandEdges[b + 1]; bin++) {
+                    if (magnitude[bin] > bandPeak[b]) {
+                        bandPeak[b] = magnitude[bin];
+                        bandBin[b] = bin;
+                    }
+                }
+                if (bandPeak[b] > PEAK_OVER_MEAN * mean && bandPeak[b] > SILENCE) {
+                    found++;
+                } else {
+                    bandPeak[b] = 0;
+                }
+            }
+            int keep = Math.min(found, PEAKS_PER_FRAME);
+            int[] framePeaks = new int[keep];
+            for (int p = 0; p < keep; p++) {
+                int best = 0;
+                for (int b = 1; b < BANDS; b++) {
+                    if (bandPeak[b] > bandPeak[best]) best = b;
+                }
+                framePeaks[p] = (int) Math.round(bandBin[best] * binHz / HZ_QUANTUM);
+                bandPeak[best] = 0;
+            }
+            peaks[t] = framePeaks;
+        }
+
+        int[] hashes = new int[frames * PEAKS_PER_FRAME * FAN_OUT];
+        int[] times = new int[hashes.length];
+        int count = 0;
+        for (int t = 0; t < frames; t++) {
+            for (int anchor : peaks[t]) {
+                int paired = 0;
+                for (int dt = 1; dt <= MAX_DT && t + dt < frames && paired < FAN_OUT; dt++) {
+                    for (int target : peaks[t + dt]) {
+                        if (paired == FAN_OUT) break;
+                        hashes[count] = landmark(anchor, target, dt);
+                        times[count] = t;
+                        count++;
+                        paired++;
+                    }
+                }
+            }
+        }
+        return new PerceptualFingerprint(Arrays.copyOf(hashes, count), Arrays.copyOf(times, count), frames);
+    }
+
+    private static int landmark(int anchorFrequency, int targetFrequency, int dt) {
+        return (anchorFrequency & 0xFF) << 13 | (targetFrequency & 0xFF) << 5 | (dt & 0x1F);
+    }
+
+    /**
+     * 加汉宁窗的实数FFT幅度谱（迭代基2），旋转因子和窗函数预先算好；非线程安全，每次 perceptual 调用各建一个
+     */
+    private static final class Fft {
+        private final int size;
+        private final int[] reversed;
+        private final double[] cos;
+        private final double[] sin;
+        private final double[] window;
+        private final double[] re;
+        private final double[] im;
+
+        Fft(int size, int frameSamples) {
+            this.size = size;
+            int bits = Integer.numberOfTrailingZeros(size);
+            reversed = new int[size];
+            for (int k = 0; k < size; k++) {
+                reversed[k] = Integer.reverse(k) >>> (32 - bits);
+            }
+            cos = new double[size / 2];
+            sin = new double[size / 2];
+            for (int k = 0; k < size / 2; k++) {
+                cos[k] = Math.cos(-2 * Math.PI * k / size);
+                sin[k] = Math.sin(-2 * Math.PI * k / size);
+            }
+            window = new double[frameSamples];
+            for (int k = 0; k < frameSamples; k++) {
+                window[k] = 0.5 - 0.5 * Math.cos(2 * Math.PI * k / (frameSamples - 1));
+            }
+            re = new double[size];
+            im = new double[size];
+        }
+
+        void magnitude(double[] samples, double[] into) {
+            Arrays.fill(re, 0);
+            Arrays.fill(im, 0);
+            for (int k = 0; k < samples.length; k++) {
+                re[reversed[k]] = samples[k] * window[k];
+            }
+            for (int length = 2; length <= size; length <<= 1) {
+                int half = length >>> 1;
+                int step = size / length;
+                for (int start = 0; start < size; start += length) {
+                    for (int k = 0; k < half; k++) {
+                        int even = start + k;
+                        int odd = even + half;
+                        double wr = cos[k * step];
+                        double wi = sin[k * step];
+                        double tr = re[odd] * wr - im[odd] * wi;
+                        double ti = re[odd] * wi + im[odd] * wr;
+                        re[odd] = re[even] - tr;
+                        im[odd] = im[even] - ti;
+                        re[even] += tr;
+                        im[even] += ti;
+                    }
+                }
+            }
+            for (int bin = 0; bin < into.length; bin++) {
+                into[bin] = Math.hypot(re[bin], im[bin]) / size;
+            }
+        }
+    }
+}
+
+/**
+ * 一个样本文件的指纹
+ */
+class AudioFingerprint {
+    final Path file;
+    final String sha256;
+    final PerceptualFingerprint perceptual;
+
+    AudioFingerprint(Path file, String sha256, PerceptualFingerprint perceptual) {
+        this.file = file;
+        this.sha256 = sha256;
+        this.perceptual = perceptual;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AudioFingerprint{%s, sha256=%s, landmarks=%d}", file, sha256,
+                perceptual == null ? 0 : perceptual.size());
+    }
+}
+
+/**
+ * 频谱峰值对哈希及各自锚点所在的帧号（帧移 AudioFingerprinter.HOP_MILLIS）
+ */
+class PerceptualFingerprint {
+    final int[] hashes;
+    final int[] times;
+    final int frames;
+
+    PerceptualFingerprint(int[] hashes, int[] times, int frames) {
+        this.hashes = hashes;
+        this.times = times;
+        this.frames = frames;
+    }
+
+    int size() {
+        return hashes.length;
+    }
+}
@@ -0,0 +1,439 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * 鲁棒性评测（RobustnessMetrics 的 noiseResistance、speedVariation）用的音频变体描述：
+ * 变速（speed perturbation，按重采样实现，音调随之变化）、带限（高通+低通）、按信噪比混入噪声。
+ * 只是配置，不可变；实际的音频由 AugmentedAudio 在发送时逐块生成，不落盘
+ */
+final class Augmentation {
+
+    final double speed;
+    final int lowHz;
+    final int highHz;
+    final double snrDb;
+    final PcmAudio noise;
+    final long seed;
+
+    private Augmentation(Builder builder) {
+        this.speed = builder.speed;
+        this.lowHz = builder.lowHz;
+        this.highHz = builder.highHz;
+        this.snrDb = builder.snrDb;
+        this.noise = builder.noise;
+        this.seed = builder.seed;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    boolean addsNoise() {
+        return !Double.isNaN(snrDb);
+    }
+
+    /**
+     * 某个样本的随机种子：由配置的种子和样本ID决定，同一样本每次生成的变体相同，不同样本的噪声互不相关
+     */
+    long seedFor(String sampleId) {
+        return new SplittableRandom(seed * 31 + sampleId.hashCode()).nextLong();
+    }
+
+    /**
+     * 配置加样本种子的短摘要，用作缓存文件名的一部分（toString 按 Locale.ROOT 格式化，与默认区域无关）
+     */
+    String key(long sampleSeed) {
+        return Sha256.of(this + "#" + sampleSeed).substring(0, 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "speed=%.2f", speed));
+        if (lowHz > 0 || highHz > 0) {
+            text.append(" band=").append(lowHz).append('-').append(highHz).append("Hz");
+        }
+        if (addsNoise()) {
+            text.append(String.format(Locale.ROOT, " snr=%.1fdB noise=%s", snrDb, noise == null ? "white" : noise));
+        }
+        return text.append(" seed=").append(seed).toString();
+    }
+
+    static final class Builder {
+        private double speed = 1.0;
+        private int lowHz;
+        private int highHz;
+        private double snrDb = Double.NaN;
+        private PcmAudio noise;
+        private long seed;
+
+        /**
+         * 播放速度倍数，取两位小数；大于1变快变短
+         */
+        Builder speed(double speed) {
+            if (!(speed >= 0.5 && speed <= 2.0)) {
+                throw new IllegalArgumentException("speed must be within [0.5, 2.0]: " + speed);
+            }
+            this.speed = Math.round(speed * 100) / 100.0;
+            return this;
+        }
+
+        /**
+         * 只保留 [lowHz, highHz]，0 表示该侧不限（如电话信道 300-3400）
+         */
+        Builder band(int lowHz, int highHz) {
+            if (lowHz < 0 || highHz < 0 || (highHz > 0 && highHz <= lowHz)) {
+                throw new IllegalArgumentException("invalid band: " + lowHz + "-" + highHz);
+            }
+            this.lowHz = lowHz;
+            this.highHz = highHz;
+            return this;
+        }
+
+        /**
+         * 按信噪比混入高斯白噪声
+         */
+        Builder snrDb(double snrDb) {
+            this.snrDb = snrDb;
+            return this;
+        }
+
+        /**
+         * 按信噪比混入噪声录音（循环使用，起点由种子决定），格式须与样本相同
+         */
+        Builder noise(PcmAudio noise, double snrDb) {
+            if (noise.frames() == 0) {
+                throw new IllegalArgumentException("empty noise: " + noise);
+            }
+            this.noise = noise;
+            this.snrDb = snrDb;
+            return this;
+        }
+
+        Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        Augmentation build() {
+            return new Augmentation(this);
+        }
+    }
+}
+
+/**
+ * 一个样本的增强变体：按块惰性生成（重采样 -> 带限滤波 -> 混噪），内存中只有当前块，不写文件。
+ * 变速只依赖附近的输入，可以随机访问；滤波器和噪声发生器有状态，所以每次 render 得到的分块必须顺序读取。
+ * 同一个（样本，配置，种子）生成的字节完全相同
+ */
+final class AugmentedAudio {
+
+    private static final int SECTIONS = 2;   // 每侧滤波器的二阶节数
+
+    final PcmAudio source;
+    final Augmentation augmentation;
+    final long seed;
+    private final PcmFormat format;
+    private final Resampler resampler;
+    private final int frames;
+    private final float noiseGain;
+
+    AugmentedAudio(PcmAudio source, Augmentation augmentation, long seed) {
+        this.source = source;
+        this.augmentation = augmentation;
+        this.seed = seed;
+        this.format = source.format();
+        if (augmentation.noise != null && (augmentation.noise.format().sampleRate != format.sampleRate
+                || augmentation.noise.format().channels != format.channels)) {
+            throw new IllegalArgumentException("noise format " + augmentation.noise.format() + " differs from " + format);
+        }
+        // 把源音频当作以 rate * speed 采样，重采样回 rate 即得到变速后的音频
+        this.resampler = augmentation.speed == 1.0 ? null
+                : Resampler.of((int) Math.round(format.sampleRate * augmentation.speed), format.sampleRate);
+        this.frames = resampler == null ? source.frames() : resampler.outputFrames(source.frames());
+        this.noiseGain = augmentation.addsNoise() ? noiseGain(source, augmentation) : 0f;
+    }
+
+    PcmFormat format() {
+        return format;
+    }
+
+    int frames() {
+        return frames;
+    }
+
+    long durationMillis() {
+        return format.millisOf((long) frames * format.frameBytes());
+    }
+
+    /**
+     * 按固定时长生成小端 s16 分块（最后一块可能较短）。返回的列表只能从0开始顺序 get，
+     * 需要重新读取时再调用一次 render
+     */
+    List<ByteBuffer> render(int chunkMillis) {
+        int chunkFrames = format.bytesOf(chunkMillis) / format.frameBytes();
+        if (chunkFrames <= 0) {
+            throw new IllegalArgumentException("chunk shorter than one frame: " + chunkMillis + "ms");
+        }
+        int count = (frames + chunkFrames - 1) / chunkFrames;
+        Renderer renderer = new Renderer(chunkFrames);
+        return new AbstractList<>() {
+            @Override
+            public ByteBuffer get(int index) {
+                if (index < 0 || index >= count) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return renderer.next(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    HttpRequest.BodyPublisher bodyPublisher(int chunkMillis) {
+        return PcmAudio.publisher(() -> render(chunkMillis), (long) frames * format.frameBytes());
+    }
+
+    /**
+     * 整段写入文件（只在开启缓存时由 AugmentationCache 调用）
+     */
+    void writeTo(WritableByteChannel channel) throws IOException {
+        for (ByteBuffer chunk : render(1000)) {
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AugmentedAudio{%s, %s, %dms}", source, augmentation, durationMillis());
+    }
+
+    /**
+     * 信噪比换算的噪声增益；信号功率按原始样本整段计算（白噪声功率为1，噪声录音按其自身功率归一）
+     */
+    private static float noiseGain(PcmAudio source, Augmentation augmentation) {
+        double signalPower = meanSquare(source.data());
+        double noisePower = augmentation.noise == null ? 1.0 : meanSquare(augmentation.noise.data());
+        if (noisePower == 0) {
+            return 0f;
+        }
+        return (float) Math.sqrt(signalPower / Math.pow(10, augmentation.snrDb / 10) / noisePower);
+    }
+
+    private static double meanSquare(ByteBuffer samples) {
+        int count = samples.remaining() / PcmFormat.BYTES_PER_SAMPLE;
+        return count == 0 ? 0 : sumSquares(samples) / count;
+    }
+
+    static double sumSquares(ByteBuffer samples) {
+        if (WordAlignmentCore.vectorKernelAvailable()) {
+            return VectorMixer.sumSquares(samples);
+        }
+        return sumSquaresScalar(samples);
+    }
+
+    /**
+     * 平方和按 long 精确累加（每个平方不超过 2^30），只在最后转换一次，与向量实现逐位一致
+     */
+    static double sumSquaresScalar(ByteBuffer samples) {
+        long total = 0;
+        for (int k = samples.position(); k + 1 < samples.limit(); k += PcmFormat.BYTES_PER_SAMPLE) {
+            int value = samples.getShort(k);
+            total += value * value;
+        }
+        return total;
+    }
+
+    static void mix(float[] signal, float[] noise, float gain, short[] out, int length) {
+        if (WordAlignmentCore.vectorKernelAvailable()) {
+            VectorMixer.mix(signal, noise, gain, out, length);
+        } else {
+            mixScalar(signal, noise, gain, out, length);
+        }
+    }
+
+    static void mixScalar(float[] signal, float[] noise, float gain, short[] out, int length) {
+        for (int k = 0; k < length; k++) {
+            out[k] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, signal[k] + gain * noise[k]));
+        }
+    }
+
+    /**
+     * 一次 render 的生成状态：滤波器状态、噪声发生器和复用的块缓冲
+     */
+    private final class Renderer {
+        private final int chunkFrames;
+        private final ShortBuffer input;
+        private final short[] samples;
+        private final float[] signal;
+        private final float[] noise;
+        private final short[] mixed;
+        private final Biquad[] filters;
+        private final Random random;
+        private long noisePosition;   // 噪声录音中的当前采样
+        private int next;
+
+        Renderer(int chunkFrames) {
+            this.chunkFrames = chunkFrames;
+            this.input = source.data().asShortBuffer();
+            int size = chunkFrames * format.channels;
+            this.samples = new short[size];
+            this.signal = new float[size];
+            this.noise = new float[size];
+            this.mixed = new short[size];
+            this.filters = filters();
+            this.random = new Random(seed);
+            if (augmentation.noise != null) {
+                this.noisePosition = Math.floorMod(random.nextLong(), (long) augmentation.noise.frames()) * format.channels;
+            }
+        }
+
+        ByteBuffer next(int index) {
+            if (index != next) {
+                throw new IllegalStateException("chunks must be read in order: expected " + next + ", got " + index);
+            }
+            next++;
+            int from = index * chunkFrames;
+            int count = Math.min(chunkFrames, frames - from) * format.channels;
+
+            if (resampler == null) {
+                input.get(from * format.channels, samples, 0, count);
+            } else {
+                resampler.resample(input, format.channels, from, count / format.channels, ShortBuffer.wrap(samples));
+            }
+            for (int k = 0; k < count; k++) signal[k] = samples[k];
+            for (Biquad filter : filters) filter.apply(signal, count, format.channels);
+            if (augmentation.addsNoise()) {
+                fillNoise(count);
+            }
+            mix(signal, noise, noiseGain, mixed, count);
+
+            ByteBuffer chunk = ByteBuffer.allocate(count * PcmFormat.BYTES_PER_SAMPLE).order(ByteOrder.LITTLE_ENDIAN);
+            chunk.asShortBuffer().put(mixed, 0, count);
+            return chunk;
+        }
+
+        private void fillNoise(int count) {
+            PcmAudio recording = augmentation.noise;
+            if (recording == null) {
+                for (int k = 0; k < count; k++) noise[k] = (float) random.nextGaussian();
+                return;
+            }
+            ByteBuffer data = recording.data();
+            long total = (long) recording.frames() * format.channels;
+            for (int k = 0; k < count; k++) {
+                noise[k] = data.getShort((int) noisePosition * PcmFormat.BYTES_PER_SAMPLE);
+                if (++noisePosition == total) noisePosition = 0;
+            }
+        }
+
+        private Biquad[] filters() {
+            int nyquist = format.sampleRate / 2;
+            boolean highPass = augmentation.lowHz > 0;
+            boolean lowPass = augmentation.highHz > 0 && augmentation.highHz < nyquist;
+            Biquad[] result = new Biquad[((highPass ? 1 : 0) + (lowPass ? 1 : 0)) * SECTIONS];
+            int k = 0;
+            for (int s = 0; s < SECTIONS; s++) {
+                if (highPass) result[k++] = new Biquad(false, augmentation.lowHz, format);
+                if (lowPass) result[k++] = new Biquad(true, augmentation.highHz, format);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 二阶巴特沃斯节（RBJ 公式，转置直接II型），每个声道一组状态
+     */
+    private static final class Biquad {
+        private final double b0, b1, b2, a1, a2;
+        private final double[] z1, z2;
+
+        Biquad(boolean lowPass, int cutoffHz, PcmFormat format) {
+            double w0 = 2 * Math.PI * cutoffHz / format.sampleRate;
+            double cos = Math.cos(w0);
+            double alpha = Math.sin(w0) / (2 * Math.sqrt(0.5));
+            double a0 = 1 + alpha;
+            double b = lowPass ? (1 - cos) / 2 : (1 + cos) / 2;
+            this.b0 = b / a0;
+            this.b1 = (lowPass ? 2 * b : -2 * b) / a0;
+            this.b2 = b / a0;
+            this.a1 = -2 * cos / a0;
+            this.a2 = (1 - alpha) / a0;
+            this.z1 = new double[format.channels];
+            this.z2 = new double[format.channels];
+        }
+
+        void apply(float[] samples, int length, int channels) {
+            for (int k = 0; k < length; k++) {
+                int c = k % channels;
+                double x = samples[k];
+                double y = b0 * x + z1[c];
+                z1[c] = b1 * x - a1 * y + z2[c];
+                z2[c] = b2 * x - a2 * y;
+                samples[k] = (float) y;
+            }
+        }
+    }
+}
+
+/**
+ * 开启缓存时使用：增强变体写成 <dir>/<指纹前两位>/<指纹>.<采样率>.<变体摘要>.pcm 后映射，
+ * 同一变体并发请求只生成一次，内存中只保留最近用过的映射（见 PcmVariantCache）。
+ * 不开启缓存时不会写任何增强后的文件
+ */
+class AugmentationCache {
+
+    private final PcmVariantCache cache;
+
+    AugmentationCache(Path directory) {
+        this(directory, PcmVariantCache.DEFAULT_MAX_MAPPED);
+    }
+
+    /**
+     * maxMapped：内存中最多保留的已映射变体数
+     */
+    AugmentationCache(Path directory, int maxMapped) {
+        this.cache = new PcmVariantCache(directory, maxMapped);
+    }
+
+    /**
+     * file 为样本原始文件（用于计算指纹），source 为实际要增强的音频（可能已重采样）
+     */
+    PcmAudio get(Path file, PcmAudio source, Augmentation augmentation, long seed) throws IOException {
+        return get(file, "", source, augmentation, seed);
+    }
+
+    /**
+     * source 经过重采样以外的预处理（如VAD裁剪）时，variant 为区分该预处理结果的键（可用作文件名）
+     */
+    PcmAudio get(Path file, String variant, PcmAudio source, Augmentation augmentation, long seed) throws IOException {
+        String name = cache.fingerprint(file) + "." + source.format().sampleRate
+                + (variant.isEmpty() ? "" : "." + variant) + "." + augmentation.key(seed);
+        return cache.get(name, () -> {
+            AugmentedAudio audio = new AugmentedAudio(source, augmentation, seed);
+            return cache.stored(name, audio.format(), audio::writeTo);
+        });
+    }
+
+    long renders() {
+        return cache.renders();
+    }
+
+    long diskHits() {
+        return cache.diskHits();
+    }
+}
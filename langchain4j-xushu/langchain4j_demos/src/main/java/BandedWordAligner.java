@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * 带上限的单词级对齐（Ukkonen对角带）
+ * 距离不超过 k 的路径一定落在 |i - j| <= k 的对角带内，只计算带内 2k+1 个单元格，
+ * 某一行全部超过 k 时立即返回"超过阈值"。带内值不超过 k 的单元格与全表DP完全一致，
+ * 所以未超过阈值时操作序列也与全表回溯相同
+ */
+final class BandedWordAligner {
+
+    private BandedWordAligner() {
+    }
+
+    /**
+     * 完整对齐；距离超过 maxDistance 时返回 exceedsThreshold 的结果
+     */
+    static WordEditResult align(int[] source, int[] target, TokenVocabulary vocabulary,
+                                WordAlignmentCore.DiagonalCost diagonal, int maxDistance) {
+        int m = source.length;
+        int n = target.length;
+        int k = maxDistance;
+        if (Math.abs(m - n) > k) {
+            return WordEditResult.exceeding(maxDistance);
+        }
+
+        int width = 2 * k + 1;
+        int cap = k + 1;
+        // 第 i 行的带内下标 d = j - i + k
+        byte[][] band = new byte[m + 1][width];
+        int[] prev = new int[width];
+        int[] curr = new int[width];
+
+        Arrays.fill(prev, cap);
+        for (int j = 0; j <= Math.min(n, k); j++) {
+            prev[j + k] = j;
+            band[0][j + k] = WordAlignmentCore.INSERT;
+        }
+
+        for (int i = 1; i <= m; i++) {
+            Arrays.fill(curr, cap);
+            byte[] dirRow = band[i];
+            int from = Math.max(0, i - k);
+            int to = Math.min(n, i + k);
+            int rowMin = cap;
+
+            for (int j = from; j <= to; j++) {
+                int d = j - i + k;
+                int value;
+                if (j == 0) {
+                    value = i;
+                    dirRow[d] = WordAlignmentCore.DELETE;
+                } else {
+                    int sub = diagonal.cost(i - 1, j - 1);
+                    if (sub < 0) {
+                        value = prev[d];
+                        dirRow[d] = WordAlignmentCore.MATCH;
+                    } else {
+                        int insertCost = (d > 0 ? curr[d - 1] : cap) + 1;
+                        int deleteCost = (d + 1 < width ? prev[d + 1] : cap) + 1;
+                        int substituteCost = prev[d] + sub;
+
+                        value = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                        if (value == substituteCost) {
+                            dirRow[d] = WordAlignmentCore.SUBSTITUTE;
+                        } else if (value == insertCost) {
+                            dirRow[d] = WordAlignmentCore.INSERT;
+                        } else {
+                            dirRow[d] = WordAlignmentCore.DELETE;
+                        }
+                    }
+                }
+                curr[d] = Math.min(value, cap);
+                rowMin = Math.min(rowMin, curr[d]);
+            }
+
+            if (rowMin > k) {
+                return WordEditResult.exceeding(maxDistance);
+            }
+            int[] tmp = prev; prev = curr; curr = tmp;
+        }
+
+        int distance = prev[n - m + k];
+        if (distance > k) {
+            return WordEditResult.exceeding(maxDistance);
+        }
+        return backtrack(band, k, distance, source, target, vocabulary);
+    }
+
+    /**
+     * 只求距离的带状DP，超过 maxDistance 时返回 maxDistance + 1
+     */
+    static int distance(int[] source, int[] target, int maxDistance) {
+        int m = source.length;
+        int n = target.length;
+        int k = maxDistance;
+        if (Math.abs(m - n) > k) {
+            return k + 1;
+        }
+
+        int width = 2 * k + 1;
+        int cap = k + 1;
+        int[] prev = new int[width];
+        int[] curr = new int[width];
+        Arrays.fill(prev, cap);
+        for (int j = 0; j <= Math.min(n, k); j++) prev[j + k] = j;
+
+        for (int i = 1; i <= m; i++) {
+            Arrays.fill(curr, cap);
+            int sourceId = source[i - 1];
+            int from = Math.max(0, i - k);
+            int to = Math.min(n, i + k);
+            int rowMin = cap;
+
+            for (int j = from; j <= to; j++) {
+                int d = j - i + k;
+                int value;
+                if (j == 0) {
+                    value = i;
+                } else if (sourceId == target[j - 1]) {
+                    value = prev[d];
+                } else {
+                    int insertCost = d > 0 ? curr[d - 1] : cap;
+                    int deleteCost = d + 1 < width ? prev[d + 1] : cap;
+                    value = Math.min(Math.min(insertCost, deleteCost), prev[d]) + 1;
+                }
+                curr[d] = Math.min(value, cap);
+                rowMin = Math.min(rowMin, curr[d]);
+            }
+
+            if (rowMin > k) {
+                return cap;
+            }
+            int[] tmp = prev; prev = curr; curr = tmp;
+        }
+        return prev[n - m + k];
+    }
+
+    private static WordEditResult backtrack(byte[][] band, int k, int distance,
+                                            int[] source, int[] target, TokenVocabulary vocabulary) {
+        EditScript.Builder script = new EditScript.Builder();
+
+        int i = source.length, j = target.length;
+        while (i > 0 || j > 0) {
+            byte dir = band[i][j - i + k];
+            script.prepend(dir);
+            if (dir != WordAlignmentCore.INSERT) i--;
+            if (dir != WordAlignmentCore.DELETE) j--;
+        }
+        return new WordEditResult(distance, script.build(source, target, vocabulary));
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+/**
+ * 位并行的单词级编辑距离（Myers/Hyyrö算法）
+ * 只求距离，不建方向表也不回溯；模式串超过64个单词时使用多字位向量分块计算，
+ * 每个目标单词只需 O(⌈m/64⌉) 次位运算
+ */
+final class BitParallelWordDistance {
+
+    private static final long HIGH_BIT = 0x8000000000000000L;
+
+    private BitParallelWordDistance() {
+    }
+
+    static int distance(int[] source, int[] target) {
+        // 单位代价的编辑距离是对称的，取较短的一方作为模式串以减少分块数
+        int[] pattern = source.length <= target.length ? source : target;
+        int[] text = pattern == source ? target : source;
+        int m = pattern.length;
+        if (m == 0) {
+            return text.length;
+        }
+
+        PatternMasks masks = new PatternMasks(pattern);
+        return m <= 64 ? singleBlock(masks, text, m) : multiBlock(masks, text, m);
+    }
+
+    private static int singleBlock(PatternMasks masks, int[] text, int m) {
+        long pv = -1L;
+        long mv = 0L;
+        long last = 1L << (m - 1);
+        int score = m;
+
+        for (int id : text) {
+            long eq = masks.block(id, 0);
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // 首行逐列加1，所以移入的水平差为 +1
+            ph = (ph << 1) | 1L;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return score;
+    }
+
+    private static int multiBlock(PatternMasks masks, int[] text, int m) {
+        int blocks = masks.blocks;
+        long[] pvs = new long[blocks];
+        long[] mvs = new long[blocks];
+        Arrays.fill(pvs, -1L);
+        long last = 1L << ((m - 1) & 63);
+        int score = m;
+
+        for (int id : text) {
+            int row = masks.rowOf(id);
+            int hin = 1;
+            for (int b = 0; b < blocks; b++) {
+                long eq = row < 0 ? 0L : masks.vectors[row * blocks + b];
+                long pv = pvs[b];
+                long mv = mvs[b];
+
+                long xv = eq | mv;
+                if (hin < 0) {
+                    eq |= 1L;
+                }
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+
+                long high = b == blocks - 1 ? last : HIGH_BIT;
+                int hout = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+
+                ph <<= 1;
+                mh <<= 1;
+                if (hin < 0) {
+                    mh |= 1L;
+                } else if (hin > 0) {
+                    ph |= 1L;
+                }
+                pvs[b] = mh | ~(xv | ph);
+                mvs[b] = ph & xv;
+                hin = hout;
+            }
+            score += hin;
+        }
+        return score;
+    }
+
+    /**
+     * 模式串中每个不同单词ID的匹配位向量（开放寻址表，避免装箱）
+     * 位向量按不同单词紧凑存放，内存为 不同单词数 x 分块数
+     */
+    private static final class PatternMasks {
+        final int blocks;
+        final int[] keys;
+        final int[] rows;
+        final int mask;
+        final long[] vectors;
+
+        PatternMasks(int[] pattern) {
+            blocks = (pattern.length + 63) >>> 6;
+            int capacity = Integer.highestOneBit(Math.max(4, pattern.length * 2 - 1)) << 1;
+            keys = new int[capacity];
+            rows = new int[capacity];
+            Arrays.fill(keys, -1);
+            mask = capacity - 1;
+
+            int distinct = 0;
+            int[] patternRows = new int[pattern.length];
+            for (int i = 0; i < pattern.length; i++) {
+                int slot = mix(pattern[i]) & mask;
+                while (keys[slot] != -1 && keys[slot] != pattern[i]) {
+                    slot = (slot + 1) & mask;
+                }
+                if (keys[slot] == -1) {
+                    keys[slot] = pattern[i];
+                    rows[slot] = distinct++;
+                }
+                patternRows[i] = rows[slot];
+            }
+
+            vectors = new long[distinct * blocks];
+            for (int i = 0; i < pattern.length; i++) {
+                vectors[patternRows[i] * blocks + (i >>> 6)] |= 1L << (i & 63);
+            }
+        }
+
+        /**
+         * 单词在位向量表中的行号，不在模式串中时返回 -1
+         */
+        int rowOf(int id) {
+            int slot = mix(id) & mask;
+            while (true) {
+                int key = keys[slot];
+                if (key == id) return rows[slot];
+                if (key == -1) return -1;
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        long block(int id, int b) {
+            int row = rowOf(id);
+            return row < 0 ? 0L : vectors[row * blocks + b];
+        }
+
+        private static int mix(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
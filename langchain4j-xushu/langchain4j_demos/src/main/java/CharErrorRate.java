@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 字符错误率（CER）打分：按Unicode码点而不是UTF-16 char比较（正确处理代理对），
+ * DP只用线程本地的滚动行，打分过程不分配内存。默认忽略空白字符（中文CER的惯例）
+ */
+final class CharErrorRate {
+
+    /**
+     * 每个线程复用的缓冲区：两段码点以及距离/替换/删除三组滚动行
+     */
+    private static final class Scratch {
+        int[] source = new int[64];
+        int[] target = new int[64];
+        int[] prev = new int[65], curr = new int[65];
+        int[] prevSub = new int[65], currSub = new int[65];
+        int[] prevDel = new int[65], currDel = new int[65];
+
+        void ensureRows(int n) {
+            if (prev.length < n + 1) {
+                int size = Math.max(n + 1, prev.length * 2);
+                prev = new int[size];
+                curr = new int[size];
+                prevSub = new int[size];
+                currSub = new int[size];
+                prevDel = new int[size];
+                currDel = new int[size];
+            }
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private CharErrorRate() {
+    }
+
+    /**
+     * 字符级编辑距离（忽略空白）
+     */
+    static int distance(String reference, String hypothesis) {
+        return distance(reference, hypothesis, true);
+    }
+
+    static int distance(String reference, String hypothesis, boolean ignoreWhitespace) {
+        Scratch scratch = SCRATCH.get();
+        int m = decode(reference, ignoreWhitespace, scratch, true);
+        int n = decode(hypothesis, ignoreWhitespace, scratch, false);
+        int[] a = scratch.source;
+        int[] b = scratch.target;
+        if (m == 0) return n;
+        if (n == 0) return m;
+
+        scratch.ensureRows(n);
+        int[] prev = scratch.prev;
+        int[] curr = scratch.curr;
+        for (int j = 0; j <= n; j++) prev[j] = j;
+
+        for (int i = 1; i <= m; i++) {
+            int ca = a[i - 1];
+            curr[0] = i;
+            for (int j = 1; j <= n; j++) {
+                if (ca == b[j - 1]) {
+                    curr[j] = prev[j - 1];
+                } else {
+                    curr[j] = Math.min(Math.min(prev[j], curr[j - 1]), prev[j - 1]) + 1;
+                }
+            }
+            int[] tmp = prev; prev = curr; curr = tmp;
+        }
+        return prev[n];
+    }
+
+    /**
+     * 字符级替换/删除/插入计数（忽略空白），与 align 的操作序列计数一致
+     */
+    static CharErrorCounts counts(String reference, String hypothesis) {
+        return counts(reference, hypothesis, true);
+    }
+
+    static CharErrorCounts counts(String reference, String hypothesis, boolean ignoreWhitespace) {
+        Scratch scratch = SCRATCH.get();
+        int m = decode(reference, ignoreWhitespace, scratch, true);
+        int n = decode(hypothesis, ignoreWhitespace, scratch, false);
+        int[] a = scratch.source;
+        int[] b = scratch.target;
+
+        scratch.ensureRows(n);
+        int[] prev = scratch.prev, curr = scratch.curr;
+        int[] prevSub = scratch.prevSub, currSub = scratch.currSub;
+        int[] prevDel = scratch.prevDel, currDel = scratch.currDel;
+        for (int j = 0; j <= n; j++) {
+            prev[j] = j;
+            prevSub[j] = 0;
+            prevDel[j] = 0;
+        }
+
+        for (int i = 1; i <= m; i++) {
+            int ca = a[i - 1];
+            curr[0] = i;
+            currSub[0] = 0;
+            currDel[0] = i;
+            for (int j = 1; j <= n; j++) {
+                if (ca == b[j - 1]) {
+                    curr[j] = prev[j - 1];
+                    currSub[j] = prevSub[j - 1];
+                    currDel[j] = prevDel[j - 1];
+                } else {
+                    int insertCost = curr[j - 1] + 1;
+                    int deleteCost = prev[j] + 1;
+                    int substituteCost = prev[j - 1] + 1;
+
+                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                    curr[j] = minCost;
+
+                    if (minCost == substituteCost) {
+                        currSub[j] = prevSub[j - 1] + 1;
+                        currDel[j] = prevDel[j - 1];
+                    } else if (minCost == insertCost) {
+                        currSub[j] = currSub[j - 1];
+                        currDel[j] = currDel[j - 1];
+                    } else {
+                        currSub[j] = prevSub[j];
+                        currDel[j] = prevDel[j] + 1;
+                    }
+                }
+            }
+            int[] tmp = prev; prev = curr; curr = tmp;
+            tmp = prevSub; prevSub = currSub; currSub = tmp;
+            tmp = prevDel; prevDel = currDel; currDel = tmp;
+        }
+
+        int substitutions = prevSub[n];
+        int deletions = prevDel[n];
+        return new CharErrorCounts(substitutions, deletions, prev[n] - substitutions - deletions, m);
+    }
+
+    /**
+     * 对齐模式（用于错误详情展示）：每个码点作为一个单元，复用单词级对齐，
+     * 长文本同样会自动切换到线性内存模式
+     */
+    static WordEditResult align(String reference, String hypothesis) {
+        return align(reference, hypothesis, true);
+    }
+
+    static WordEditResult align(String reference, String hypothesis, boolean ignoreWhitespace) {
+        return WordLevelLevenshtein.wordLevelLevenshtein(
+                codePoints(reference, ignoreWhitespace),
+                codePoints(hypothesis, ignoreWhitespace));
+    }
+
+    /**
+     * 码点个数（忽略空白时不计空白）
+     */
+    static int length(String text, boolean ignoreWhitespace) {
+        int count = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (!ignoreWhitespace || !Character.isWhitespace(cp)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<String> codePoints(String text, boolean ignoreWhitespace) {
+        List<String> units = new ArrayList<>(text.length());
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (!ignoreWhitespace || !Character.isWhitespace(cp)) {
+                units.add(new String(Character.toChars(cp)));
+            }
+        }
+        return units;
+    }
+
+    /**
+     * 把文本解码为码点写入线程本地缓冲区，返回码点个数
+     */
+    private static int decode(String text, boolean ignoreWhitespace, Scratch scratch, boolean intoSource) {
+        int[] buffer = intoSource ? scratch.source : scratch.target;
+        if (buffer.length < text.length()) {
+            buffer = new int[Math.max(text.length(), buffer.length * 2)];
+            if (intoSource) {
+                scratch.source = buffer;
+            } else {
+                scratch.target = buffer;
+            }
+        }
+
+        int count = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (!ignoreWhitespace || !Character.isWhitespace(cp)) {
+                buffer[count++] = cp;
+            }
+        }
+        return count;
+    }
+}
+
+/**
+ * 字符级错误统计，参考文本长度按码点计
+ */
+class CharErrorCounts {
+    int distance;
+    int substitutions;
+    int deletions;
+    int insertions;
+    int referenceLength;
+
+    public CharErrorCounts(int substitutions, int deletions, int insertions, int referenceLength) {
+        this.substitutions = substitutions;
+        this.deletions = deletions;
+        this.insertions = insertions;
+        this.referenceLength = referenceLength;
+        this.distance = substitutions + deletions + insertions;
+    }
+
+    public double cer() {
+        if (referenceLength == 0) {
+            return distance == 0 ? 0.0 : 1.0;
+        }
+        return (double) distance / referenceLength;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CER=%.4f (S=%d, D=%d, I=%d, N=%d)",
+                cer(), substitutions, deletions, insertions, referenceLength);
+    }
+}
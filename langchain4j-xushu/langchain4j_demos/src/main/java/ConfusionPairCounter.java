@@ -0,0 +1,408 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 替换混淆对（参考单词 -> 识别单词，如 退票 -> 推票）的高频统计，内存有上界。
+ * 使用 Space-Saving 算法：最多跟踪 capacity 个混淆对，新对挤掉计数最小的一个并继承其计数作为误差，
+ * 每个结果都有 count - error <= 真实次数 <= count，且 error <= 替换总数 / capacity。
+ * 混淆对按共享词表的ID编码为long，查找用开放寻址的long->int表，最小值用带位置索引的小顶堆。
+ * 每个工作线程各用一个（fork），最后 merge，非线程安全
+ */
+class ConfusionPairCounter {
+
+    /**
+     * 一个混淆对及其计数上界与误差
+     */
+    static class ConfusionPair {
+        final String reference;
+        final String hypothesis;
+        final long count;
+        final long error;
+
+        ConfusionPair(String reference, String hypothesis, long count, long error) {
+            this.reference = reference;
+            this.hypothesis = hypothesis;
+            this.count = count;
+            this.error = error;
+        }
+
+        /**
+         * 真实次数的下界
+         */
+        long guaranteedCount() {
+            return count - error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s->%s %d (±%d)", reference, hypothesis, count, error);
+        }
+    }
+
+    private final int capacity;
+    private final TokenVocabulary vocabulary;
+
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap;       // 按计数排列的小顶堆，存槽位号
+    private final int[] heapIndex;  // 槽位在堆中的位置
+    private final LongIntHashMap slots;
+    private int size;
+    private long total;             // 累计替换次数
+
+    ConfusionPairCounter(int capacity) {
+        this(capacity, new TokenVocabulary());
+    }
+
+    ConfusionPairCounter(int capacity, TokenVocabulary vocabulary) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+        this.capacity = capacity;
+        this.vocabulary = vocabulary;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+        this.slots = new LongIntHashMap(capacity);
+    }
+
+    /**
+     * 同样容量、共享词表的空计数器，供其他线程使用，之后可以 merge
+     */
+    ConfusionPairCounter fork() {
+        return new ConfusionPairCounter(capacity, vocabulary);
+    }
+
+    /**
+     * 累加一次对齐结果中的所有替换
+     */
+    void add(WordEditResult result) {
+        if (result.script != null) {
+            add(result.script);
+            return;
+        }
+        for (WordEditOperation op : result.operations) {
+            if (op.type == WordOperationType.SUBSTITUTE) {
+                add(op.wordA, op.wordB, 1);
+            }
+        }
+    }
+
+    /**
+     * 沿编辑脚本的游程累加替换，不生成操作对象
+     */
+    void add(EditScript script) {
+        int[] source = script.source();
+        int[] target = script.target();
+        TokenVocabulary scriptVocabulary = script.vocabulary();
+        int i = 0, j = 0;
+        for (int run = 0; run < script.runCount(); run++) {
+            byte op = script.runOp(run);
+            int length = script.runLength(run);
+            if (op == WordAlignmentCore.SUBSTITUTE) {
+                for (int k = 0; k < length; k++) {
+                    int a = vocabulary.intern(scriptVocabulary.token(source[i + k]));
+                    int b = vocabulary.intern(scriptVocabulary.token(target[j + k]));
+                    add(pairKey(a, b), 1);
+                }
+            }
+            if (op != WordAlignmentCore.INSERT) i += length;
+            if (op != WordAlignmentCore.DELETE) j += length;
+        }
+    }
+
+    void add(String reference, String hypothesis, long times) {
+        add(pairKey(vocabulary.intern(reference), vocabulary.intern(hypothesis)), times);
+    }
+
+    private void add(long key, long times) {
+        total += times;
+        int slot = slots.get(key);
+        if (slot >= 0) {
+            counts[slot] += times;
+            siftDown(heapIndex[slot]);
+        } else if (size < capacity) {
+            slot = size++;
+            keys[slot] = key;
+            counts[slot] = times;
+            errors[slot] = 0;
+            slots.put(key, slot);
+            heap[slot] = slot;
+            heapIndex[slot] = slot;
+            siftUp(slot);
+        } else {
+            // 挤掉计数最小的混淆对，继承其计数作为误差
+            slot = heap[0];
+            slots.remove(keys[slot]);
+            errors[slot] = counts[slot];
+            counts[slot] += times;
+            keys[slot] = key;
+            slots.put(key, slot);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 合并另一个线程的统计（需共享同一词表）。一方未跟踪的混淆对，
+     * 其在该方的次数最多为该方的最小计数（该方已满时），计入计数和误差
+     */
+    void merge(ConfusionPairCounter other) {
+        if (other.vocabulary != vocabulary) {
+            throw new IllegalArgumentException("counters must share the same vocabulary");
+        }
+        long thisFloor = size == capacity ? counts[heap[0]] : 0;
+        long otherFloor = other.size == other.capacity ? other.counts[other.heap[0]] : 0;
+
+        int combined = size + other.size;
+        long[] mergedKeys = new long[combined];
+        long[] mergedCounts = new long[combined];
+        long[] mergedErrors = new long[combined];
+        int n = 0;
+        for (int slot = 0; slot < size; slot++) {
+            int otherSlot = other.slots.get(keys[slot]);
+            mergedKeys[n] = keys[slot];
+            if (otherSlot >= 0) {
+                mergedCounts[n] = counts[slot] + other.counts[otherSlot];
+                mergedErrors[n] = errors[slot] + other.errors[otherSlot];
+            } else {
+                mergedCounts[n] = counts[slot] + otherFloor;
+                mergedErrors[n] = errors[slot] + otherFloor;
+            }
+            n++;
+        }
+        for (int slot = 0; slot < other.size; slot++) {
+            if (slots.get(other.keys[slot]) < 0) {
+                mergedKeys[n] = other.keys[slot];
+                mergedCounts[n] = other.counts[slot] + thisFloor;
+                mergedErrors[n] = other.errors[slot] + thisFloor;
+                n++;
+            }
+        }
+
+        // 保留计数最大的 capacity 个
+        Integer[] order = new Integer[n];
+        for (int k = 0; k < n; k++) order[k] = k;
+        Arrays.sort(order, (x, y) -> Long.compare(mergedCounts[y], mergedCounts[x]));
+
+        long mergedTotal = total + other.total;
+        clear();
+        total = mergedTotal;
+        for (int k = 0; k < Math.min(n, capacity); k++) {
+            int from = order[k];
+            int slot = size++;
+            keys[slot] = mergedKeys[from];
+            counts[slot] = mergedCounts[from];
+            errors[slot] = mergedErrors[from];
+            slots.put(keys[slot], slot);
+            heap[slot] = slot;
+            heapIndex[slot] = slot;
+            siftUp(slot);
+        }
+    }
+
+    /**
+     * 计数最高的 k 个混淆对（按计数降序）
+     */
+    List<ConfusionPair> top(int k) {
+        Integer[] order = new Integer[size];
+        for (int slot = 0; slot < size; slot++) order[slot] = slot;
+        Arrays.sort(order, (x, y) -> Long.compare(counts[y], counts[x]));
+
+        List<ConfusionPair> pairs = new ArrayList<>(Math.min(k, size));
+        for (int r = 0; r < Math.min(k, size); r++) {
+            int slot = order[r];
+            pairs.add(new ConfusionPair(
+                    vocabulary.token((int) (keys[slot] >>> 32)),
+                    vocabulary.token((int) keys[slot]),
+                    counts[slot], errors[slot]));
+        }
+        return pairs;
+    }
+
+    long totalSubstitutions() {
+        return total;
+    }
+
+    /**
+     * 任一结果计数的最大误差
+     */
+    long maxError() {
+        return total / capacity;
+    }
+
+    private void clear() {
+        for (int slot = 0; slot < size; slot++) {
+            slots.remove(keys[slot]);
+        }
+        size = 0;
+        total = 0;
+    }
+
+    private static long pairKey(int reference, int hypothesis) {
+        return ((long) reference << 32) | (hypothesis & 0xFFFFFFFFL);
+    }
+
+    private void siftUp(int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) break;
+            moveTo(heap[parent], index);
+            index = parent;
+        }
+        moveTo(slot, index);
+    }
+
+    private void siftDown(int index) {
+        int slot = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) child++;
+            if (counts[slot] <= counts[heap[child]]) break;
+            moveTo(heap[child], index);
+            index = child;
+        }
+        moveTo(slot, index);
+    }
+
+    private void moveTo(int slot, int index) {
+        heap[index] = slot;
+        heapIndex[slot] = index;
+    }
+}
+
+/**
+ * long -> int 开放寻址表（线性探测，删除时后移），不装箱。装填超过一半时容量翻倍；
+ * 遍历按槽位进行：slots() 个槽位中 occupied(slot) 为真的才有键值。
+ * ConfusionPairCounter 的槽位索引和 DuplicateIndex 的倒排桶、投票表共用。非线程安全
+ */
+final class LongIntHashMap {
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    LongIntHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 不存在时返回 -1
+     */
+    int get(long key) {
+        return getOrDefault(key, -1);
+    }
+
+    int getOrDefault(long key, int absent) {
+        for (int i = index(key); used[i]; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return absent;
+    }
+
+    void put(long key, int value) {
+        int i = slotFor(key);
+        values[i] = value;
+    }
+
+    /**
+     * 值加上 delta（不存在时从0开始），返回新值
+     */
+    int add(long key, int delta) {
+        int i = slotFor(key);
+        return values[i] += delta;
+    }
+
+    void remove(long key) {
+        int i = index(key);
+        while (used[i] && keys[i] != key) i = (i + 1) & mask;
+        if (!used[i]) return;
+        used[i] = false;
+        size--;
+        // 把后续同一探测链上的项前移，保证查找不断链
+        for (int j = (i + 1) & mask; used[j]; j = (j + 1) & mask) {
+            int home = index(keys[j]);
+            boolean between = i <= j ? (home > i && home <= j) : (home > i || home <= j);
+            if (!between) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                used[i] = true;
+                used[j] = false;
+                i = j;
+            }
+        }
+    }
+
+    int slots() {
+        return keys.length;
+    }
+
+    boolean occupied(int slot) {
+        return used[slot];
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * 键所在的槽位，不存在时先插入（值为0）
+     */
+    private int slotFor(long key) {
+        int i = index(key);
+        while (used[i] && keys[i] != key) i = (i + 1) & mask;
+        if (used[i]) {
+            return i;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+            return slotFor(key);
+        }
+        keys[i] = key;
+        values[i] = 0;
+        used[i] = true;
+        size++;
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int i = index(oldKeys[slot]);
+                while (used[i]) i = (i + 1) & mask;
+                keys[i] = oldKeys[slot];
+                values[i] = oldValues[slot];
+                used[i] = true;
+            }
+        }
+    }
+
+    private int index(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+}
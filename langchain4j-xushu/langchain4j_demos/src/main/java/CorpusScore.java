@@ -0,0 +1,84 @@
+/**
+ * 语料级打分汇总：WER/CER/SER 的微平均（总错误数/总参考长度）和宏平均（逐句错误率的平均），
+ * 以及替换/删除/插入总数。可以在多个线程各自累加后合并
+ */
+class CorpusScore {
+    long pairs;
+    long referenceWords;
+    long substitutions;
+    long deletions;
+    long insertions;
+    long referenceChars;
+    long charErrors;
+    long sentenceErrors;    // 至少有一个单词错误的句子数
+    double werSum;          // 逐句WER之和（宏平均用）
+    double cerSum;
+
+    /**
+     * 累加一句的结果
+     */
+    void add(WordErrorCounts words, int charDistance, int referenceCharCount) {
+        pairs++;
+        referenceWords += words.referenceLength;
+        substitutions += words.substitutions;
+        deletions += words.deletions;
+        insertions += words.insertions;
+        referenceChars += referenceCharCount;
+        charErrors += charDistance;
+        if (words.distance > 0) {
+            sentenceErrors++;
+        }
+        werSum += words.wer();
+        cerSum += rate(charDistance, referenceCharCount);
+    }
+
+    void merge(CorpusScore other) {
+        pairs += other.pairs;
+        referenceWords += other.referenceWords;
+        substitutions += other.substitutions;
+        deletions += other.deletions;
+        insertions += other.insertions;
+        referenceChars += other.referenceChars;
+        charErrors += other.charErrors;
+        sentenceErrors += other.sentenceErrors;
+        werSum += other.werSum;
+        cerSum += other.cerSum;
+    }
+
+    public long wordErrors() {
+        return substitutions + deletions + insertions;
+    }
+
+    public double microWer() {
+        return rate(wordErrors(), referenceWords);
+    }
+
+    public double macroWer() {
+        return pairs == 0 ? 0.0 : werSum / pairs;
+    }
+
+    public double microCer() {
+        return rate(charErrors, referenceChars);
+    }
+
+    public double macroCer() {
+        return pairs == 0 ? 0.0 : cerSum / pairs;
+    }
+
+    public double ser() {
+        return pairs == 0 ? 0.0 : (double) sentenceErrors / pairs;
+    }
+
+    private static double rate(long errors, long referenceLength) {
+        if (referenceLength == 0) {
+            return errors == 0 ? 0.0 : 1.0;
+        }
+        return (double) errors / referenceLength;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("pairs=%d WER(micro)=%.4f WER(macro)=%.4f CER(micro)=%.4f CER(macro)=%.4f SER=%.4f S=%d D=%d I=%d",
+                pairs, microWer(), macroWer(), microCer(), macroCer(), ser(), substitutions, deletions, insertions);
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+/**
+ * 语料级并行打分：把（参考文本，识别结果）对分批提交到 ForkJoinPool，
+ * 按估算的DP规模（而不是句子个数）二分任务，工作窃取自动均衡长短句；多个批次流水线并行
+ */
+class CorpusScorer {
+
+    /**
+     * 一对待打分文本
+     */
+    static class TextPair {
+        final String reference;
+        final String hypothesis;
+
+        TextPair(String reference, String hypothesis) {
+            this.reference = reference;
+            this.hypothesis = hypothesis;
+        }
+    }
+
+    // 每批从迭代器读取的句子对数，限制流式输入时的内存占用
+    private static final int BATCH_SIZE = 8192;
+    // 同时在途的批数上限，内存占用不超过 PIPELINE_DEPTH * BATCH_SIZE 对
+    private static final int PIPELINE_DEPTH = 4;
+    // 估算DP单元格数低于该值的任务不再拆分
+    private static final long LEAF_COST = 1 << 18;
+
+    private final ForkJoinPool pool;
+
+    public CorpusScorer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public CorpusScorer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public CorpusScore score(List<TextPair> pairs) {
+        return score(pairs.iterator());
+    }
+
+    public CorpusScore score(Stream<TextPair> pairs) {
+        return score(pairs.iterator());
+    }
+
+    /**
+     * 批次流水线：读满一批即提交，不等它算完就继续读下一批，最多 PIPELINE_DEPTH 批在途；
+     * 队列满时才等最早的一批，慢句只拖住自己所在的批，其他核继续算后面的批
+     */
+    public CorpusScore score(Iterator<TextPair> pairs) {
+        CorpusScore total = new CorpusScore();
+        Deque<ForkJoinTask<CorpusScore>> pending = new ArrayDeque<>();
+        try {
+            List<TextPair> batch = new ArrayList<>(BATCH_SIZE);
+            while (pairs.hasNext()) {
+                batch.add(pairs.next());
+                if (batch.size() == BATCH_SIZE) {
+                    if (pending.size() == PIPELINE_DEPTH) {
+                        total.merge(pending.removeFirst().join());
+                    }
+                    pending.addLast(submitBatch(batch));
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pending.addLast(submitBatch(batch));
+            }
+            while (!pending.isEmpty()) {
+                total.merge(pending.removeFirst().join());
+            }
+        } finally {
+            // 迭代器或某一批出错时不再计算剩下的批
+            for (ForkJoinTask<CorpusScore> task : pending) {
+                task.cancel(false);
+            }
+        }
+        return total;
+    }
+
+    private ForkJoinTask<CorpusScore> submitBatch(List<TextPair> batch) {
+        TextPair[] items = batch.toArray(new TextPair[0]);
+        // 代价前缀和：costs[i] 为前 i 对的估算DP规模
+        long[] costs = new long[items.length + 1];
+        for (int i = 0; i < items.length; i++) {
+            costs[i + 1] = costs[i] + estimateCost(items[i]);
+        }
+        return pool.submit(new ScoreTask(items, costs, 0, items.length));
+    }
+
+    private static long estimateCost(TextPair pair) {
+        return (long) (pair.reference.length() + 1) * (pair.hypothesis.length() + 1);
+    }
+
+    /**
+     * 单句打分：单词级用线性内存的计数DP，字符级按码点计算并忽略空白；返回该句的单词级统计
+     */
+    static WordErrorCounts scorePair(TextPair pair, CorpusScore into) {
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        int[] reference = vocabulary.encode(WordLevelLevenshtein.splitIntoWords(pair.reference));
+        int[] hypothesis = vocabulary.encode(WordLevelLevenshtein.splitIntoWords(pair.hypothesis));
+        WordErrorCounts words = WordAlignmentCore.countErrors(reference, hypothesis);
+
+        CharErrorCounts chars = CharErrorRate.counts(pair.reference, pair.hypothesis);
+        into.add(words, chars.distance, chars.referenceLength);
+        return words;
+    }
+
+    private static final class ScoreTask extends RecursiveTask<CorpusScore> {
+        private final TextPair[] items;
+        private final long[] costs;
+        private final int from;
+        private final int to;
+
+        ScoreTask(TextPair[] items, long[] costs, int from, int to) {
+            this.items = items;
+            this.costs = costs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CorpusScore compute() {
+            if (to - from <= 1 || costs[to] - costs[from] <= LEAF_COST) {
+                CorpusScore score = new CorpusScore();
+                for (int i = from; i < to; i++) {
+                    scorePair(items[i], score);
+                }
+                return score;
+            }
+
+            int split = splitByCost();
+            ScoreTask left = new ScoreTask(items, costs, from, split);
+            ScoreTask right = new ScoreTask(items, costs, split, to);
+            left.fork();
+            CorpusScore score = right.compute();
+            score.merge(left.join());
+            return score;
+        }
+
+        /**
+         * 在代价前缀和上二分，找到使两侧代价最接近的切分点
+         */
+        private int splitByCost() {
+            long half = costs[from] + (costs[to] - costs[from]) / 2;
+            int lo = from + 1, hi = to - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (costs[mid] < half) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
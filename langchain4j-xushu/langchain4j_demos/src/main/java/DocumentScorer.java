@@ -0,0 +1,255 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 文档级打分：参考文本按句切分，整篇识别结果只做一次单词级对齐，
+ * 再沿编辑脚本的游程把每个替换/删除/插入归到参考文本所在的句子，
+ * 一遍得到每句和全文的 WER/CER/SER 及 S/D/I，不生成逐个操作的对象。
+ * 识别结果的断句不可靠，所以不要求两边句数相同；插入计入前一个参考单词所在的句子
+ */
+class DocumentScorer {
+
+    // 默认去掉标点，否则句末标点会粘在最后一个单词上
+    private static final TextNormalizer DEFAULT_NORMALIZER =
+            TextNormalizer.builder().stripPunctuation(true).build();
+
+    // 后面跟 . 但不结束句子的英文缩写（小写比较）
+    private static final Set<String> ABBREVIATIONS = Set.of(
+            "mr", "mrs", "ms", "dr", "prof", "sr", "jr", "st", "vs", "e.g", "i.e");
+
+    private final TextNormalizer normalizer;
+
+    DocumentScorer() {
+        this(DEFAULT_NORMALIZER);
+    }
+
+    DocumentScorer(TextNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    DocumentScore score(String reference, String hypothesis) {
+        TokenVocabulary vocabulary = new TokenVocabulary();
+
+        // 参考文本逐句分词，记录每句在整篇单词序列中的结束位置（不含空句）
+        List<String> sentenceTexts = new ArrayList<>();
+        TokenBuffer referenceIds = new TokenBuffer();
+        List<Integer> ends = new ArrayList<>();
+        for (String sentence : splitSentences(reference)) {
+            if (normalizer.tokenize(sentence, vocabulary, referenceIds) > 0) {
+                sentenceTexts.add(sentence);
+                ends.add(referenceIds.size());
+            }
+        }
+        TokenBuffer hypothesisIds = new TokenBuffer();
+        normalizer.tokenize(hypothesis, vocabulary, hypothesisIds);
+
+        int[] source = referenceIds.toArray();
+        int[] target = hypothesisIds.toArray();
+        int count = sentenceTexts.size();
+        int[] sentenceEnd = new int[count];
+        for (int s = 0; s < count; s++) sentenceEnd[s] = ends.get(s);
+
+        int[] substitutions = new int[count];
+        int[] deletions = new int[count];
+        int[] insertions = new int[count];
+        // 每句分到的识别结果单词区间 [hypothesisStart, hypothesisEnd)
+        int[] hypothesisStart = new int[count];
+        int[] hypothesisEnd = new int[count];
+        Arrays.fill(hypothesisStart, -1);
+
+        if (count > 0) {
+            EditScript script = WordLevelLevenshtein.wordLevelLevenshtein(source, target, vocabulary).script;
+            int i = 0, j = 0, s = 0;
+            for (int run = 0; run < script.runCount(); run++) {
+                byte op = script.runOp(run);
+                for (int k = script.runLength(run); k > 0; k--) {
+                    if (op != WordAlignmentCore.INSERT) {
+                        while (i >= sentenceEnd[s]) s++;
+                        i++;
+                    }
+                    if (op == WordAlignmentCore.SUBSTITUTE) {
+                        substitutions[s]++;
+                    } else if (op == WordAlignmentCore.DELETE) {
+                        deletions[s]++;
+                    } else if (op == WordAlignmentCore.INSERT) {
+                        insertions[s]++;
+                    }
+                    if (op != WordAlignmentCore.DELETE) {
+                        if (hypothesisStart[s] < 0) hypothesisStart[s] = j;
+                        hypothesisEnd[s] = ++j;
+                    }
+                }
+            }
+        }
+
+        List<SentenceScore> sentences = new ArrayList<>(count);
+        int start = 0;
+        for (int s = 0; s < count; s++) {
+            String referenceWords = join(vocabulary, source, start, sentenceEnd[s]);
+            String hypothesisWords = hypothesisStart[s] < 0 ? ""
+                    : join(vocabulary, target, hypothesisStart[s], hypothesisEnd[s]);
+            WordErrorCounts words = new WordErrorCounts(substitutions[s], deletions[s], insertions[s],
+                    sentenceEnd[s] - start);
+            sentences.add(new SentenceScore(s, sentenceTexts.get(s), hypothesisWords, words,
+                    CharErrorRate.counts(referenceWords, hypothesisWords)));
+            start = sentenceEnd[s];
+        }
+
+        // 参考文本为空（或规范化后没有单词）时，整篇识别结果都算插入；字符数和其他路径一样按规范化后的单词计
+        if (count > 0) {
+            return new DocumentScore(sentences, 0, 0);
+        }
+        return new DocumentScore(sentences, target.length,
+                CharErrorRate.length(join(vocabulary, target, 0, target.length), true));
+    }
+
+    /**
+     * 按中英文句末标点和换行切分句子（标点保留在句尾）。
+     * 英文的 . 和 ; 只有后面是空白或文本末尾时才算句末，小数点（3.5）和常见称谓缩写（Mr. Dr.）不切
+     */
+    static List<String> splitSentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        if (text == null) {
+            return sentences;
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (isSentenceEnd(text, i)) {
+                addSentence(sentences, text, start, i + 1);
+                start = i + 1;
+            }
+        }
+        addSentence(sentences, text, start, text.length());
+        return sentences;
+    }
+
+    private static boolean isSentenceEnd(String text, int i) {
+        switch (text.charAt(i)) {
+            case '!': case '?':
+            case '。': case '！': case '？': case '；': case '…':
+            case '\n':
+                return true;
+            case ';':
+                return endsWord(text, i);
+            case '.':
+                return endsWord(text, i) && !isAbbreviation(text, i);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 标点后是空白或文本末尾；3.5 这样两侧都是数字的点后面不是空白，自然不算
+     */
+    private static boolean endsWord(String text, int i) {
+        return i + 1 == text.length() || Character.isWhitespace(text.charAt(i + 1));
+    }
+
+    private static boolean isAbbreviation(String text, int dot) {
+        int from = dot;
+        while (from > 0 && !Character.isWhitespace(text.charAt(from - 1))) {
+            from--;
+        }
+        return from < dot && ABBREVIATIONS.contains(text.substring(from, dot).toLowerCase(Locale.ROOT));
+    }
+
+    private static void addSentence(List<String> sentences, String text, int from, int to) {
+        String sentence = text.substring(from, to).trim();
+        if (!sentence.isEmpty()) {
+            sentences.add(sentence);
+        }
+    }
+
+    private static String join(TokenVocabulary vocabulary, int[] ids, int from, int to) {
+        StringBuilder text = new StringBuilder();
+        for (int k = from; k < to; k++) {
+            if (k > from) text.append(' ');
+            text.append(vocabulary.token(ids[k]));
+        }
+        return text.toString();
+    }
+}
+
+/**
+ * 单句结果：参考句原文、分到该句的识别结果单词（空格连接）、单词级和字符级统计
+ */
+class SentenceScore {
+    final int index;
+    final String reference;
+    final String hypothesis;
+    final WordErrorCounts words;
+    final CharErrorCounts chars;
+
+    SentenceScore(int index, String reference, String hypothesis, WordErrorCounts words, CharErrorCounts chars) {
+        this.index = index;
+        this.reference = reference;
+        this.hypothesis = hypothesis;
+        this.words = words;
+        this.chars = chars;
+    }
+
+    boolean hasError() {
+        return words.distance > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s", index, words, chars);
+    }
+}
+
+/**
+ * 全文结果：逐句结果与汇总（S/D/I 对应报告中的 ErrorDistribution，WER/CER/SER 对应 AccuracyMetrics）
+ */
+class DocumentScore {
+    final List<SentenceScore> sentences;
+    final WordErrorCounts words;
+    final CharErrorCounts chars;
+    final int sentenceErrors;
+
+    DocumentScore(List<SentenceScore> sentences, int extraInsertions, int extraCharInsertions) {
+        this.sentences = sentences;
+        int substitutions = 0, deletions = 0, insertions = extraInsertions, referenceWords = 0;
+        int charSubstitutions = 0, charDeletions = 0, charInsertions = extraCharInsertions, referenceChars = 0;
+        int errors = 0;
+        for (SentenceScore sentence : sentences) {
+            substitutions += sentence.words.substitutions;
+            deletions += sentence.words.deletions;
+            insertions += sentence.words.insertions;
+            referenceWords += sentence.words.referenceLength;
+            charSubstitutions += sentence.chars.substitutions;
+            charDeletions += sentence.chars.deletions;
+            charInsertions += sentence.chars.insertions;
+            referenceChars += sentence.chars.referenceLength;
+            if (sentence.hasError()) {
+                errors++;
+            }
+        }
+        this.words = new WordErrorCounts(substitutions, deletions, insertions, referenceWords);
+        this.chars = new CharErrorCounts(charSubstitutions, charDeletions, charInsertions, referenceChars);
+        this.sentenceErrors = errors;
+    }
+
+    double wer() {
+        return words.wer();
+    }
+
+    double cer() {
+        return chars.cer();
+    }
+
+    double ser() {
+        if (sentences.isEmpty()) {
+            return words.distance == 0 ? 0.0 : 1.0;
+        }
+        return (double) sentenceErrors / sentences.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("sentences=%d SER=%.4f %s %s", sentences.size(), ser(), words, chars);
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 样本库的内存去重索引：精确指纹一次哈希查找；近似重复用感知指纹的倒排表，
+ * 按（样本，时间偏移）投票，同一偏移上命中足够多的峰值对即视为同一段音频（允许截头、重新编码）。
+ * 倒排桶和投票表都是 long -> int 开放寻址表，不装箱；出现在太多位置的峰值对哈希（静音、底噪）
+ * 不参与投票，也不再追加。读多写少，读写锁保护，线程安全
+ */
+class DuplicateIndex {
+
+    /**
+     * 查重结论
+     */
+    enum Kind {
+        NEW,        // 未见过
+        EXACT,      // 文件内容完全相同
+        NEAR        // 感知指纹近似
+    }
+
+    /**
+     * 查重结果：匹配到的样本、得分（对齐的峰值对占查询峰值对的比例）和时间偏移
+     */
+    static class Check {
+        final Kind kind;
+        final String sampleId;
+        final double score;
+        final long offsetMillis;
+
+        Check(Kind kind, String sampleId, double score, long offsetMillis) {
+            this.kind = kind;
+            this.sampleId = sampleId;
+            this.score = score;
+            this.offsetMillis = offsetMillis;
+        }
+
+        boolean isDuplicate() {
+            return kind != Kind.NEW;
+        }
+
+        @Override
+        public String toString() {
+            return kind == Kind.NEW ? "NEW"
+                    : String.format("%s %s score=%.3f offset=%dms", kind, sampleId, score, offsetMillis);
+        }
+    }
+
+    private static final Check NEW = new Check(Kind.NEW, null, 0, 0);
+
+    // 倒排桶长度上限，超过的哈希区分度太低，查询时跳过
+    private static final int MAX_POSTINGS = 4096;
+
+    private final int minMatches;
+    private final double minScore;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, String> exact = new HashMap<>();
+    private final List<String> sampleIds = new ArrayList<>();
+    // 峰值对哈希 -> buckets 中的下标；桶内为（样本序号 << 32 | 锚点帧号），按样本序号递增
+    private final LongIntHashMap bucketOf = new LongIntHashMap(1024);
+    private final List<Postings> buckets = new ArrayList<>();
+
+    DuplicateIndex() {
+        this(20, 0.05);
+    }
+
+    /**
+     * minMatches：同一偏移上至少对齐的峰值对数；minScore：对齐数占查询峰值对的最低比例
+     */
+    DuplicateIndex(int minMatches, double minScore) {
+        this.minMatches = minMatches;
+        this.minScore = minScore;
+    }
+
+    /**
+     * 精确指纹是否见过
+     */
+    boolean seen(String sha256) {
+        lock.readLock().lock();
+        try {
+            return exact.containsKey(sha256);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Check check(AudioFingerprint fingerprint) {
+        lock.readLock().lock();
+        try {
+            return checkLocked(fingerprint, 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 未见过（精确和近似都不命中）时加入索引。先在读锁下对整个库查重，并发导入可以同时进行；
+     * 写锁内只对这期间新加入的样本补查一次再加入，不会漏判
+     */
+    Check addIfNew(String sampleId, AudioFingerprint fingerprint) {
+        int checked;
+        lock.readLock().lock();
+        try {
+            Check check = checkLocked(fingerprint, 0);
+            if (check.isDuplicate()) {
+                return check;
+            }
+            checked = sampleIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (sampleIds.size() > checked) {
+                Check check = checkLocked(fingerprint, checked);
+                if (check.isDuplicate()) {
+                    return check;
+                }
+            }
+            addLocked(sampleId, fingerprint);
+            return NEW;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void add(String sampleId, AudioFingerprint fingerprint) {
+        lock.writeLock().lock();
+        try {
+            addLocked(sampleId, fingerprint);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return sampleIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addLocked(String sampleId, AudioFingerprint fingerprint) {
+        exact.putIfAbsent(fingerprint.sha256, sampleId);
+        int sample = sampleIds.size();
+        sampleIds.add(sampleId);
+        PerceptualFingerprint perceptual = fingerprint.perceptual;
+        if (perceptual == null) {
+            return;
+        }
+        for (int k = 0; k < perceptual.size(); k++) {
+            int bucket = bucketOf.get(perceptual.hashes[k]);
+            if (bucket < 0) {
+                bucket = buckets.size();
+                buckets.add(new Postings());
+                bucketOf.put(perceptual.hashes[k], bucket);
+            }
+            buckets.get(bucket).add((long) sample << 32 | perceptual.times[k]);
+        }
+    }
+
+    /**
+     * 只和序号不小于 fromSample 的样本比较（精确指纹仍查整个库）
+     */
+    private Check checkLocked(AudioFingerprint fingerprint, int fromSample) {
+        String same = exact.get(fingerprint.sha256);
+        if (same != null) {
+            return new Check(Kind.EXACT, same, 1.0, 0);
+        }
+        PerceptualFingerprint perceptual = fingerprint.perceptual;
+        if (perceptual == null || perceptual.size() == 0) {
+            return NEW;
+        }
+
+        // （样本，库中帧号 - 查询帧号）上的票数
+        LongIntHashMap votes = new LongIntHashMap(perceptual.size());
+        for (int k = 0; k < perceptual.size(); k++) {
+            int bucket = bucketOf.get(perceptual.hashes[k]);
+            if (bucket < 0) continue;
+            Postings list = buckets.get(bucket);
+            if (list.saturated()) continue;
+            // 桶内按样本序号递增，从尾部往前扫到 fromSample 为止
+            for (int p = list.size - 1; p >= 0; p--) {
+                long entry = list.entries[p];
+                int sample = (int) (entry >>> 32);
+                if (sample < fromSample) break;
+                int offset = (int) entry - perceptual.times[k];
+                votes.add(voteKey(sample, offset), 1);
+            }
+        }
+
+        // 截头不是帧移整数倍时峰会落到相邻帧，相邻偏移的票合并计算
+        long bestKey = 0;
+        int bestVotes = 0;
+        for (int slot = 0; slot < votes.slots(); slot++) {
+            if (!votes.occupied(slot)) continue;
+            long key = votes.keyAt(slot);
+            int total = votes.valueAt(slot) + votes.getOrDefault(key - 1, 0) + votes.getOrDefault(key + 1, 0);
+            if (total > bestVotes || total == bestVotes && key < bestKey) {
+                bestVotes = total;
+                bestKey = key;
+            }
+        }
+        double score = (double) bestVotes / perceptual.size();
+        if (bestVotes < minMatches || score < minScore) {
+            return NEW;
+        }
+        int sample = (int) (bestKey >>> 32);
+        int offset = (int) bestKey - (1 << 30);
+        return new Check(Kind.NEAR, sampleIds.get(sample), Math.min(1.0, score),
+                (long) offset * AudioFingerprinter.HOP_MILLIS);
+    }
+
+    /**
+     * 偏移加上 2^30 后放在低32位，相邻偏移的键相差1
+     */
+    private static long voteKey(int sample, int offset) {
+        return (long) sample << 32 | (offset + (1 << 30));
+    }
+
+    private static final class Postings {
+        long[] entries = new long[4];
+        int size;
+
+        /**
+         * 超过 MAX_POSTINGS 后不再追加
+         */
+        boolean saturated() {
+            return size > MAX_POSTINGS;
+        }
+
+        void add(long entry) {
+            if (saturated()) {
+                return;
+            }
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+    }
+}
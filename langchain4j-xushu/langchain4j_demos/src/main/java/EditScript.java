@@ -0,0 +1,208 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 紧凑的编辑脚本：按游程编码保存操作码（每个游程一个int：长度 << 2 | 操作码），
+ * 单词位置由游程累加得出，不再为每个单词创建对象。
+ * WordEditOperation 和改写后的文本只在访问时按需生成
+ */
+final class EditScript {
+
+    private static final int OP_BITS = 2;
+    private static final int OP_MASK = (1 << OP_BITS) - 1;
+
+    private final int[] runs;
+    private final int[] source;
+    private final int[] target;
+    private final TokenVocabulary vocabulary;
+
+    // 游程起点索引，首次随机访问时计算一次；之后的读取不加锁
+    private volatile Index index;
+
+    private EditScript(int[] runs, int[] source, int[] target, TokenVocabulary vocabulary) {
+        this.runs = runs;
+        this.source = source;
+        this.target = target;
+        this.vocabulary = vocabulary;
+    }
+
+    int runCount() {
+        return runs.length;
+    }
+
+    byte runOp(int run) {
+        return (byte) (runs[run] & OP_MASK);
+    }
+
+    int runLength(int run) {
+        return runs[run] >>> OP_BITS;
+    }
+
+    int[] source() {
+        return source;
+    }
+
+    int[] target() {
+        return target;
+    }
+
+    TokenVocabulary vocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * 某种操作（WordAlignmentCore.MATCH/INSERT/DELETE/SUBSTITUTE）的总个数
+     */
+    int count(byte op) {
+        int total = 0;
+        for (int run : runs) {
+            if ((run & OP_MASK) == op) {
+                total += run >>> OP_BITS;
+            }
+        }
+        return total;
+    }
+
+    int operationCount() {
+        return index().opStart[runs.length];
+    }
+
+    int textLength() {
+        return index().textStart[runs.length];
+    }
+
+    /**
+     * 操作序列的只读视图
+     */
+    List<WordEditOperation> operations() {
+        return new AbstractList<WordEditOperation>() {
+            @Override
+            public WordEditOperation get(int position) {
+                Index starts = index();
+                int run = findRun(starts.opStart, position);
+                byte op = runOp(run);
+                int offset = position - starts.opStart[run];
+                int i = starts.sourceStart[run] + (op != WordAlignmentCore.INSERT ? offset + 1 : 0);
+                int j = starts.targetStart[run] + (op != WordAlignmentCore.DELETE ? offset + 1 : 0);
+                return WordAlignmentCore.operationAt(op, i, j, source, target, vocabulary);
+            }
+
+            @Override
+            public int size() {
+                return operationCount();
+            }
+        };
+    }
+
+    /**
+     * 改写后文本的只读视图：匹配保留源单词，替换和插入取目标单词，删除跳过
+     */
+    List<String> transformedText() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int position) {
+                Index starts = index();
+                int run = findRun(starts.textStart, position);
+                int offset = position - starts.textStart[run];
+                if (runOp(run) == WordAlignmentCore.MATCH) {
+                    return vocabulary.token(source[starts.sourceStart[run] + offset]);
+                }
+                return vocabulary.token(target[starts.targetStart[run] + offset]);
+            }
+
+            @Override
+            public int size() {
+                return textLength();
+            }
+        };
+    }
+
+    /**
+     * 双重检查的惰性初始化：Index 不可变，发布后各线程无锁读取
+     */
+    private Index index() {
+        Index starts = index;
+        if (starts == null) {
+            synchronized (this) {
+                starts = index;
+                if (starts == null) {
+                    index = starts = new Index(runs);
+                }
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * 每个游程开始时的操作序号、源位置、目标位置、文本位置
+     */
+    private static final class Index {
+        final int[] opStart;
+        final int[] sourceStart;
+        final int[] targetStart;
+        final int[] textStart;
+
+        Index(int[] runs) {
+            int count = runs.length;
+            opStart = new int[count + 1];
+            sourceStart = new int[count + 1];
+            targetStart = new int[count + 1];
+            textStart = new int[count + 1];
+            for (int r = 0; r < count; r++) {
+                int op = runs[r] & OP_MASK;
+                int length = runs[r] >>> OP_BITS;
+                opStart[r + 1] = opStart[r] + length;
+                sourceStart[r + 1] = sourceStart[r] + (op != WordAlignmentCore.INSERT ? length : 0);
+                targetStart[r + 1] = targetStart[r] + (op != WordAlignmentCore.DELETE ? length : 0);
+                textStart[r + 1] = textStart[r] + (op != WordAlignmentCore.DELETE ? length : 0);
+            }
+        }
+    }
+
+    /**
+     * 在游程起点数组上二分，返回包含 index 的游程（跳过长度为0的位置）
+     */
+    private int findRun(int[] starts, int index) {
+        if (index < 0 || index >= starts[runs.length]) {
+            throw new IndexOutOfBoundsException("Index: " + index);
+        }
+        int lo = 0, hi = runs.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 按回溯顺序（从尾到头）追加操作，从缓冲区末尾向前写入，
+     * 最终数组直接就是正向顺序，无需反转
+     */
+    static final class Builder {
+        private int[] buffer = new int[16];
+        private int pos = buffer.length;
+
+        void prepend(byte op) {
+            if (pos < buffer.length && (buffer[pos] & OP_MASK) == op) {
+                buffer[pos] += 1 << OP_BITS;
+                return;
+            }
+            if (pos == 0) {
+                int[] grown = new int[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, buffer.length, buffer.length);
+                pos = buffer.length;
+                buffer = grown;
+            }
+            buffer[--pos] = (1 << OP_BITS) | op;
+        }
+
+        EditScript build(int[] source, int[] target, TokenVocabulary vocabulary) {
+            return new EditScript(Arrays.copyOfRange(buffer, pos, buffer.length), source, target, vocabulary);
+        }
+    }
+}
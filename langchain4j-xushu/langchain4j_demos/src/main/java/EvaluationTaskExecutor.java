@@ -0,0 +1,523 @@
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 评测任务执行引擎：每个任务一个调度线程按 ExecutionParams 发出（样本×模型）请求，
+ * 用每任务的信号量限制并发数；请求经 SttClient 异步发出，在途请求不占线程，
+ * 完成回调里直接打分并累加到按模型分的 CorpusScore，同时推给监听器。
+ * 暂停/取消是协作式的：调度线程在发下一个请求前检查状态，暂停时在途请求照常完成，取消时在途请求一并取消
+ */
+class EvaluationTaskExecutor implements AutoCloseable {
+
+    private final SttClient client;
+    private final ExecutorService dispatchers;
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    EvaluationTaskExecutor(SttClient client) {
+        this.client = client;
+        this.dispatchers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "evaluation-dispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 创建任务（PENDING），调用 start 后开始执行
+     */
+    EvaluationTask create(String name, List<EvaluationJob> jobs, ExecutionParams params, Consumer<JobResult> listener) {
+        return new EvaluationTask(name, jobs, params, listener, client, dispatchers);
+    }
+
+    EvaluationTask create(String name, List<EvaluationJob> jobs, ExecutionParams params) {
+        return create(name, jobs, params, result -> {
+        });
+    }
+
+    @Override
+    public void close() {
+        dispatchers.shutdownNow();
+    }
+}
+
+/**
+ * 执行参数，对应前端 ExecutionParams：duration 为空表示不限时；
+ * loopMode 为真时样本列表循环执行，直到时长用完或被取消
+ */
+class ExecutionParams {
+    final Duration duration;
+    final int concurrency;
+    final boolean loopMode;
+
+    ExecutionParams(Duration duration, int concurrency, boolean loopMode) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be > 0");
+        }
+        if (duration != null && (duration.isNegative() || duration.isZero())) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+        this.duration = duration;
+        this.concurrency = concurrency;
+        this.loopMode = loopMode;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExecutionParams{duration=%s, concurrency=%d, loopMode=%s}", duration, concurrency, loopMode);
+    }
+}
+
+/**
+ * 任务状态，对应前端 TaskStatus
+ */
+enum TaskStatus {
+    PENDING, RUNNING, PAUSED, COMPLETED, FAILED, CANCELLED;
+
+    boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
+
+/**
+ * 一个（样本，模型）请求；audio 为空时不带请求体
+ */
+class EvaluationJob {
+    final String sampleId;
+    final String modelId;
+    final String reference;
+    final Path audio;
+    final Augmentation augmentation;
+
+    EvaluationJob(String sampleId, String modelId, String reference, Path audio) {
+        this(sampleId, modelId, reference, audio, null);
+    }
+
+    /**
+     * augmentation 不为空时发送的是该样本的增强变体（鲁棒性评测）
+     */
+    EvaluationJob(String sampleId, String modelId, String reference, Path audio, Augmentation augmentation) {
+        this.sampleId = sampleId;
+        this.modelId = modelId;
+        this.reference = reference;
+        this.audio = audio;
+        this.augmentation = augmentation;
+    }
+
+    /**
+     * 样本×模型的全部组合（样本在外层，同一样本的各模型请求相邻）
+     */
+    static List<EvaluationJob> cross(Map<String, String> references, Map<String, Path> audio, List<String> modelIds) {
+        List<EvaluationJob> jobs = new ArrayList<>(references.size() * modelIds.size());
+        for (Map.Entry<String, String> sample : references.entrySet()) {
+            for (String modelId : modelIds) {
+                jobs.add(new EvaluationJob(sample.getKey(), modelId, sample.getValue(), audio.get(sample.getKey())));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * 同一批请求换成某个增强变体（参考文本不变）
+     */
+    static List<EvaluationJob> augment(List<EvaluationJob> jobs, Augmentation augmentation) {
+        List<EvaluationJob> augmented = new ArrayList<>(jobs.size());
+        for (EvaluationJob job : jobs) {
+            augmented.add(new EvaluationJob(job.sampleId, job.modelId, job.reference, job.audio, augmentation));
+        }
+        return augmented;
+    }
+
+    @Override
+    public String toString() {
+        return augmentation == null ? sampleId + "@" + modelId : sampleId + "[" + augmentation + "]@" + modelId;
+    }
+}
+
+/**
+ * 单个请求的结果：成功时带识别文本和单词级统计，失败时带异常
+ */
+class JobResult {
+    final EvaluationJob job;
+    final String hypothesis;
+    final WordErrorCounts words;
+    final long latencyNanos;
+    final Throwable error;
+
+    JobResult(EvaluationJob job, String hypothesis, WordErrorCounts words, long latencyNanos, Throwable error) {
+        this.job = job;
+        this.hypothesis = hypothesis;
+        this.words = words;
+        this.latencyNanos = latencyNanos;
+        this.error = error;
+    }
+
+    boolean succeeded() {
+        return error == null;
+    }
+}
+
+/**
+ * 一个评测任务的执行状态与累计结果，线程安全
+ */
+class EvaluationTask {
+
+    // 等待并发许可时检查暂停/取消/超时的间隔
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    final String name;
+    final ExecutionParams params;
+    private final List<EvaluationJob> jobs;
+    private final Consumer<JobResult> listener;
+    private final SttClient client;
+    private final ExecutorService dispatchers;
+
+    private final Semaphore permits;
+    private final Set<CompletableFuture<String>> inFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, CorpusScore> scores = new ConcurrentHashMap<>();
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private TaskStatus status = TaskStatus.PENDING;
+    private Throwable failure;
+    private long startedNanos;
+    private long pausedNanos;       // 累计暂停时长，不计入 duration
+    private long pausedSince;
+
+    EvaluationTask(String name, List<EvaluationJob> jobs, ExecutionParams params, Consumer<JobResult> listener,
+                   SttClient client, ExecutorService dispatchers) {
+        this.name = name;
+        this.jobs = List.copyOf(jobs);
+        this.params = params;
+        this.listener = listener;
+        this.client = client;
+        this.dispatchers = dispatchers;
+        this.permits = new Semaphore(params.concurrency);
+    }
+
+    void start() {
+        lock.lock();
+        try {
+            if (status != TaskStatus.PENDING) {
+                throw new IllegalStateException("task " + name + " is already " + status);
+            }
+            status = TaskStatus.RUNNING;
+            startedNanos = System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+        dispatchers.execute(this::dispatch);
+    }
+
+    /**
+     * 暂停发出新请求；在途请求照常完成并计分
+     */
+    void pause() {
+        lock.lock();
+        try {
+            if (status == TaskStatus.RUNNING) {
+                status = TaskStatus.PAUSED;
+                pausedSince = System.nanoTime();
+                stateChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void resume() {
+        lock.lock();
+        try {
+            if (status == TaskStatus.PAUSED) {
+                status = TaskStatus.RUNNING;
+                pausedNanos += System.nanoTime() - pausedSince;
+                stateChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消任务并取消所有在途请求（未开始的任务直接结束）
+     */
+    void cancel() {
+        boolean notStarted;
+        lock.lock();
+        try {
+            if (status.isTerminal()) {
+                return;
+            }
+            notStarted = status == TaskStatus.PENDING;
+            status = TaskStatus.CANCELLED;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (CompletableFuture<String> future : inFlight) {
+            future.cancel(true);
+        }
+        if (notStarted) {
+            terminated.countDown();
+        }
+    }
+
+    TaskStatus status() {
+        lock.lock();
+        try {
+            return status;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    /**
+     * 进度 0~1：限时任务按已用时长，否则按已完成请求数；循环且不限时的任务返回 -1
+     */
+    double progress() {
+        lock.lock();
+        try {
+            if (status == TaskStatus.COMPLETED) {
+                return 1.0;
+            }
+            if (params.duration != null) {
+                if (status == TaskStatus.PENDING) {
+                    return 0.0;
+                }
+                long paused = pausedNanos + (status == TaskStatus.PAUSED ? System.nanoTime() - pausedSince : 0);
+                return Math.min(1.0, (double) (System.nanoTime() - startedNanos - paused) / params.duration.toNanos());
+            }
+            if (params.loopMode) {
+                return -1;
+            }
+            return jobs.isEmpty() ? 0.0 : (double) (succeeded.get() + failed.get()) / jobs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long issued() {
+        return issued.get();
+    }
+
+    long succeeded() {
+        return succeeded.get();
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * 调度线程意外出错时的异常（状态为 FAILED）
+     */
+    Throwable failure() {
+        lock.lock();
+        try {
+            return failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按模型汇总的语料级结果（快照）
+     */
+    Map<String, CorpusScore> scores() {
+        Map<String, CorpusScore> snapshot = new ConcurrentHashMap<>();
+        scores.forEach((model, score) -> {
+            CorpusScore copy = new CorpusScore();
+            synchronized (score) {
+                copy.merge(score);
+            }
+            snapshot.put(model, copy);
+        });
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    private void dispatch() {
+        TaskStatus outcome = TaskStatus.COMPLETED;
+        Throwable error = null;
+        try {
+            dispatchLoop:
+            do {
+                for (EvaluationJob job : jobs) {
+                    if (!acquirePermit()) {
+                        break dispatchLoop;
+                    }
+                    issue(job);
+                }
+            } while (params.loopMode && !jobs.isEmpty());
+        } catch (Throwable t) {
+            outcome = TaskStatus.FAILED;
+            error = t;
+        }
+        // 等在途请求全部结束（取消时它们已被取消）
+        permits.acquireUninterruptibly(params.concurrency);
+        permits.release(params.concurrency);
+
+        lock.lock();
+        try {
+            if (status != TaskStatus.CANCELLED) {
+                status = outcome;
+                failure = error;
+            }
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        terminated.countDown();
+    }
+
+    /**
+     * 暂停时等待恢复；取得一个并发许可后返回 true，取消或时长用完时返回 false
+     */
+    private boolean acquirePermit() throws InterruptedException {
+        while (true) {
+            lock.lock();
+            try {
+                while (status == TaskStatus.PAUSED) {
+                    stateChanged.await();
+                }
+                if (status != TaskStatus.RUNNING || deadlinePassed()) {
+                    return false;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (permits.tryAcquire(POLL_NANOS, TimeUnit.NANOSECONDS)) {
+                // 等许可期间可能被暂停或取消
+                if (status() == TaskStatus.RUNNING) {
+                    return true;
+                }
+                permits.release();
+            }
+        }
+    }
+
+    private boolean deadlinePassed() {
+        return params.duration != null
+                && System.nanoTime() - startedNanos - pausedNanos >= params.duration.toNanos();
+    }
+
+    /**
+     * 先在锁内把请求登记为在途再发送：cancel 要么在登记之后、能看到并取消它，
+     * 要么在登记之前已经生效、请求不再发出。取消登记的 future 时一并取消客户端返回的 future
+     */
+    private void issue(EvaluationJob job) {
+        CompletableFuture<String> request = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (status.isTerminal()) {
+                permits.release();
+                return;
+            }
+            inFlight.add(request);
+        } finally {
+            lock.unlock();
+        }
+        issued.incrementAndGet();
+        long start = System.nanoTime();
+        request.whenComplete((hypothesis, error) -> {
+            try {
+                complete(job, hypothesis, error, System.nanoTime() - start);
+            } finally {
+                inFlight.remove(request);
+                permits.release();
+            }
+        });
+        CompletableFuture<String> future;
+        try {
+            future = client.transcribe(job);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<String> sent = future;
+        request.whenComplete((hypothesis, error) -> {
+            if (request.isCancelled()) {
+                sent.cancel(true);
+            }
+        });
+        future.whenComplete((hypothesis, error) -> {
+            if (error == null) {
+                request.complete(hypothesis);
+            } else {
+                request.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * 打分在锁外进行；计入结果前在锁内检查状态，任务已结束（取消）后完成的请求直接丢弃
+     */
+    private void complete(EvaluationJob job, String hypothesis, Throwable error, long latencyNanos) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof CancellationException) {
+            // 取消的请求不计分也不计失败
+            return;
+        }
+        CorpusScore single = null;
+        WordErrorCounts words = null;
+        if (error == null) {
+            single = new CorpusScore();
+            words = CorpusScorer.scorePair(new CorpusScorer.TextPair(job.reference, hypothesis), single);
+        }
+        lock.lock();
+        try {
+            if (status.isTerminal()) {
+                return;
+            }
+            if (error == null) {
+                CorpusScore score = scores.computeIfAbsent(job.modelId, model -> new CorpusScore());
+                synchronized (score) {
+                    score.merge(single);
+                }
+                succeeded.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+        listener.accept(error == null ? new JobResult(job, hypothesis, words, latencyNanos, null)
+                : new JobResult(job, null, null, latencyNanos, error));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EvaluationTask{name=%s, status=%s, issued=%d, succeeded=%d, failed=%d, %s}",
+                name, status(), issued(), succeeded(), failed(), params);
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.Arrays;
+
+/**
+ * 线性内存的单词级对齐（Hirschberg分治）
+ * 每次在中间行定位全表回溯路径经过的列，再分别递归下、上两块，
+ * 只保留滚动行和子块边界，得到与全表DP完全相同的操作序列。
+ */
+class HirschbergWordAligner {
+
+    // 子块单元格数不超过该值时直接用方向表回溯
+    private static final int BASE_CELLS = 4096;
+
+    private final int[] source;
+    private final int[] target;
+    private final TokenVocabulary vocabulary;
+    // 按回溯顺序（从尾到头）写入的编辑脚本
+    private final EditScript.Builder script = new EditScript.Builder();
+    private int distance;
+
+    private HirschbergWordAligner(int[] source, int[] target, TokenVocabulary vocabulary) {
+        this.source = source;
+        this.target = target;
+        this.vocabulary = vocabulary;
+    }
+
+    static WordEditResult align(int[] source, int[] target, TokenVocabulary vocabulary) {
+        int m = source.length;
+        int n = target.length;
+
+        int[] top = new int[n + 1];
+        for (int j = 0; j <= n; j++) top[j] = j;
+        int[] left = new int[m + 1];
+        for (int i = 0; i <= m; i++) left[i] = i;
+
+        HirschbergWordAligner aligner = new HirschbergWordAligner(source, target, vocabulary);
+        aligner.solve(0, m, 0, n, top, 0, left, 0);
+
+        return new WordEditResult(aligner.distance, aligner.script.build(source, target, vocabulary));
+    }
+
+    /**
+     * 处理子块 [r0,r1] x [c0,c1]，全表回溯路径一定经过它的两个角
+     * top[topOff + (j - c0)] 为第 r0 行的DP值，left[leftOff + (i - r0)] 为第 c0 列的DP值
+     */
+    private void solve(int r0, int r1, int c0, int c1,
+                       int[] top, int topOff, int[] left, int leftOff) {
+        int rows = r1 - r0;
+        int cols = c1 - c0;
+        if (rows <= 1 || (long) (rows + 1) * (cols + 1) <= BASE_CELLS) {
+            solveWithTable(r0, r1, c0, c1, top, topOff, left, leftOff);
+            return;
+        }
+
+        int mid = (r0 + r1) >>> 1;
+        int[] midRow = new int[cols + 1];
+        int split = findSplit(r0, r1, c0, c1, mid, top, topOff, left, leftOff, midRow);
+        int[] lowerLeft = columnBelow(mid, r1, c0, split, midRow, left, leftOff - r0 + mid);
+
+        // 先下后上，与回溯顺序一致
+        solve(mid, r1, split, c1, midRow, split - c0, lowerLeft, 0);
+        solve(r0, mid, c0, split, top, topOff, left, leftOff);
+    }
+
+    /**
+     * 正向滚动计算子块，同时记录每个单元格的回溯路径离开第 mid 行时所在的列
+     * 返回 (r1,c1) 的回溯路径在第 mid 行最左侧经过的列，并把第 mid 行的DP值写入 midRow
+     */
+    private int findSplit(int r0, int r1, int c0, int c1, int mid,
+                          int[] top, int topOff, int[] left, int leftOff, int[] midRow) {
+        int width = c1 - c0 + 1;
+        int[] prev = Arrays.copyOfRange(top, topOff, topOff + width);
+        int[] curr = new int[width];
+        int[] prevCross = new int[width];
+        int[] currCross = new int[width];
+
+        for (int i = r0 + 1; i <= r1; i++) {
+            int sourceId = source[i - 1];
+            curr[0] = left[leftOff + i - r0];
+            // 左边界上的路径只能一路向上（删除）
+            currCross[0] = c0;
+
+            for (int j = 1; j < width; j++) {
+                int dir;
+                if (sourceId == target[c0 + j - 1]) {
+                    curr[j] = prev[j - 1];
+                    dir = 0;
+                } else {
+                    int insertCost = curr[j - 1] + 1;
+                    int deleteCost = prev[j] + 1;
+                    int substituteCost = prev[j - 1] + 1;
+                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                    curr[j] = minCost;
+                    dir = minCost == substituteCost ? 0 : minCost == insertCost ? 1 : 2;
+                }
+
+                if (i == mid) {
+                    currCross[j] = dir == 1 ? currCross[j - 1] : c0 + j;
+                } else if (i > mid) {
+                    currCross[j] = dir == 0 ? prevCross[j - 1] : dir == 1 ? currCross[j - 1] : prevCross[j];
+                }
+            }
+
+            if (i == mid) {
+                System.arraycopy(curr, 0, midRow, 0, width);
+            }
+
+            int[] tmp = prev; prev = curr; curr = tmp;
+            tmp = prevCross; prevCross = currCross; currCross = tmp;
+        }
+        return prevCross[width - 1];
+    }
+
+    /**
+     * 从第 mid 行出发重算到第 r1 行，取出第 split 列的DP值作为下半块的左边界
+     */
+    private int[] columnBelow(int mid, int r1, int c0, int split,
+                              int[] midRow, int[] left, int leftOffAtMid) {
+        int width = split - c0 + 1;
+        int[] column = new int[r1 - mid + 1];
+        column[0] = midRow[width - 1];
+
+        int[] prev = Arrays.copyOf(midRow, width);
+        int[] curr = new int[width];
+        for (int i = mid + 1; i <= r1; i++) {
+            int sourceId = source[i - 1];
+            curr[0] = left[leftOffAtMid + i - mid];
+            for (int j = 1; j < width; j++) {
+                if (sourceId == target[c0 + j - 1]) {
+                    curr[j] = prev[j - 1];
+                } else {
+                    curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + 1);
+                }
+            }
+            column[i - mid] = curr[width - 1];
+            int[] tmp = prev; prev = curr; curr = tmp;
+        }
+        return column;
+    }
+
+    /**
+     * 小块直接建方向表回溯（边界方向：首行插入、首列删除）
+     */
+    private void solveWithTable(int r0, int r1, int c0, int c1,
+                                int[] top, int topOff, int[] left, int leftOff) {
+        int rows = r1 - r0;
+        int cols = c1 - c0;
+
+        int[][] dp = new int[rows + 1][cols + 1];
+        byte[][] direction = WordAlignmentCore.newDirectionTable(rows, cols);
+        for (int j = 0; j <= cols; j++) dp[0][j] = top[topOff + j];
+        for (int i = 1; i <= rows; i++) dp[i][0] = left[leftOff + i];
+
+        for (int i = 1; i <= rows; i++) {
+            int sourceId = source[r0 + i - 1];
+            for (int j = 1; j <= cols; j++) {
+                if (sourceId == target[c0 + j - 1]) {
+                    dp[i][j] = dp[i - 1][j - 1];
+                    direction[i][j] = WordAlignmentCore.MATCH;
+                } else {
+                    int insertCost = dp[i][j - 1] + 1;
+                    int deleteCost = dp[i - 1][j] + 1;
+                    int substituteCost = dp[i - 1][j - 1] + 1;
+                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                    dp[i][j] = minCost;
+                    if (minCost == substituteCost) {
+                        direction[i][j] = WordAlignmentCore.SUBSTITUTE;
+                    } else if (minCost == insertCost) {
+                        direction[i][j] = WordAlignmentCore.INSERT;
+                    } else {
+                        direction[i][j] = WordAlignmentCore.DELETE;
+                    }
+                }
+            }
+        }
+
+        int i = rows, j = cols;
+        while (i > 0 || j > 0) {
+            byte dir = direction[i][j];
+            script.prepend(dir);
+            if (dir != WordAlignmentCore.MATCH) distance++;
+            if (dir != WordAlignmentCore.INSERT) i--;
+            if (dir != WordAlignmentCore.DELETE) j--;
+        }
+    }
+}
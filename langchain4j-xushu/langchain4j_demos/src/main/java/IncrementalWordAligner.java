@@ -0,0 +1,191 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 流式识别结果的增量WER：参考文本固定，按识别结果的单词逐列保存DP列（距离、替换数、删除数），
+ * 识别结果追加时只计算新列，尾部被改写时回退到公共前缀后重算，单次更新代价为 O(参考长度 × 变化的单词数)。
+ * 取舍顺序与 WordAlignmentCore.countErrors 相同，所以计数与整句重新打分完全一致。
+ * 同时统计改写率（已输出的单词后来被改掉的比例），用于衡量partial结果的稳定性。非线程安全
+ */
+class IncrementalWordAligner {
+
+    private final int[] reference;
+    private final TokenVocabulary vocabulary;
+
+    // 当前识别结果（字符串用于比较公共前缀，ID用于DP；不在参考词表中的单词ID为 -1）
+    private final List<String> hypothesis = new ArrayList<>();
+    // 第 j 列对应识别结果前 j 个单词，长度为参考长度 + 1；回退后的数组留作复用
+    private int[][] distanceColumns;
+    private int[][] substitutionColumns;
+    private int[][] deletionColumns;
+
+    private long updates;
+    private long revisedUpdates;     // 发生了尾部改写的更新次数
+    private long appendedWords;      // 累计输出（追加）的单词数
+    private long rewrittenWords;     // 累计被改写（撤回）的单词数
+
+    IncrementalWordAligner(List<String> referenceWords) {
+        this(referenceWords, new TokenVocabulary());
+    }
+
+    IncrementalWordAligner(List<String> referenceWords, TokenVocabulary vocabulary) {
+        this.vocabulary = vocabulary;
+        this.reference = vocabulary.encode(referenceWords);
+        int m = reference.length;
+
+        distanceColumns = new int[16][];
+        substitutionColumns = new int[16][];
+        deletionColumns = new int[16][];
+        int[] first = new int[m + 1];
+        int[] firstDeletions = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            first[i] = i;
+            firstDeletions[i] = i;
+        }
+        distanceColumns[0] = first;
+        substitutionColumns[0] = new int[m + 1];
+        deletionColumns[0] = firstDeletions;
+    }
+
+    /**
+     * 用最新的partial结果（整句文本）更新
+     */
+    void update(String partialText) {
+        update(WordLevelLevenshtein.splitIntoWords(partialText));
+    }
+
+    /**
+     * 用最新的partial结果更新：与上一次结果的公共前缀保持不动，之后的列回退并重算
+     */
+    void update(List<String> partialWords) {
+        int common = 0;
+        int limit = Math.min(hypothesis.size(), partialWords.size());
+        while (common < limit && hypothesis.get(common).equals(partialWords.get(common))) {
+            common++;
+        }
+
+        int rewritten = hypothesis.size() - common;
+        updates++;
+        if (rewritten > 0) {
+            revisedUpdates++;
+            rewrittenWords += rewritten;
+            hypothesis.subList(common, hypothesis.size()).clear();
+        }
+        for (int j = common; j < partialWords.size(); j++) {
+            append(partialWords.get(j));
+        }
+    }
+
+    /**
+     * 追加一个单词（计算一列）
+     */
+    void append(String word) {
+        int n = hypothesis.size();
+        hypothesis.add(word);
+        appendedWords++;
+        ensureColumn(n + 1);
+
+        int id = vocabulary.idOf(word);
+        int[] prev = distanceColumns[n], curr = distanceColumns[n + 1];
+        int[] prevSub = substitutionColumns[n], currSub = substitutionColumns[n + 1];
+        int[] prevDel = deletionColumns[n], currDel = deletionColumns[n + 1];
+
+        curr[0] = n + 1;
+        currSub[0] = 0;
+        currDel[0] = 0;
+        for (int i = 1; i < curr.length; i++) {
+            if (reference[i - 1] == id) {
+                curr[i] = prev[i - 1];
+                currSub[i] = prevSub[i - 1];
+                currDel[i] = prevDel[i - 1];
+            } else {
+                int insertCost = prev[i] + 1;
+                int deleteCost = curr[i - 1] + 1;
+                int substituteCost = prev[i - 1] + 1;
+
+                int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                curr[i] = minCost;
+
+                if (minCost == substituteCost) {
+                    currSub[i] = prevSub[i - 1] + 1;
+                    currDel[i] = prevDel[i - 1];
+                } else if (minCost == insertCost) {
+                    currSub[i] = prevSub[i];
+                    currDel[i] = prevDel[i];
+                } else {
+                    currSub[i] = currSub[i - 1];
+                    currDel[i] = currDel[i - 1] + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前识别结果与完整参考文本的错误统计（最终WER）
+     */
+    WordErrorCounts counts() {
+        return countsAt(reference.length);
+    }
+
+    /**
+     * 当前识别结果与最匹配的参考文本前缀的错误统计（实时WER）：
+     * 说话尚未结束时，参考文本后面还没说到的部分不计为删除
+     */
+    WordErrorCounts prefixCounts() {
+        int[] column = distanceColumns[hypothesis.size()];
+        int best = 0;
+        for (int i = 1; i < column.length; i++) {
+            // 距离相同时取更长的前缀
+            if (column[i] <= column[best]) {
+                best = i;
+            }
+        }
+        return countsAt(best);
+    }
+
+    private WordErrorCounts countsAt(int referenceLength) {
+        int n = hypothesis.size();
+        int distance = distanceColumns[n][referenceLength];
+        int substitutions = substitutionColumns[n][referenceLength];
+        int deletions = deletionColumns[n][referenceLength];
+        return new WordErrorCounts(substitutions, deletions, distance - substitutions - deletions, referenceLength);
+    }
+
+    int hypothesisLength() {
+        return hypothesis.size();
+    }
+
+    long updates() {
+        return updates;
+    }
+
+    /**
+     * 已输出的单词中后来被改写的比例
+     */
+    double rewriteRate() {
+        return appendedWords == 0 ? 0.0 : (double) rewrittenWords / appendedWords;
+    }
+
+    /**
+     * 发生尾部改写的更新所占比例
+     */
+    double revisionRate() {
+        return updates == 0 ? 0.0 : (double) revisedUpdates / updates;
+    }
+
+    private void ensureColumn(int index) {
+        if (index == distanceColumns.length) {
+            int size = distanceColumns.length * 2;
+            distanceColumns = Arrays.copyOf(distanceColumns, size);
+            substitutionColumns = Arrays.copyOf(substitutionColumns, size);
+            deletionColumns = Arrays.copyOf(deletionColumns, size);
+        }
+        if (distanceColumns[index] == null) {
+            int rows = reference.length + 1;
+            distanceColumns[index] = new int[rows];
+            substitutionColumns[index] = new int[rows];
+            deletionColumns[index] = new int[rows];
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按内容寻址的打分结果缓存：键为（参考文本指纹，规范化后识别结果的哈希，打分配置），
+ * 规范化后相同的识别结果（大小写、空白、标点不同）共用一条记录。
+ * 两级：堆内LRU + 可选的磁盘目录（每个键一个小文件，重启后仍可命中）。线程安全
+ */
+class MetricCache {
+
+    private static final int FILE_MAGIC = 0x4D455431;   // "MET1"
+    private static final System.Logger LOGGER = System.getLogger(MetricCache.class.getName());
+
+    private final int memoryCapacity;
+    private final Path directory;
+    private final Map<String, MetricSummary> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong diskWriteFailures = new AtomicLong();
+
+    /**
+     * 只用堆内LRU
+     */
+    MetricCache(int memoryCapacity) {
+        this(memoryCapacity, null);
+    }
+
+    /**
+     * directory 为 null 时不使用磁盘层
+     */
+    MetricCache(int memoryCapacity, Path directory) {
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MetricSummary> eldest) {
+                return size() > MetricCache.this.memoryCapacity;
+            }
+        };
+    }
+
+    /**
+     * 用 DocumentScorer 打分，结果按内容缓存
+     */
+    MetricSummary score(String referenceFingerprint, String reference, String hypothesis,
+                        TextNormalizer normalizer) {
+        String key = key(referenceFingerprint, normalizer.tokens(hypothesis), "DocumentScorer/" + normalizer);
+        return get(key, () -> MetricSummary.of(new DocumentScorer(normalizer).score(reference, hypothesis)));
+    }
+
+    /**
+     * 依次查堆内、磁盘，都未命中时计算并写回两级
+     */
+    MetricSummary get(String key, Supplier<MetricSummary> compute) {
+        MetricSummary summary;
+        synchronized (memory) {
+            summary = memory.get(key);
+        }
+        if (summary != null) {
+            memoryHits.incrementAndGet();
+            return summary;
+        }
+
+        summary = readFromDisk(key);
+        if (summary != null) {
+            diskHits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            summary = compute.get();
+            writeToDisk(key, summary);
+        }
+        synchronized (memory) {
+            memory.put(key, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * 缓存键：三部分的SHA-256（十六进制），识别结果取规范化后的单词序列
+     */
+    static String key(String referenceFingerprint, List<String> normalizedHypothesis, String scorerConfig) {
+        MessageDigest digest = Sha256.newDigest();
+        Sha256.update(digest, referenceFingerprint);
+        for (String word : normalizedHypothesis) {
+            Sha256.update(digest, word);
+        }
+        digest.update((byte) 1);
+        Sha256.update(digest, scorerConfig);
+        return Sha256.hex(digest.digest());
+    }
+
+    /**
+     * 没有现成指纹时，用参考文本内容的SHA-256作为指纹
+     */
+    static String fingerprint(String text) {
+        return Sha256.of(text);
+    }
+
+    long memoryHits() {
+        return memoryHits.get();
+    }
+
+    long diskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * 写磁盘层失败的次数（结果照常返回）
+     */
+    long diskWriteFailures() {
+        return diskWriteFailures.get();
+    }
+
+    long misses() {
+        return misses.get();
+    }
+
+    double hitRate() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MetricCache{memoryHits=%d, diskHits=%d, misses=%d}",
+                memoryHits(), diskHits(), misses());
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key + ".bin");
+    }
+
+    private MetricSummary readFromDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = fileOf(key);
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(stream)) {
+            if (in.readInt() != FILE_MAGIC) {
+                return null;
+            }
+            return MetricSummary.read(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // 损坏或写了一半的文件按未命中处理，之后会被覆盖
+            return null;
+        }
+    }
+
+    /**
+     * 先写临时文件再原子改名，并发写同一个键或中途崩溃都不会留下半个文件。
+     * 尽力而为：磁盘满、无权限等错误只记日志并清理临时文件，不影响已经算好的结果
+     */
+    private void writeToDisk(String key, MetricSummary summary) {
+        if (directory == null) {
+            return;
+        }
+        Path file = fileOf(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(stream)) {
+                out.writeInt(FILE_MAGIC);
+                summary.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            diskWriteFailures.incrementAndGet();
+            LOGGER.log(System.Logger.Level.WARNING, "cannot write metric cache entry " + file, e);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // 临时文件名不会被当作缓存项读取，删不掉也无妨
+                }
+            }
+        }
+    }
+}
+
+/**
+ * 可缓存的打分汇总（不含逐句明细）：单词级、字符级统计和句子错误数
+ */
+class MetricSummary {
+    final WordErrorCounts words;
+    final CharErrorCounts chars;
+    final int sentences;
+    final int sentenceErrors;
+
+    MetricSummary(WordErrorCounts words, CharErrorCounts chars, int sentences, int sentenceErrors) {
+        this.words = words;
+        this.chars = chars;
+        this.sentences = sentences;
+        this.sentenceErrors = sentenceErrors;
+    }
+
+    static MetricSummary of(DocumentScore score) {
+        return new MetricSummary(score.words, score.chars, score.sentences.size(), score.sentenceErrors);
+    }
+
+    double wer() {
+        return words.wer();
+    }
+
+    double cer() {
+        return chars.cer();
+    }
+
+    double ser() {
+        if (sentences == 0) {
+            return words.distance == 0 ? 0.0 : 1.0;
+        }
+        return (double) sentenceErrors / sentences;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(words.substitutions);
+        out.writeInt(words.deletions);
+        out.writeInt(words.insertions);
+        out.writeInt(words.referenceLength);
+        out.writeInt(chars.substitutions);
+        out.writeInt(chars.deletions);
+        out.writeInt(chars.insertions);
+        out.writeInt(chars.referenceLength);
+        out.writeInt(sentences);
+        out.writeInt(sentenceErrors);
+    }
+
+    static MetricSummary read(DataInputStream in) throws IOException {
+        WordErrorCounts words = new WordErrorCounts(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        CharErrorCounts chars = new CharErrorCounts(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        return new MetricSummary(words, chars, in.readInt(), in.readInt());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SER=%.4f %s %s", ser(), words, chars);
+    }
+}
@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 多参考答案 / N-best 的最小WER（oracle）：对每个参考答案建一个 IncrementalWordAligner，
+ * 候选识别结果按单词序列字典序排序后依次送入，相邻候选的公共前缀对应的DP列直接复用，
+ * 只计算不同的尾部。结果给出胜出的（参考答案, 候选）组合及所有组合的WER
+ */
+class OracleWerScorer {
+
+    private final TextNormalizer normalizer;
+
+    OracleWerScorer() {
+        this(TextNormalizer.WHITESPACE);
+    }
+
+    OracleWerScorer(TextNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * 打分结果：胜出组合的下标与错误统计，以及 wers[参考答案][候选] 矩阵
+     */
+    static class OracleResult {
+        final int referenceIndex;
+        final int hypothesisIndex;
+        final WordErrorCounts counts;
+        final double[][] wers;
+
+        OracleResult(int referenceIndex, int hypothesisIndex, WordErrorCounts counts, double[][] wers) {
+            this.referenceIndex = referenceIndex;
+            this.hypothesisIndex = hypothesisIndex;
+            this.counts = counts;
+            this.wers = wers;
+        }
+
+        double wer() {
+            return counts.wer();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("oracle reference=%d hypothesis=%d %s", referenceIndex, hypothesisIndex, counts);
+        }
+    }
+
+    OracleResult score(List<String> references, List<String> hypotheses) {
+        List<List<String>> referenceWords = new ArrayList<>(references.size());
+        for (String reference : references) {
+            referenceWords.add(normalizer.tokens(reference));
+        }
+        List<List<String>> hypothesisWords = new ArrayList<>(hypotheses.size());
+        for (String hypothesis : hypotheses) {
+            hypothesisWords.add(normalizer.tokens(hypothesis));
+        }
+        return scoreWords(referenceWords, hypothesisWords);
+    }
+
+    /**
+     * WER相同时取下标较小的参考答案，其次取下标较小的候选
+     */
+    static OracleResult scoreWords(List<List<String>> references, List<List<String>> hypotheses) {
+        if (references.isEmpty() || hypotheses.isEmpty()) {
+            throw new IllegalArgumentException("references and hypotheses must not be empty");
+        }
+
+        Integer[] order = new Integer[hypotheses.size()];
+        for (int h = 0; h < order.length; h++) order[h] = h;
+        Arrays.sort(order, Comparator.comparing(hypotheses::get, OracleWerScorer::compareWords));
+
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        double[][] wers = new double[references.size()][hypotheses.size()];
+        int bestReference = -1, bestHypothesis = -1;
+        WordErrorCounts best = null;
+
+        for (int r = 0; r < references.size(); r++) {
+            IncrementalWordAligner aligner = new IncrementalWordAligner(references.get(r), vocabulary);
+            for (int h : order) {
+                aligner.update(hypotheses.get(h));
+                WordErrorCounts counts = aligner.counts();
+                wers[r][h] = counts.wer();
+                if (best == null || counts.wer() < best.wer()
+                        || (counts.wer() == best.wer() && r == bestReference && h < bestHypothesis)) {
+                    best = counts;
+                    bestReference = r;
+                    bestHypothesis = h;
+                }
+            }
+        }
+        return new OracleResult(bestReference, bestHypothesis, best, wers);
+    }
+
+    private static int compareWords(List<String> a, List<String> b) {
+        int limit = Math.min(a.size(), b.size());
+        for (int i = 0; i < limit; i++) {
+            int c = a.get(i).compareTo(b.get(i));
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+}
@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 内存映射的裸PCM音频（s16le，见 README 中的 ffmpeg 转换命令）。
+ * 整个文件只读映射一次，按时长切出的分块都是映射区的只读切片，不复制到堆上；
+ * 同一样本被多个会话并发发送时共用操作系统的页缓存。打开后只读、线程安全
+ */
+final class PcmAudio {
+
+    /**
+     * 样本统一转换成的格式：24kHz 单声道 16位小端
+     */
+    static final PcmFormat S16LE_24K_MONO = new PcmFormat(24000, 1);
+
+    private final Path file;
+    private final PcmFormat format;
+    private final ByteBuffer data;
+
+    private PcmAudio(Path file, PcmFormat format, ByteBuffer data) {
+        this.file = file;
+        this.format = format;
+        this.data = data;
+    }
+
+    /**
+     * 映射PCM文件；末尾不足一帧的字节被忽略。映射建立后即关闭通道
+     */
+    static PcmAudio open(Path file, PcmFormat format) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("PCM file larger than 2GB: " + file);
+            }
+            int length = (int) (size - size % format.frameBytes());
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new PcmAudio(file, format, mapped.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    static PcmAudio open(Path file) throws IOException {
+        return open(file, S16LE_24K_MONO);
+    }
+
+    PcmFormat format() {
+        return format;
+    }
+
+    int byteLength() {
+        return data.limit();
+    }
+
+    int frames() {
+        return data.limit() / format.frameBytes();
+    }
+
+    long durationMillis() {
+        return format.millisOf(data.limit());
+    }
+
+    /**
+     * 第 frame 帧、第 channel 声道的采样值
+     */
+    short sample(int frame, int channel) {
+        return data.getShort(frame * format.frameBytes() + channel * PcmFormat.BYTES_PER_SAMPLE);
+    }
+
+    /**
+     * 整段音频（只读、小端，不复制）
+     */
+    ByteBuffer data() {
+        return data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * source 的若干只读切片依次拼成的音频：只有一个切片时直接包装（不复制），否则复制到一块直接内存
+     */
+    static PcmAudio join(PcmAudio source, List<ByteBuffer> segments) {
+        if (segments.size() == 1) {
+            return new PcmAudio(source.file, source.format, segments.get(0).slice().order(ByteOrder.LITTLE_ENDIAN));
+        }
+        int length = 0;
+        for (ByteBuffer segment : segments) {
+            length += segment.remaining();
+        }
+        ByteBuffer joined = ByteBuffer.allocateDirect(length);
+        for (ByteBuffer segment : segments) {
+            joined.put(segment.duplicate());
+        }
+        return new PcmAudio(source.file, source.format, joined.flip().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * [fromMillis, toMillis) 区间的只读切片，边界按整帧截取并限制在文件范围内
+     */
+    ByteBuffer slice(long fromMillis, long toMillis) {
+        int from = clamp(format.bytesOf(fromMillis));
+        int to = Math.max(from, clamp(format.bytesOf(toMillis)));
+        return slice(from, to - from);
+    }
+
+    /**
+     * 按固定时长切分（最后一块可能较短）。返回的列表是视图，每次 get 生成一个新切片，
+     * 各切片的 position 互不影响，可以交给不同的发送方
+     */
+    List<ByteBuffer> chunks(int chunkMillis) {
+        int chunkBytes = format.bytesOf(chunkMillis);
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunk shorter than one frame: " + chunkMillis + "ms");
+        }
+        int length = data.limit();
+        int count = (length + chunkBytes - 1) / chunkBytes;
+        return new AbstractList<>() {
+            @Override
+            public ByteBuffer get(int index) {
+                if (index < 0 || index >= count) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                int from = index * chunkBytes;
+                return slice(from, Math.min(chunkBytes, length - from));
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * 把分块依次作为请求体发送（HttpClient 直接写出切片，不经过 byte[]）
+     */
+    HttpRequest.BodyPublisher bodyPublisher(int chunkMillis) {
+        return publisher(chunks(chunkMillis), data.limit());
+    }
+
+    /**
+     * 依次发送若干只读切片（每次订阅重新从头发送），length 为切片总字节数
+     */
+    static HttpRequest.BodyPublisher publisher(List<ByteBuffer> chunks, long length) {
+        return publisher(() -> chunks, length);
+    }
+
+    /**
+     * 每次订阅（如重试）从 chunks 取一个新的列表，用于只能顺序生成的分块
+     */
+    static HttpRequest.BodyPublisher publisher(Supplier<List<ByteBuffer>> chunks, long length) {
+        if (length == 0) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        return HttpRequest.BodyPublishers.fromPublisher(subscriber ->
+                subscriber.onSubscribe(new ChunkSubscription(chunks.get(), subscriber)), length);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PcmAudio{file=%s, %s, %dms}", file, format, durationMillis());
+    }
+
+    private ByteBuffer slice(int from, int length) {
+        return data.slice(from, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private int clamp(int bytes) {
+        return Math.max(0, Math.min(bytes, data.limit()));
+    }
+
+    /**
+     * 按订阅方的需求量逐块推送；request 可能在 onNext 内被重入调用，用计数保证只有一个线程在推送
+     */
+    private static final class ChunkSubscription implements Flow.Subscription {
+        private final List<ByteBuffer> chunks;
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private int next;
+        private volatile boolean cancelled;
+
+        ChunkSubscription(List<ByteBuffer> chunks, Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.chunks = chunks;
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelled = true;
+                subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                return;
+            }
+            demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!cancelled && demand.get() > 0 && next < chunks.size()) {
+                    demand.decrementAndGet();
+                    subscriber.onNext(chunks.get(next++));
+                }
+                if (!cancelled && next == chunks.size()) {
+                    cancelled = true;
+                    subscriber.onComplete();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
+
+/**
+ * 裸PCM格式（16位有符号小端）：采样率和声道数，负责时长与字节数的换算（按整帧）
+ */
+final class PcmFormat {
+    static final int BYTES_PER_SAMPLE = 2;
+
+    final int sampleRate;
+    final int channels;
+
+    PcmFormat(int sampleRate, int channels) {
+        if (sampleRate <= 0 || channels <= 0) {
+            throw new IllegalArgumentException("sampleRate and channels must be > 0");
+        }
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+
+    int frameBytes() {
+        return channels * BYTES_PER_SAMPLE;
+    }
+
+    /**
+     * 时长对应的字节数（向下取整到整帧）
+     */
+    int bytesOf(long millis) {
+        return (int) Math.min(Integer.MAX_VALUE, millis * sampleRate / 1000 * frameBytes());
+    }
+
+    long millisOf(long bytes) {
+        return bytes / frameBytes() * 1000 / sampleRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("s16le %dHz %dch", sampleRate, channels);
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PCM变体（重采样、增强结果）的磁盘缓存，ResampleCache 和 AugmentationCache 共用：
+ * 同一个键并发请求时只生成一次，其余请求等待同一个结果；文件先写临时文件再原子改名，失败时删掉临时文件。
+ * 内存中只按 LRU 保留最近 maxMapped 个已映射的变体，淘汰后映射随 GC 释放，再次请求时从磁盘重新映射，
+ * 长时间运行也不会让映射数超过 vm.max_map_count。样本指纹按（路径，大小，修改时间）缓存，同样有上限
+ */
+final class PcmVariantCache {
+
+    static final int DEFAULT_MAX_MAPPED = 1024;
+    private static final int MAX_FINGERPRINTS = 16384;
+
+    /**
+     * 把变体内容写入通道
+     */
+    interface Render {
+        void writeTo(WritableByteChannel channel) throws IOException;
+    }
+
+    /**
+     * 缓存未命中时取得变体（通常是 stored 或直接映射源文件）
+     */
+    interface Loader {
+        PcmAudio load() throws IOException;
+    }
+
+    private final Path directory;
+    private final Map<String, CompletableFuture<PcmAudio>> loading = new ConcurrentHashMap<>();
+    private final Map<String, PcmAudio> mapped;
+    private final Map<String, String> fingerprints;
+    private final AtomicLong renders = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+
+    PcmVariantCache(Path directory, int maxMapped) {
+        this.directory = directory;
+        this.mapped = lru(maxMapped);
+        this.fingerprints = lru(MAX_FINGERPRINTS);
+    }
+
+    private static <V> Map<String, V> lru(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 文件内容的SHA-256；文件大小或修改时间变了会重新计算
+     */
+    String fingerprint(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String key = file.toAbsolutePath().normalize() + "|" + attributes.size() + "|" + attributes.lastModifiedTime();
+        synchronized (fingerprints) {
+            String fingerprint = fingerprints.get(key);
+            if (fingerprint != null) {
+                return fingerprint;
+            }
+        }
+        String fingerprint = AudioFingerprinter.sha256(file);
+        synchronized (fingerprints) {
+            fingerprints.put(key, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 先查已映射的变体，未命中时由 loader 取得；同一个键同时只有一个 loader 在运行
+     */
+    PcmAudio get(String key, Loader loader) throws IOException {
+        PcmAudio audio;
+        synchronized (mapped) {
+            audio = mapped.get(key);
+        }
+        if (audio != null) {
+            return audio;
+        }
+        CompletableFuture<PcmAudio> created = new CompletableFuture<>();
+        CompletableFuture<PcmAudio> existing = loading.putIfAbsent(key, created);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            audio = loader.load();
+            synchronized (mapped) {
+                mapped.put(key, audio);
+            }
+            created.complete(audio);
+            return audio;
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, created);
+        }
+    }
+
+    /**
+     * 映射 <dir>/<name前两位>/<name>.pcm，不存在时先由 render 写出
+     */
+    PcmAudio stored(String name, PcmFormat format, Render render) throws IOException {
+        Path file = directory.resolve(name.substring(0, 2)).resolve(name + ".pcm");
+        if (Files.exists(file)) {
+            diskHits.incrementAndGet();
+            return PcmAudio.open(file, format);
+        }
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), name, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                render.writeTo(channel);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        renders.incrementAndGet();
+        return PcmAudio.open(file, format);
+    }
+
+    /**
+     * 写出过的变体数
+     */
+    long renders() {
+        return renders.get();
+    }
+
+    /**
+     * 直接映射已有文件的次数
+     */
+    long diskHits() {
+        return diskHits.get();
+    }
+
+    private static PcmAudio join(CompletableFuture<PcmAudio> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
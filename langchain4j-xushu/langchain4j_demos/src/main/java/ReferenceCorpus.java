@@ -0,0 +1,404 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 内存映射的参考文本语料：参考文本离线分词、按共享词表编码后写成一个文件，
+ * 打开时用 FileChannel.map 映射，不在堆上保存字符串或ID数组；
+ * tokens(index) 返回映射区的只读 IntBuffer 切片，打分直接在切片上读取。
+ * <p>
+ * 文件布局（大端）：magic, version, 规范化配置, 词表大小, 条目数,
+ * 词表偏移 int[V+1] + 词表UTF-8字节, 单词哈希表（槽数 + int[槽数]，开放寻址、线性探测，槽中为单词ID+1，0为空）,
+ * 条目ID偏移 int[N+1] + ID字节（按UTF-8字节序排好）, 单词偏移 int[N+1] + 单词ID int[]；
+ * 各段按4字节对齐。单个文件不超过2GB。编码识别结果时通过映射区的哈希表查单词ID，不在堆上建词表。
+ * 打开后只读、线程安全
+ */
+final class ReferenceCorpus {
+
+    private static final int MAGIC = 0x52435031;   // "RCP1"
+    private static final int VERSION = 2;
+
+    private final Path file;
+    private final String normalizerConfig;
+    private final int vocabularySize;
+    private final int size;
+    private final IntBuffer vocabularyOffsets;
+    private final ByteBuffer vocabularyBytes;
+    private final IntBuffer wordSlots;
+    private final IntBuffer idOffsets;
+    private final ByteBuffer idBytes;
+    private final IntBuffer tokenOffsets;
+    private final IntBuffer tokens;
+
+    private volatile TokenVocabulary vocabulary;
+
+    private ReferenceCorpus(Path file, MappedByteBuffer buffer) throws IOException {
+        this.file = file;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("not a reference corpus file: " + file);
+        }
+        byte[] config = new byte[buffer.getInt()];
+        buffer.get(config);
+        this.normalizerConfig = new String(config, StandardCharsets.UTF_8);
+        align(buffer);
+        this.vocabularySize = buffer.getInt();
+        this.size = buffer.getInt();
+
+        this.vocabularyOffsets = intSection(buffer, vocabularySize + 1);
+        this.vocabularyBytes = byteSection(buffer, vocabularyOffsets.get(vocabularySize));
+        int slots = buffer.getInt();
+        if (Integer.bitCount(slots) != 1) {
+            throw new IOException("corrupt word index in " + file);
+        }
+        this.wordSlots = intSection(buffer, slots);
+        this.idOffsets = intSection(buffer, size + 1);
+        this.idBytes = byteSection(buffer, idOffsets.get(size));
+        this.tokenOffsets = intSection(buffer, size + 1);
+        this.tokens = intSection(buffer, tokenOffsets.get(size));
+    }
+
+    /**
+     * 映射语料文件。映射建立后即关闭通道，映射区在对象被回收前一直有效
+     */
+    static ReferenceCorpus open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("reference corpus larger than 2GB: " + file);
+            }
+            return new ReferenceCorpus(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static Writer writer(TextNormalizer normalizer) {
+        return new Writer(normalizer);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int vocabularySize() {
+        return vocabularySize;
+    }
+
+    /**
+     * 写入时所用规范化器的配置描述，识别结果需按同一配置分词
+     */
+    String normalizerConfig() {
+        return normalizerConfig;
+    }
+
+    /**
+     * 第 index 条的样本ID（条目按ID排序）
+     */
+    String id(int index) {
+        return decode(idBytes, idOffsets, index);
+    }
+
+    /**
+     * 按样本ID二分查找，不存在时返回 -1
+     */
+    int indexOf(String id) {
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 第 index 条参考文本的单词ID（映射区的只读切片，不复制）
+     */
+    IntBuffer tokens(int index) {
+        int from = tokenOffsets.get(index);
+        int to = tokenOffsets.get(index + 1);
+        return tokens.slice(from, to - from);
+    }
+
+    int tokenCount(int index) {
+        return tokenOffsets.get(index + 1) - tokenOffsets.get(index);
+    }
+
+    String token(int tokenId) {
+        return decode(vocabularyBytes, vocabularyOffsets, tokenId);
+    }
+
+    /**
+     * 第 index 条参考文本（规范化后的单词以空格连接）
+     */
+    String reference(int index) {
+        IntBuffer ids = tokens(index);
+        StringBuilder text = new StringBuilder();
+        for (int k = 0; k < ids.limit(); k++) {
+            if (k > 0) text.append(' ');
+            text.append(token(ids.get(k)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * 单词在语料词表中的ID，不存在时返回 -1（查映射区的哈希表，比较UTF-8字节，不创建字符串）
+     */
+    int idOf(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int mask = wordSlots.limit() - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int id = wordSlots.get(slot) - 1;
+            if (id < 0 || wordEquals(id, key)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * 与文件中ID一致的词表，第一次使用时加载（只在需要把ID还原为单词时用，如生成编辑脚本）
+     */
+    TokenVocabulary vocabulary() {
+        TokenVocabulary loaded = vocabulary;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = vocabulary;
+                if (loaded == null) {
+                    loaded = new TokenVocabulary();
+                    for (int id = 0; id < vocabularySize; id++) {
+                        loaded.intern(token(id));
+                    }
+                    vocabulary = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 按语料的词表编码识别结果：已知单词用语料ID，未登录单词依次分配 vocabularySize 之后的ID
+     * （只在本次调用内有效，不修改共享词表）
+     */
+    int[] encode(CharSequence hypothesis, TextNormalizer normalizer) {
+        if (!normalizer.toString().equals(normalizerConfig)) {
+            throw new IllegalArgumentException("normalizer " + normalizer
+                    + " does not match corpus normalizer " + normalizerConfig);
+        }
+        List<String> words = normalizer.tokens(hypothesis);
+        Map<String, Integer> unknown = new HashMap<>();
+        int[] ids = new int[words.size()];
+        for (int k = 0; k < ids.length; k++) {
+            String word = words.get(k);
+            int id = idOf(word);
+            if (id < 0) {
+                id = unknown.computeIfAbsent(word, w -> vocabularySize + unknown.size());
+            }
+            ids[k] = id;
+        }
+        return ids;
+    }
+
+    /**
+     * 第 index 条参考文本与识别结果的单词级 S/D/I，参考单词直接从映射区读取
+     */
+    WordErrorCounts wordErrorCounts(int index, CharSequence hypothesis, TextNormalizer normalizer) {
+        return WordAlignmentCore.countErrors(tokens(index), encode(hypothesis, normalizer));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReferenceCorpus{file=%s, entries=%d, vocabulary=%d}", file, size, vocabularySize);
+    }
+
+    private int compare(int index, byte[] key) {
+        int from = idOffsets.get(index);
+        int length = idOffsets.get(index + 1) - from;
+        int common = Math.min(length, key.length);
+        for (int k = 0; k < common; k++) {
+            int cmp = Byte.toUnsignedInt(idBytes.get(from + k)) - Byte.toUnsignedInt(key[k]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    private boolean wordEquals(int id, byte[] key) {
+        int from = vocabularyOffsets.get(id);
+        if (vocabularyOffsets.get(id + 1) - from != key.length) {
+            return false;
+        }
+        for (int k = 0; k < key.length; k++) {
+            if (vocabularyBytes.get(from + k) != key[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * UTF-8字节的 FNV-1a 哈希，写入与查找共用；结果写进文件，不能随意修改
+     */
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h = (h ^ (b & 0xFF)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static String decode(ByteBuffer bytes, IntBuffer offsets, int index) {
+        int from = offsets.get(index);
+        byte[] data = new byte[offsets.get(index + 1) - from];
+        bytes.get(from, data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private static IntBuffer intSection(ByteBuffer buffer, int count) {
+        IntBuffer section = buffer.slice(buffer.position(), count * Integer.BYTES).asIntBuffer();
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return section.asReadOnlyBuffer();
+    }
+
+    private static ByteBuffer byteSection(ByteBuffer buffer, int length) {
+        ByteBuffer section = buffer.slice(buffer.position(), length).asReadOnlyBuffer();
+        buffer.position(buffer.position() + length);
+        align(buffer);
+        return section;
+    }
+
+    private static void align(ByteBuffer buffer) {
+        buffer.position((buffer.position() + 3) & ~3);
+    }
+
+    /**
+     * 离线构建语料文件：逐条加入（样本ID，参考文本），write 时按ID排序写出
+     */
+    static final class Writer {
+        private final TextNormalizer normalizer;
+        private final TokenVocabulary vocabulary = new TokenVocabulary();
+        private final TokenBuffer buffer = new TokenBuffer();
+        private final List<byte[]> ids = new ArrayList<>();
+        private final List<int[]> references = new ArrayList<>();
+        private final Set<String> seen = new HashSet<>();
+
+        private Writer(TextNormalizer normalizer) {
+            this.normalizer = normalizer;
+        }
+
+        Writer add(String id, String reference) {
+            if (!seen.add(id)) {
+                throw new IllegalArgumentException("duplicate sample id: " + id);
+            }
+            buffer.clear();
+            normalizer.tokenize(reference, vocabulary, buffer);
+            ids.add(id.getBytes(StandardCharsets.UTF_8));
+            references.add(buffer.toArray());
+            return this;
+        }
+
+        /**
+         * 先写临时文件再原子改名，正在被映射读取的旧文件不受影响
+         */
+        void write(Path file) throws IOException {
+            int n = ids.size();
+            Integer[] order = new Integer[n];
+            for (int k = 0; k < n; k++) order[k] = k;
+            Arrays.sort(order, (x, y) -> Arrays.compareUnsigned(ids.get(x), ids.get(y)));
+
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                byte[] config = normalizer.toString().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(config.length);
+                out.write(config);
+                pad(out);
+                out.writeInt(vocabulary.size());
+                out.writeInt(n);
+
+                List<byte[]> words = new ArrayList<>(vocabulary.size());
+                for (int id = 0; id < vocabulary.size(); id++) {
+                    words.add(vocabulary.token(id).getBytes(StandardCharsets.UTF_8));
+                }
+                writeStrings(out, words);
+                writeWordIndex(out, words);
+
+                List<byte[]> sortedIds = new ArrayList<>(n);
+                for (Integer k : order) sortedIds.add(ids.get(k));
+                writeStrings(out, sortedIds);
+
+                int offset = 0;
+                out.writeInt(0);
+                for (Integer k : order) {
+                    offset += references.get(k).length;
+                    out.writeInt(offset);
+                }
+                for (Integer k : order) {
+                    for (int id : references.get(k)) {
+                        out.writeInt(id);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        private static void writeStrings(DataOutputStream out, List<byte[]> strings) throws IOException {
+            int offset = 0;
+            out.writeInt(0);
+            for (byte[] string : strings) {
+                offset += string.length;
+                out.writeInt(offset);
+            }
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+            pad(out);
+        }
+
+        /**
+         * 槽数取不小于2V的2的幂，装载率不超过一半
+         */
+        private static void writeWordIndex(DataOutputStream out, List<byte[]> words) throws IOException {
+            int slots = Integer.highestOneBit(Math.max(1, words.size()) * 2 - 1) << 1;
+            int[] table = new int[slots];
+            for (int id = 0; id < words.size(); id++) {
+                int slot = hash(words.get(id)) & (slots - 1);
+                while (table[slot] != 0) slot = (slot + 1) & (slots - 1);
+                table[slot] = id + 1;
+            }
+            out.writeInt(slots);
+            for (int entry : table) {
+                out.writeInt(entry);
+            }
+        }
+
+        private static void pad(DataOutputStream out) throws IOException {
+            while ((out.size() & 3) != 0) {
+                out.write(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 有理数倍率的多相重采样（s16le）：倍率约分为 L/M，低通原型滤波器为 Kaiser 窗 sinc，
+ * 拆成 L 组相位系数，每个输出采样只算 TAPS 次乘加，不生成插零后的中间序列。
+ * 系数表按（源采样率，目标采样率）缓存，实例不可变、线程安全
+ */
+final class Resampler {
+
+    // 每侧的过零点数（按较低的采样率计），越大过渡带越窄
+    private static final int HALF_ZERO_CROSSINGS = 16;
+    // 截止频率相对较低采样率奈奎斯特频率的比例
+    private static final double ROLLOFF = 0.9;
+    private static final double KAISER_BETA = 8.0;
+    // 整段重采样写文件时每块的输出帧数
+    static final int CHUNK_FRAMES = 16384;
+
+    private static final Map<Long, Resampler> CACHE = new ConcurrentHashMap<>();
+
+    final int sourceRate;
+    final int targetRate;
+    private final int up;         // L
+    private final int down;       // M
+    private final int taps;       // 每个相位的系数个数
+    private final int delay;      // 原型滤波器的群延迟（插零后的采样数）
+    private final double[][] phases;
+
+    private Resampler(int sourceRate, int targetRate) {
+        this.sourceRate = sourceRate;
+        this.targetRate = targetRate;
+        int g = gcd(sourceRate, targetRate);
+        this.up = targetRate / g;
+        this.down = sourceRate / g;
+
+        this.taps = 2 * (int) Math.ceil(HALF_ZERO_CROSSINGS * Math.max(1.0, (double) down / up));
+        int length = taps * up;
+        this.delay = length / 2;
+        double cutoff = ROLLOFF * 0.5 / Math.max(up, down);   // 插零后采样率下的归一化截止频率
+        double center = (length - 1) / 2.0;
+        double i0Beta = besselI0(KAISER_BETA);
+
+        this.phases = new double[up][taps];
+        for (int i = 0; i < length; i++) {
+            double x = i - center;
+            double sinc = x == 0 ? 1.0 : Math.sin(2 * Math.PI * cutoff * x) / (2 * Math.PI * cutoff * x);
+            double r = x / center;
+            double window = besselI0(KAISER_BETA * Math.sqrt(Math.max(0, 1 - r * r))) / i0Beta;
+            // 乘 L 补偿插零带来的幅度损失
+            phases[i % up][i / up] = up * 2 * cutoff * sinc * window;
+        }
+    }
+
+    static Resampler of(int sourceRate, int targetRate) {
+        if (sourceRate <= 0 || targetRate <= 0) {
+            throw new IllegalArgumentException("sample rates must be > 0");
+        }
+        return CACHE.computeIfAbsent((long) sourceRate << 32 | targetRate, key -> new Resampler(sourceRate, targetRate));
+    }
+
+    /**
+     * 输入 frames 帧时的输出帧数
+     */
+    int outputFrames(int frames) {
+        return (int) (((long) frames * up + down - 1) / down);
+    }
+
+    /**
+     * 交错多声道的重采样；in 从 position 读到 limit，结果写入 out（需有 outputFrames * channels 的空间）
+     */
+    void resample(ShortBuffer in, int channels, ShortBuffer out) {
+        resample(in, channels, 0, outputFrames(in.remaining() / channels), out);
+    }
+
+    /**
+     * 只计算第 [fromOutput, fromOutput + count) 个输出帧；每个输出帧只依赖附近的输入，
+     * 可以按块随用随算（输入仍是整段，in 不被修改）
+     */
+    void resample(ShortBuffer in, int channels, int fromOutput, int count, ShortBuffer out) {
+        int base = in.position();
+        int frames = in.remaining() / channels;
+        if (up == down) {
+            for (int k = fromOutput * channels; k < (fromOutput + count) * channels; k++) out.put(in.get(base + k));
+            return;
+        }
+        for (int n = fromOutput; n < fromOutput + count; n++) {
+            long q = (long) n * down + delay;
+            double[] coefficients = phases[(int) (q % up)];
+            int newest = (int) (q / up);
+            for (int c = 0; c < channels; c++) {
+                double sum = 0;
+                // 只累加落在输入范围内的采样（两端按零填充）
+                int from = Math.max(0, newest - frames + 1);
+                int to = Math.min(taps, newest + 1);
+                for (int k = from; k < to; k++) {
+                    sum += coefficients[k] * in.get(base + (newest - k) * channels + c);
+                }
+                long value = Math.round(sum);
+                out.put((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value)));
+            }
+        }
+    }
+
+    /**
+     * 整段音频重采样后按小端字节写入 out：每次计算 CHUNK_FRAMES 个输出帧写出一块，
+     * 缓冲区大小与音频长度无关（直接内存，不经过 byte[]）
+     */
+    void resample(PcmAudio audio, WritableByteChannel out) throws IOException {
+        int channels = audio.format().channels;
+        ShortBuffer in = audio.data().asShortBuffer();
+        int total = outputFrames(audio.frames());
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_FRAMES * channels * PcmFormat.BYTES_PER_SAMPLE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int from = 0; from < total; from += CHUNK_FRAMES) {
+            int count = Math.min(CHUNK_FRAMES, total - from);
+            chunk.clear();
+            resample(in, channels, from, count, chunk.asShortBuffer());
+            chunk.limit(count * channels * PcmFormat.BYTES_PER_SAMPLE);
+            while (chunk.hasRemaining()) {
+                out.write(chunk);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Resampler{%d->%dHz, L/M=%d/%d, taps=%d}", sourceRate, targetRate, up, down, taps);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * 第一类零阶修正贝塞尔函数（级数展开）
+     */
+    private static double besselI0(double x) {
+        double sum = 1, term = 1, half = x / 2;
+        for (int k = 1; k < 50; k++) {
+            term *= (half / k) * (half / k);
+            sum += term;
+            if (term < sum * 1e-12) break;
+        }
+        return sum;
+    }
+}
+
+/**
+ * 重采样结果的磁盘缓存：键为（样本指纹，目标采样率），文件为 <dir>/<指纹前两位>/<指纹>.<采样率>.pcm。
+ * 同一个键并发请求时只重采样一次，其余请求等待同一个结果；最近用过的映射在内存中复用（见 PcmVariantCache）。
+ * 多模型对比时每个样本每种采样率最多转换一次，重启后直接映射已有文件
+ */
+class ResampleCache {
+
+    private final PcmVariantCache cache;
+
+    ResampleCache(Path directory) {
+        this(directory, PcmVariantCache.DEFAULT_MAX_MAPPED);
+    }
+
+    /**
+     * maxMapped：内存中最多保留的已映射变体数（含采样率本就相同、直接映射的样本）
+     */
+    ResampleCache(Path directory, int maxMapped) {
+        this.cache = new PcmVariantCache(directory, maxMapped);
+    }
+
+    /**
+     * 按文件路径取变体；命中时不打开样本文件，目标采样率与样本相同时返回（并缓存）样本本身的映射
+     */
+    PcmAudio get(Path pcm, int targetRate) throws IOException {
+        String fingerprint = cache.fingerprint(pcm);
+        return cache.get(fingerprint + "." + targetRate, () -> {
+            PcmAudio source = PcmAudio.open(pcm);
+            if (source.format().sampleRate == targetRate) {
+                return source;
+            }
+            PcmFormat format = new PcmFormat(targetRate, source.format().channels);
+            return cache.stored(fingerprint + "." + targetRate, format,
+                    channel -> Resampler.of(source.format().sampleRate, targetRate).resample(source, channel));
+        });
+    }
+
+    long conversions() {
+        return cache.renders();
+    }
+
+    long diskHits() {
+        return cache.diskHits();
+    }
+}
@@ -0,0 +1,46 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 的几个小工具：文本指纹、分段更新的摘要、十六进制编码。
+ * 打分缓存、音频指纹和各级音频缓存的键都由这里生成
+ */
+final class Sha256 {
+
+    private Sha256() {
+    }
+
+    /**
+     * 文本（UTF-8）的SHA-256，十六进制
+     */
+    static String of(String text) {
+        MessageDigest digest = newDigest();
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        return hex(digest.digest());
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 喂入一段文本并以 0 字节结尾，多段拼接时不会因边界移动而撞车
+     */
+    static void update(MessageDigest digest, String text) {
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            text.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return text.toString();
+    }
+}
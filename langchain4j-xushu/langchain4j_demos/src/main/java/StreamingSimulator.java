@@ -0,0 +1,425 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 实时流式发送模拟器：按音频时长（可按 PlaybackParams.speed 加速/减速）把PCM分块推给流式识别模型，
+ * 模拟真实说话人。每个会话任意时刻最多只有一个待执行的定时任务，
+ * 少量定时线程即可驱动数千个并发会话；发送时间按会话起点的绝对时刻计算，不累积误差。
+ * 每个分块记录发送时刻和覆盖它的第一个中间结果的到达时刻，用于首字延迟和实时率统计
+ */
+class StreamingSimulator implements AutoCloseable {
+
+    private final StreamingTransport transport;
+    private final ScheduledThreadPoolExecutor timer;
+
+    StreamingSimulator(StreamingTransport transport) {
+        this(transport, 2);
+    }
+
+    StreamingSimulator(StreamingTransport transport, int timerThreads) {
+        this.transport = transport;
+        AtomicInteger count = new AtomicInteger();
+        this.timer = new ScheduledThreadPoolExecutor(timerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "streaming-pacer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 建立连接后开始按节奏发送：第 k 块在其音频结束时刻（按 speed 缩放）发出，最后一块之后发送结束标记
+     */
+    StreamingSession start(String sessionId, PcmAudio audio, int chunkMillis, double speed) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("speed must be > 0");
+        }
+        StreamingSession session = new StreamingSession(sessionId, audio, chunkMillis, speed, timer);
+        transport.open(sessionId, session::onEvent, session::fail).whenComplete((channel, error) -> {
+            if (error != null) {
+                session.fail(error);
+            } else {
+                session.begin(channel);
+            }
+        });
+        return session;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
+
+/**
+ * 流式识别模型的连接方式（websocket、gRPC 双向流等）
+ */
+interface StreamingTransport {
+    /**
+     * 建立一个会话连接；识别结果（中间结果和最终结果）通过 events 回调，
+     * 连接出错、在最终结果之前被关闭或收到无法解析的消息时通过 failures 回调
+     */
+    CompletableFuture<StreamingChannel> open(String sessionId, Consumer<TranscriptEvent> events,
+                                             Consumer<Throwable> failures);
+}
+
+/**
+ * 一个会话的上行通道；send 按调用顺序发出
+ */
+interface StreamingChannel {
+    CompletableFuture<Void> send(ByteBuffer chunk);
+
+    /**
+     * 通知音频结束，之后等待最终结果
+     */
+    CompletableFuture<Void> finish();
+
+    /**
+     * 收到最终结果后正常关闭
+     */
+    void close();
+
+    void abort();
+}
+
+/**
+ * 下行识别结果：audioMillis 为结果覆盖到的音频位置（未知时为 -1），arrivalNanos 为到达时刻
+ */
+class TranscriptEvent {
+    final boolean isFinal;
+    final long audioMillis;
+    final String text;
+    final long arrivalNanos;
+
+    TranscriptEvent(boolean isFinal, long audioMillis, String text, long arrivalNanos) {
+        this.isFinal = isFinal;
+        this.audioMillis = audioMillis;
+        this.text = text;
+        this.arrivalNanos = arrivalNanos;
+    }
+
+    /**
+     * 解析文本帧 "partial|final \t 音频毫秒 \t 文本"
+     */
+    static TranscriptEvent parse(String message, long arrivalNanos) {
+        String[] parts = message.split("\t", 3);
+        if (parts.length < 3 || !(parts[0].equals("partial") || parts[0].equals("final"))) {
+            throw new IllegalArgumentException("malformed transcript message: " + message);
+        }
+        return new TranscriptEvent(parts[0].equals("final"), Long.parseLong(parts[1]), parts[2], arrivalNanos);
+    }
+
+    @Override
+    public String toString() {
+        return (isFinal ? "final@" : "partial@") + audioMillis + "ms " + text;
+    }
+}
+
+/**
+ * 一个模拟说话人的会话：发送进度、每块的发送/结果到达时刻和最终结果。线程安全
+ */
+class StreamingSession {
+
+    final String sessionId;
+    private final PcmAudio audio;
+    private final List<ByteBuffer> chunks;
+    private final long[] chunkEndMillis;
+    private final long[] scheduledOffsetNanos;   // 相对会话起点的计划发送时刻
+    private final long[] sendNanos;
+    private final long[] partialNanos;
+    private final double speed;
+    private final ScheduledThreadPoolExecutor timer;
+    private final CompletableFuture<StreamingSession> done = new CompletableFuture<>();
+
+    private StreamingChannel channel;
+    private long startNanos;
+    private int sent;
+    private int covered;            // 前 covered 块已有覆盖它们的识别结果
+    private long maxLagNanos;
+    private long firstPartialNanos = -1;
+    private long finalNanos = -1;
+    private String finalText;
+
+    StreamingSession(String sessionId, PcmAudio audio, int chunkMillis, double speed, ScheduledThreadPoolExecutor timer) {
+        this.sessionId = sessionId;
+        this.audio = audio;
+        this.chunks = audio.chunks(chunkMillis);
+        this.speed = speed;
+        this.timer = timer;
+        int count = chunks.size();
+        this.chunkEndMillis = new long[count];
+        this.scheduledOffsetNanos = new long[count];
+        for (int k = 0; k < count; k++) {
+            chunkEndMillis[k] = Math.min((long) (k + 1) * chunkMillis, audio.durationMillis());
+            scheduledOffsetNanos[k] = (long) (TimeUnit.MILLISECONDS.toNanos(chunkEndMillis[k]) / speed);
+        }
+        this.sendNanos = new long[count];
+        this.partialNanos = new long[count];
+        Arrays.fill(partialNanos, -1);
+    }
+
+    synchronized void begin(StreamingChannel channel) {
+        this.channel = channel;
+        this.startNanos = System.nanoTime();
+        scheduleNext();
+    }
+
+    private void scheduleNext() {
+        if (done.isDone()) {
+            return;
+        }
+        if (sent == chunks.size()) {
+            channel.finish().whenComplete((ignored, error) -> {
+                if (error != null) fail(error);
+            });
+            return;
+        }
+        long delay = startNanos + scheduledOffsetNanos[sent] - System.nanoTime();
+        timer.schedule(this::sendNext, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void sendNext() {
+        if (done.isDone()) {
+            return;
+        }
+        int k = sent;
+        long now = System.nanoTime();
+        sendNanos[k] = now;
+        maxLagNanos = Math.max(maxLagNanos, now - startNanos - scheduledOffsetNanos[k]);
+        channel.send(chunks.get(k)).whenComplete((ignored, error) -> {
+            if (error != null) fail(error);
+        });
+        sent++;
+        scheduleNext();
+    }
+
+    synchronized void onEvent(TranscriptEvent event) {
+        if (done.isDone()) {
+            return;
+        }
+        if (firstPartialNanos < 0) {
+            firstPartialNanos = event.arrivalNanos;
+        }
+        // 结果覆盖到的已发送分块记下到达时刻；不带音频位置时视为覆盖所有已发送分块
+        while (covered < sent && (event.isFinal || event.audioMillis < 0
+                || chunkEndMillis[covered] <= event.audioMillis)) {
+            partialNanos[covered++] = event.arrivalNanos;
+        }
+        if (event.isFinal) {
+            finalNanos = event.arrivalNanos;
+            finalText = event.text;
+            done.complete(this);
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    void fail(Throwable error) {
+        if (done.completeExceptionally(error)) {
+            StreamingChannel current;
+            synchronized (this) {
+                current = channel;
+            }
+            if (current != null) {
+                current.abort();
+            }
+        }
+    }
+
+    /**
+     * 等待最终结果；超时则中止会话
+     */
+    StreamingSession await(long timeout, TimeUnit unit) throws Exception {
+        try {
+            return done.get(timeout, unit);
+        } catch (TimeoutException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    CompletableFuture<StreamingSession> completion() {
+        return done;
+    }
+
+    int chunkCount() {
+        return chunks.size();
+    }
+
+    synchronized long sendNanos(int chunk) {
+        return sendNanos[chunk];
+    }
+
+    /**
+     * 第 chunk 块从发出到覆盖它的第一个识别结果到达的时间，尚未覆盖时为 -1
+     */
+    synchronized long chunkLatencyNanos(int chunk) {
+        return partialNanos[chunk] < 0 ? -1 : partialNanos[chunk] - sendNanos[chunk];
+    }
+
+    /**
+     * 首个识别结果相对第一块发送的延迟
+     */
+    synchronized long firstPartialLatencyNanos() {
+        return firstPartialNanos < 0 || sent == 0 ? -1 : firstPartialNanos - sendNanos[0];
+    }
+
+    /**
+     * 最终结果相对最后一块发送的延迟（没有发出任何分块时为 -1）
+     */
+    synchronized long finalLatencyNanos() {
+        return finalNanos < 0 || sent == 0 ? -1 : finalNanos - sendNanos[sent - 1];
+    }
+
+    /**
+     * 实时率：会话开始到最终结果的时间 / 按 speed 缩放后的音频时长
+     */
+    synchronized double realTimeFactor() {
+        if (finalNanos < 0) {
+            return -1;
+        }
+        double audioNanos = TimeUnit.MILLISECONDS.toNanos(audio.durationMillis()) / speed;
+        return (finalNanos - startNanos) / audioNanos;
+    }
+
+    /**
+     * 实际发送相对计划时刻的最大滞后（定时线程是否跟得上）
+     */
+    synchronized long maxLagNanos() {
+        return maxLagNanos;
+    }
+
+    synchronized String finalText() {
+        return finalText;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("StreamingSession{%s, sent=%d/%d, firstPartial=%.1fms, final=%.1fms, RTF=%.3f}",
+                sessionId, sent, chunks.size(), firstPartialLatencyNanos() / 1e6, finalLatencyNanos() / 1e6,
+                realTimeFactor());
+    }
+}
+
+/**
+ * websocket 流式接口：音频块作为二进制帧发送，结束时发送文本帧 "EOS"，
+ * 服务端以文本帧返回 TranscriptEvent.parse 格式的结果
+ */
+class WebSocketStreamingTransport implements StreamingTransport {
+
+    static final String END_OF_STREAM = "EOS";
+
+    private final HttpClient client;
+    private final Function<String, URI> endpoint;
+
+    WebSocketStreamingTransport(Function<String, URI> endpoint) {
+        this(HttpClient.newHttpClient(), endpoint);
+    }
+
+    WebSocketStreamingTransport(HttpClient client, Function<String, URI> endpoint) {
+        this.client = client;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public CompletableFuture<StreamingChannel> open(String sessionId, Consumer<TranscriptEvent> events,
+                                                    Consumer<Throwable> failures) {
+        return client.newWebSocketBuilder()
+                .buildAsync(endpoint.apply(sessionId), new Receiver(events, failures))
+                .thenApply(Channel::new);
+    }
+
+    /**
+     * 合并分片文本帧后解析；异常不抛出监听器，而是交给 failures 让会话失败。
+     * 会话收到最终结果后自己发起关闭，之后的 onClose 对已结束的会话没有影响
+     */
+    private static final class Receiver implements WebSocket.Listener {
+        private final Consumer<TranscriptEvent> events;
+        private final Consumer<Throwable> failures;
+        private final StringBuilder message = new StringBuilder();
+
+        Receiver(Consumer<TranscriptEvent> events, Consumer<Throwable> failures) {
+            this.events = events;
+            this.failures = failures;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            message.append(data);
+            if (last) {
+                long arrival = System.nanoTime();
+                String text = message.toString();
+                message.setLength(0);
+                try {
+                    events.accept(TranscriptEvent.parse(text, arrival));
+                } catch (RuntimeException e) {
+                    failures.accept(e);
+                    return null;
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            failures.accept(new IOException("websocket closed before final transcript: " + statusCode + " " + reason));
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            failures.accept(error);
+        }
+    }
+
+    /**
+     * WebSocket 同一时刻只允许一个未完成的发送，所以各次发送串成一条链
+     */
+    private static final class Channel implements StreamingChannel {
+        private final WebSocket webSocket;
+        private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+        Channel(WebSocket webSocket) {
+            this.webSocket = webSocket;
+        }
+
+        @Override
+        public synchronized CompletableFuture<Void> send(ByteBuffer chunk) {
+            CompletableFuture<WebSocket> next = tail.thenCompose(ignored -> webSocket.sendBinary(chunk, true));
+            tail = next;
+            return next.thenApply(ignored -> null);
+        }
+
+        @Override
+        public synchronized CompletableFuture<Void> finish() {
+            CompletableFuture<WebSocket> next = tail.thenCompose(ignored -> webSocket.sendText(END_OF_STREAM, true));
+            tail = next;
+            return next.thenApply(ignored -> null);
+        }
+
+        @Override
+        public synchronized void close() {
+            tail = tail.thenCompose(ignored -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, ""));
+        }
+
+        @Override
+        public void abort() {
+            webSocket.abort();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 语音识别模型客户端：异步返回识别文本，调用线程不阻塞
+ */
+interface SttClient {
+    CompletableFuture<String> transcribe(EvaluationJob job);
+}
+
+/**
+ * HTTP 接口（Model.interfaceType = http_api）的客户端：音频文件作为请求体 POST 到模型地址，
+ * 响应体即识别文本。基于 HttpClient.sendAsync，在途请求不占线程，数千个并发请求只需少量线程。
+ * 裸PCM请求体的准备（指纹、重采样、VAD、增强）是CPU密集的，在按处理器数限定大小的线程池里异步进行，
+ * 不占用调用方（评测任务的调度线程）
+ */
+class HttpSttClient implements SttClient {
+
+    private static final int PCM_CHUNK_MILLIS = 1000;
+
+    private final HttpClient client;
+    private final Function<EvaluationJob, URI> endpoint;
+    private final Duration timeout;
+    private final ResampleCache resampleCache;
+    private final ToIntFunction<EvaluationJob> sampleRate;
+    private final VoiceActivityDetector vad;
+    private final AugmentationCache augmentationCache;
+    private final ExecutorService preparation;
+
+    private HttpSttClient(Builder builder) {
+        this.client = builder.client != null ? builder.client
+                : HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        this.endpoint = builder.endpoint;
+        this.timeout = builder.timeout;
+        this.resampleCache = builder.resampleCache;
+        this.sampleRate = builder.sampleRate;
+        this.vad = builder.vad;
+        this.augmentationCache = builder.augmentationCache;
+        this.preparation = preparationPool();
+    }
+
+    static Builder builder(Function<EvaluationJob, URI> endpoint) {
+        return new Builder(endpoint);
+    }
+
+    /**
+     * 线程数为处理器数，空闲时线程退出，客户端不需要关闭
+     */
+    private static ExecutorService preparationPool() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "stt-body-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 请求体在准备线程池中生成后再发出；返回的 future 被取消时，尚未开始的准备直接跳过，
+     * 已发出的请求由 HttpClient 中止
+     */
+    @Override
+    public CompletableFuture<String> transcribe(EvaluationJob job) {
+        CompletableFuture<String> text = new CompletableFuture<>();
+        CompletableFuture<HttpRequest.BodyPublisher> prepared = CompletableFuture.supplyAsync(() -> {
+            try {
+                return body(job);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, preparation);
+        text.whenComplete((hypothesis, error) -> {
+            if (text.isCancelled()) {
+                prepared.cancel(false);
+            }
+        });
+        prepared.whenComplete((body, error) -> {
+            if (error != null) {
+                text.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else if (!text.isDone()) {
+                send(job, body, text);
+            }
+        });
+        return text;
+    }
+
+    private void send(EvaluationJob job, HttpRequest.BodyPublisher body, CompletableFuture<String> text) {
+        HttpRequest request = HttpRequest.newBuilder(endpoint.apply(job))
+                .timeout(timeout)
+                .header("Content-Type", "application/octet-stream")
+                .header("X-Sample-Id", job.sampleId)
+                .header("X-Model-Id", job.modelId)
+                .POST(body)
+                .build();
+        CompletableFuture<HttpResponse<String>> exchange =
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        // 取消 text 不会传到上游；转给 sendAsync 返回的 future，由 HttpClient 中止这次交换
+        text.whenComplete((hypothesis, error) -> {
+            if (text.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        exchange.whenComplete((response, error) -> {
+            if (error != null) {
+                text.completeExceptionally(error);
+            } else if (response.statusCode() / 100 != 2) {
+                text.completeExceptionally(new UncheckedIOException(new IOException(
+                        "STT request for " + job + " failed with HTTP " + response.statusCode())));
+            } else {
+                text.complete(response.body());
+            }
+        });
+    }
+
+    /**
+     * 裸PCM依次经过重采样、VAD裁剪、增强（各自可选），按内存映射分块发送；其他格式按文件流式发送。
+     * 增强作用在裁剪后的音频上，边生成边发送，只有开启缓存时才写文件
+     */
+    private HttpRequest.BodyPublisher body(EvaluationJob job) throws IOException {
+        Path audio = job.audio;
+        if (audio == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        if (!audio.getFileName().toString().endsWith(".pcm")) {
+            return HttpRequest.BodyPublishers.ofFile(audio);
+        }
+        PcmAudio pcm = resampleCache == null ? PcmAudio.open(audio)
+                : resampleCache.get(audio, sampleRate.applyAsInt(job));
+        TrimmedAudio trimmed = vad == null ? null : vad.trim(pcm);
+        if (job.augmentation == null) {
+            return trimmed == null ? pcm.bodyPublisher(PCM_CHUNK_MILLIS) : trimmed.bodyPublisher();
+        }
+        PcmAudio source = trimmed == null ? pcm : trimmed.audio();
+        long seed = job.augmentation.seedFor(job.sampleId);
+        if (augmentationCache == null) {
+            return new AugmentedAudio(source, job.augmentation, seed).bodyPublisher(PCM_CHUNK_MILLIS);
+        }
+        String variant = trimmed == null ? "" : "vad" + trimmed.key();
+        return augmentationCache.get(audio, variant, source, job.augmentation, seed).bodyPublisher(PCM_CHUNK_MILLIS);
+    }
+
+    static final class Builder {
+        private final Function<EvaluationJob, URI> endpoint;
+        private HttpClient client;
+        private Duration timeout = Duration.ofMinutes(2);
+        private ResampleCache resampleCache;
+        private ToIntFunction<EvaluationJob> sampleRate;
+        private VoiceActivityDetector vad;
+        private AugmentationCache augmentationCache;
+
+        private Builder(Function<EvaluationJob, URI> endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * 默认新建一个连接超时10秒的 HttpClient
+         */
+        Builder httpClient(HttpClient client) {
+            this.client = client;
+            return this;
+        }
+
+        Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        /**
+         * 裸PCM样本先经 resampleCache 转成模型要求的采样率（Model.samplingRate）
+         */
+        Builder resample(ResampleCache resampleCache, ToIntFunction<EvaluationJob> sampleRate) {
+            this.resampleCache = resampleCache;
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * 裸PCM裁掉首尾静音（及过长停顿），只发送保留区间
+         */
+        Builder vad(VoiceActivityDetector vad) {
+            this.vad = vad;
+            return this;
+        }
+
+        /**
+         * 增强变体先落盘再发送，否则边生成边发送
+         */
+        Builder augmentationCache(AugmentationCache augmentationCache) {
+            this.augmentationCache = augmentationCache;
+            return this;
+        }
+
+        HttpSttClient build() {
+            return new HttpSttClient(this);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 文本规范化与分词：大小写、全角转半角、去标点、数字转中文读法、中文按字或按词典（正向最大匹配）切分。
+ * 配置在构建时编译一次，之后不可变、线程安全；分词不使用正则，
+ * 可以直接把词表ID写入调用方复用的 TokenBuffer
+ */
+final class TextNormalizer {
+
+    /**
+     * 中文（汉字）切分方式
+     */
+    enum CjkSegmentation {
+        NONE,            // 不特殊处理，和其他字符一样按空白切分
+        PER_CHARACTER,   // 每个汉字一个单元（CER口径）
+        DICTIONARY       // 按词典正向最大匹配，未登录部分按字切分
+    }
+
+    /**
+     * 数字处理方式
+     */
+    enum NumberStyle {
+        KEEP,            // 保持原样
+        CHINESE_DIGITS   // 阿拉伯数字逐位转为中文读法（2024 -> 二零二四），按汉字处理
+    }
+
+    private static final String CHINESE_DIGITS = "零一二三四五六七八九";
+
+    /**
+     * 只按空白切分，不做任何规范化（splitIntoWords 的口径）。
+     * 空白与原来的 split("\\s+") 相同，只有 [ \t\n\x0B\f\r]，不含 U+3000、U+2028 等 Unicode 分隔符；
+     * 开启任何规范化选项后改按 Character.isWhitespace 切分，这些分隔符也会切开单词
+     */
+    static final TextNormalizer WHITESPACE = builder().build();
+
+    private final boolean lowerCase;
+    private final boolean halfWidth;
+    private final boolean stripPunctuation;
+    private final NumberStyle numberStyle;
+    private final CjkSegmentation cjkSegmentation;
+    private final Set<String> dictionary;
+    private final int maxWordLength;
+    private final boolean plain;
+    // 词典内容的SHA-256（排序后逐条摘要），只在按词典切分时参与 toString
+    private final String dictionaryDigest;
+
+    /**
+     * 每个线程复用的缓冲区：当前单词和当前汉字串
+     */
+    private static final class Scratch {
+        final StringBuilder word = new StringBuilder(32);
+        final StringBuilder cjkRun = new StringBuilder(32);
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * 分词结果的接收方
+     */
+    private interface TokenSink {
+        void accept(String token);
+    }
+
+    private TextNormalizer(Builder builder) {
+        this.lowerCase = builder.lowerCase;
+        this.halfWidth = builder.halfWidth;
+        this.stripPunctuation = builder.stripPunctuation;
+        this.numberStyle = builder.numberStyle;
+        this.cjkSegmentation = builder.cjkSegmentation;
+        this.dictionary = Set.copyOf(builder.dictionary);
+        int longest = 1;
+        for (String word : dictionary) {
+            longest = Math.max(longest, word.length());
+        }
+        this.maxWordLength = longest;
+        this.dictionaryDigest = cjkSegmentation == CjkSegmentation.DICTIONARY ? digest(dictionary) : null;
+        this.plain = !lowerCase && !halfWidth && !stripPunctuation
+                && numberStyle == NumberStyle.KEEP && cjkSegmentation == CjkSegmentation.NONE;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 配置描述，配置相同的规范化器描述相同（用作缓存键的一部分）
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("TextNormalizer{lowerCase=").append(lowerCase)
+                .append(",halfWidth=").append(halfWidth)
+                .append(",stripPunctuation=").append(stripPunctuation)
+                .append(",numbers=").append(numberStyle)
+                .append(",cjk=").append(cjkSegmentation);
+        if (cjkSegmentation == CjkSegmentation.DICTIONARY) {
+            text.append(",dictionary=").append(dictionary.size()).append('/').append(dictionaryDigest);
+        }
+        return text.append('}').toString();
+    }
+
+    private static String digest(Set<String> dictionary) {
+        String[] words = dictionary.toArray(new String[0]);
+        Arrays.sort(words);
+        MessageDigest digest = Sha256.newDigest();
+        for (String word : words) {
+            Sha256.update(digest, word);
+        }
+        return Sha256.hex(digest.digest());
+    }
+
+    /**
+     * 分词并把词表ID追加到 into，返回追加的单元数
+     */
+    int tokenize(CharSequence text, TokenVocabulary vocabulary, TokenBuffer into) {
+        int before = into.size();
+        process(text, token -> into.add(vocabulary.intern(token)));
+        return into.size() - before;
+    }
+
+    /**
+     * 分词为字符串列表
+     */
+    List<String> tokens(CharSequence text) {
+        List<String> tokens = new ArrayList<>();
+        if (text != null) {
+            process(text, tokens::add);
+        }
+        return tokens;
+    }
+
+    private void process(CharSequence text, TokenSink sink) {
+        Scratch scratch = SCRATCH.get();
+        StringBuilder word = scratch.word;
+        StringBuilder cjkRun = scratch.cjkRun;
+        word.setLength(0);
+        cjkRun.setLength(0);
+
+        if (plain) {
+            splitOnWhitespace(text, word, sink);
+            return;
+        }
+
+        for (int i = 0; i < text.length(); ) {
+            int cp = Character.codePointAt(text, i);
+            i += Character.charCount(cp);
+
+            if (halfWidth) {
+                cp = toHalfWidth(cp);
+            }
+            if (lowerCase) {
+                cp = Character.toLowerCase(cp);
+            }
+            if (numberStyle == NumberStyle.CHINESE_DIGITS && cp >= '0' && cp <= '9') {
+                cp = CHINESE_DIGITS.charAt(cp - '0');
+            }
+
+            if (Character.isWhitespace(cp) || (stripPunctuation && isPunctuation(cp))) {
+                flushWord(word, sink);
+                flushCjk(cjkRun, sink);
+            } else if (cjkSegmentation != CjkSegmentation.NONE && isCjk(cp)) {
+                flushWord(word, sink);
+                if (cjkSegmentation == CjkSegmentation.PER_CHARACTER) {
+                    sink.accept(new String(Character.toChars(cp)));
+                } else {
+                    cjkRun.appendCodePoint(cp);
+                }
+            } else {
+                flushCjk(cjkRun, sink);
+                word.appendCodePoint(cp);
+            }
+        }
+        flushWord(word, sink);
+        flushCjk(cjkRun, sink);
+    }
+
+    private static void splitOnWhitespace(CharSequence text, StringBuilder word, TokenSink sink) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isRegexWhitespace(c)) {
+                flushWord(word, sink);
+            } else {
+                word.append(c);
+            }
+        }
+        flushWord(word, sink);
+    }
+
+    /**
+     * 正则 \s（非 UNICODE_CHARACTER_CLASS 模式）匹配的字符
+     */
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static void flushWord(StringBuilder word, TokenSink sink) {
+        if (word.length() > 0) {
+            sink.accept(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    /**
+     * 对连续的汉字串做正向最大匹配
+     */
+    private void flushCjk(StringBuilder run, TokenSink sink) {
+        int length = run.length();
+        int pos = 0;
+        while (pos < length) {
+            int end = pos + Character.charCount(run.codePointAt(pos));
+            for (int len = Math.min(maxWordLength, length - pos); len > end - pos; len--) {
+                String candidate = run.substring(pos, pos + len);
+                if (dictionary.contains(candidate)) {
+                    end = pos + len;
+                    break;
+                }
+            }
+            sink.accept(run.substring(pos, end));
+            pos = end;
+        }
+        run.setLength(0);
+    }
+
+    private static int toHalfWidth(int cp) {
+        if (cp >= 0xFF01 && cp <= 0xFF5E) {
+            return cp - 0xFEE0;
+        }
+        return cp == 0x3000 ? ' ' : cp;
+    }
+
+    private static boolean isPunctuation(int cp) {
+        switch (Character.getType(cp)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isCjk(int cp) {
+        return Character.UnicodeScript.of(cp) == Character.UnicodeScript.HAN;
+    }
+
+    static final class Builder {
+        private boolean lowerCase;
+        private boolean halfWidth;
+        private boolean stripPunctuation;
+        private NumberStyle numberStyle = NumberStyle.KEEP;
+        private CjkSegmentation cjkSegmentation = CjkSegmentation.NONE;
+        private final Set<String> dictionary = new HashSet<>();
+
+        Builder lowerCase(boolean lowerCase) {
+            this.lowerCase = lowerCase;
+            return this;
+        }
+
+        Builder halfWidth(boolean halfWidth) {
+            this.halfWidth = halfWidth;
+            return this;
+        }
+
+        Builder stripPunctuation(boolean stripPunctuation) {
+            this.stripPunctuation = stripPunctuation;
+            return this;
+        }
+
+        Builder numberStyle(NumberStyle numberStyle) {
+            this.numberStyle = numberStyle;
+            return this;
+        }
+
+        Builder cjkSegmentation(CjkSegmentation cjkSegmentation) {
+            this.cjkSegmentation = cjkSegmentation;
+            return this;
+        }
+
+        /**
+         * 词典切分用的词表（DICTIONARY 模式）
+         */
+        Builder dictionary(Collection<String> words) {
+            dictionary.addAll(words);
+            return this;
+        }
+
+        TextNormalizer build() {
+            return new TextNormalizer(this);
+        }
+    }
+}
+
+/**
+ * 可复用的int缓冲区，用于接收分词得到的词表ID
+ */
+final class TokenBuffer {
+    private int[] ids;
+    private int size;
+
+    TokenBuffer() {
+        this(64);
+    }
+
+    TokenBuffer(int capacity) {
+        ids = new int[Math.max(1, capacity)];
+    }
+
+    void add(int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    int get(int index) {
+        return ids[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * 底层数组（只有前 size 个有效），避免复制
+     */
+    int[] array() {
+        return ids;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+}
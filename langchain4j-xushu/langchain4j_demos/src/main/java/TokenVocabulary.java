@@ -0,0 +1,68 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单词词表：把单词映射为连续的int ID，DP内层只做int比较
+ * 可以每对文本新建一个，也可以在整个语料上共享（线程安全）
+ */
+class TokenVocabulary {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    // 反向表，只在持锁时扩容替换
+    private volatile String[] tokens = new String[64];
+    private int size;
+
+    /**
+     * 获取单词ID，不存在时分配新ID
+     */
+    int intern(String token) {
+        Integer id = ids.get(token);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(token);
+            if (id != null) {
+                return id;
+            }
+            int newId = size;
+            String[] current = tokens;
+            if (newId == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[newId] = token;
+            tokens = current;
+            size = newId + 1;
+            ids.put(token, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * 只查询不分配，不存在时返回 -1
+     */
+    int idOf(String token) {
+        Integer id = ids.get(token);
+        return id == null ? -1 : id;
+    }
+
+    String token(int id) {
+        return tokens[id];
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    /**
+     * 把单词列表编码为ID数组
+     */
+    int[] encode(List<String> words) {
+        int[] encoded = new int[words.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = intern(words.get(i));
+        }
+        return encoded;
+    }
+}
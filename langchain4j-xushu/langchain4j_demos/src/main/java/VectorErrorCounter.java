@@ -0,0 +1,121 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 用 Vector API 沿反对角线（i + j = d）计算计数DP：同一条反对角线上的单元格互不依赖，
+ * 一条指令同时计算多个单元格。目标序列预先反转，使 target[d - i - 1] 随 i 连续，可以整段加载。
+ * 每个单元格的取舍（匹配 > 替换 > 插入 > 删除）只取决于三个相邻值，与计算顺序无关，
+ * 所以结果与 WordAlignmentCore 的逐行标量实现完全一致。
+ * 只能在加载了 jdk.incubator.vector 模块时使用，由 WordAlignmentCore.countErrors 负责选择
+ */
+final class VectorErrorCounter {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorErrorCounter() {
+    }
+
+    static WordErrorCounts countErrors(int[] source, int[] target) {
+        int m = source.length;
+        int n = target.length;
+        int[] reversed = new int[n];
+        for (int j = 0; j < n; j++) reversed[j] = target[n - 1 - j];
+
+        // 三条反对角线（d-2、d-1、d），按行号 i 索引：距离、替换数、删除数
+        int[] dist2 = new int[m + 1], dist1 = new int[m + 1], dist = new int[m + 1];
+        int[] sub2 = new int[m + 1], sub1 = new int[m + 1], sub = new int[m + 1];
+        int[] del2 = new int[m + 1], del1 = new int[m + 1], del = new int[m + 1];
+
+        for (int d = 0; d <= m + n; d++) {
+            int lo = Math.max(0, d - n);
+            int hi = Math.min(m, d);
+
+            // 边界：第0行（全部插入）和第0列（全部删除）
+            int from = lo;
+            if (lo == 0) {
+                dist[0] = d;
+                sub[0] = 0;
+                del[0] = 0;
+                from = 1;
+            }
+            int to = hi;
+            if (hi == d && d > 0) {
+                dist[d] = d;
+                sub[d] = 0;
+                del[d] = d;
+                to = d - 1;
+            }
+
+            int i = from;
+            int offset = n - d;
+            for (int bound = from + SPECIES.loopBound(Math.max(0, to - from + 1)); i < bound; i += SPECIES.length()) {
+                IntVector a = IntVector.fromArray(SPECIES, source, i - 1);
+                IntVector b = IntVector.fromArray(SPECIES, reversed, offset + i);
+                VectorMask<Integer> equal = a.compare(VectorOperators.EQ, b);
+
+                IntVector diagonal = IntVector.fromArray(SPECIES, dist2, i - 1);
+                IntVector up = IntVector.fromArray(SPECIES, dist1, i - 1);
+                IntVector left = IntVector.fromArray(SPECIES, dist1, i);
+
+                IntVector substituteCost = diagonal.add(1);
+                IntVector insertCost = left.add(1);
+                IntVector deleteCost = up.add(1);
+                IntVector minCost = insertCost.min(deleteCost).min(substituteCost);
+
+                VectorMask<Integer> substitute = minCost.compare(VectorOperators.EQ, substituteCost).andNot(equal);
+                VectorMask<Integer> fromDiagonal = equal.or(substitute);
+                VectorMask<Integer> insert = minCost.compare(VectorOperators.EQ, insertCost).andNot(fromDiagonal);
+
+                minCost.blend(diagonal, equal).intoArray(dist, i);
+
+                IntVector diagonalSub = IntVector.fromArray(SPECIES, sub2, i - 1);
+                IntVector s = IntVector.fromArray(SPECIES, sub1, i - 1)
+                        .blend(IntVector.fromArray(SPECIES, sub1, i), insert)
+                        .blend(diagonalSub, equal)
+                        .blend(diagonalSub.add(1), substitute);
+                s.intoArray(sub, i);
+
+                IntVector e = IntVector.fromArray(SPECIES, del1, i - 1).add(1)
+                        .blend(IntVector.fromArray(SPECIES, del1, i), insert)
+                        .blend(IntVector.fromArray(SPECIES, del2, i - 1), fromDiagonal);
+                e.intoArray(del, i);
+            }
+
+            // 尾部不足一个向量的单元格按标量计算
+            for (; i <= to; i++) {
+                if (source[i - 1] == reversed[offset + i]) {
+                    dist[i] = dist2[i - 1];
+                    sub[i] = sub2[i - 1];
+                    del[i] = del2[i - 1];
+                } else {
+                    int insertCost = dist1[i] + 1;
+                    int deleteCost = dist1[i - 1] + 1;
+                    int substituteCost = dist2[i - 1] + 1;
+                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                    dist[i] = minCost;
+                    if (minCost == substituteCost) {
+                        sub[i] = sub2[i - 1] + 1;
+                        del[i] = del2[i - 1];
+                    } else if (minCost == insertCost) {
+                        sub[i] = sub1[i];
+                        del[i] = del1[i];
+                    } else {
+                        sub[i] = sub1[i - 1];
+                        del[i] = del1[i - 1] + 1;
+                    }
+                }
+            }
+
+            int[] tmp = dist2; dist2 = dist1; dist1 = dist; dist = tmp;
+            tmp = sub2; sub2 = sub1; sub1 = sub; sub = tmp;
+            tmp = del2; del2 = del1; del1 = del; del = tmp;
+        }
+
+        // 最后一条反对角线 d = m + n 轮换后位于 dist1
+        int substitutions = sub1[m];
+        int deletions = del1[m];
+        return new WordErrorCounts(substitutions, deletions, dist1[m] - substitutions - deletions, m);
+    }
+}
@@ -0,0 +1,76 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 用 Vector API 做增强管线中的逐采样运算：按信噪比混入噪声并饱和到16位，以及求平方和（信号功率）。
+ * 混音的浮点运算顺序与 AugmentedAudio 中的标量实现相同（先乘后加，不用 fma）；平方和按整数精确累加，
+ * 两者的结果都与标量实现逐位一致。
+ * 只能在加载了 jdk.incubator.vector 模块时使用，由 AugmentedAudio 负责选择
+ */
+final class VectorMixer {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    // 与 FLOATS 通道数相同、位宽减半的 short 向量
+    private static final VectorSpecies<Short> SHORTS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(FLOATS.vectorBitSize() / 2));
+    // 平方和在 double 通道内累加：一块内每个通道的和不超过 BLOCK * 2^30 < 2^53，是精确的整数，
+    // 每块归约后加到 long 上，结果与标量的整数累加完全相同
+    private static final int BLOCK = 4096;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED.length() >= 4
+            ? DoubleVector.SPECIES_PREFERRED : DoubleVector.SPECIES_256;
+    // 与 DOUBLES 通道数相同的 short 向量
+    private static final VectorSpecies<Short> SQUARE_SHORTS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 4));
+
+    private VectorMixer() {
+    }
+
+    /**
+     * out[k] = (short) clamp(signal[k] + gain * noise[k])，k < length
+     */
+    static void mix(float[] signal, float[] noise, float gain, short[] out, int length) {
+        int k = 0;
+        for (int bound = FLOATS.loopBound(length); k < bound; k += FLOATS.length()) {
+            FloatVector mixed = FloatVector.fromArray(FLOATS, noise, k).mul(gain)
+                    .add(FloatVector.fromArray(FLOATS, signal, k))
+                    .max(Short.MIN_VALUE).min(Short.MAX_VALUE);
+            ((ShortVector) mixed.convertShape(VectorOperators.F2S, SHORTS, 0)).intoArray(out, k);
+        }
+        for (; k < length; k++) {
+            out[k] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, signal[k] + gain * noise[k]));
+        }
+    }
+
+    /**
+     * 小端 s16 缓冲区 [position, limit) 内采样的平方和
+     */
+    static double sumSquares(ByteBuffer samples) {
+        int from = samples.position();
+        int count = (samples.limit() - from) / PcmFormat.BYTES_PER_SAMPLE;
+        long total = 0;
+        int k = 0;
+        while (k < count) {
+            int end = Math.min(count, k + BLOCK);
+            DoubleVector acc = DoubleVector.zero(DOUBLES);
+            for (int bound = k + SQUARE_SHORTS.loopBound(end - k); k < bound; k += SQUARE_SHORTS.length()) {
+                DoubleVector v = (DoubleVector) ShortVector.fromByteBuffer(SQUARE_SHORTS, samples,
+                                from + k * PcmFormat.BYTES_PER_SAMPLE, ByteOrder.LITTLE_ENDIAN)
+                        .convertShape(VectorOperators.S2D, DOUBLES, 0);
+                acc = v.mul(v).add(acc);
+            }
+            total += (long) acc.reduceLanes(VectorOperators.ADD);
+            for (; k < end; k++) {
+                int value = samples.getShort(from + k * PcmFormat.BYTES_PER_SAMPLE);
+                total += value * value;
+            }
+        }
+        return total;
+    }
+}
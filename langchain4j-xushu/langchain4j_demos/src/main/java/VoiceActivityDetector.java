@@ -0,0 +1,358 @@
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于帧能量的语音活动检测：按固定帧长计算能量（dBFS），用起止两个阈值做滞回，
+ * 能量落到停止阈值以下后再保持 hangover 才判为语音结束，短于 minSpeech 的片段（咔哒声等）丢弃。
+ * trim 去掉首尾静音、可选地把过长的句间停顿缩短到 maxPause（一段语音都没检测到时不裁剪），
+ * 保留的区间以源音频的只读切片给出，并附带偏移映射，识别结果中的时间可以换算回原始音频。
+ * 配置不可变、线程安全；检测状态在每次 stream() 得到的 Stream 中
+ */
+final class VoiceActivityDetector {
+
+    /**
+     * 一段语音（毫秒，左闭右开）
+     */
+    static class Segment {
+        final long startMillis;
+        final long endMillis;
+
+        Segment(long startMillis, long endMillis) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + startMillis + ", " + endMillis + ")";
+        }
+    }
+
+    private final int frameMillis;
+    private final double startDb;
+    private final double stopDb;
+    private final int hangoverMillis;
+    private final int minSpeechMillis;
+    private final int paddingMillis;
+    private final int maxPauseMillis;
+
+    private VoiceActivityDetector(Builder builder) {
+        this.frameMillis = builder.frameMillis;
+        this.startDb = builder.startDb;
+        this.stopDb = builder.stopDb;
+        this.hangoverMillis = builder.hangoverMillis;
+        this.minSpeechMillis = builder.minSpeechMillis;
+        this.paddingMillis = builder.paddingMillis;
+        this.maxPauseMillis = builder.maxPauseMillis;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 流式检测：按任意长度陆续送入采样
+     */
+    Stream stream(PcmFormat format) {
+        return new Stream(format);
+    }
+
+    List<Segment> detect(PcmAudio audio) {
+        Stream stream = stream(audio.format());
+        stream.accept(audio.data().asShortBuffer());
+        return stream.finish();
+    }
+
+    /**
+     * 裁掉首尾静音（各保留 padding），maxPause > 0 时把更长的内部停顿缩短到 maxPause。
+     * 没有检测到语音时保留整段音频：增益很低的录音可能整段低于绝对阈值，不能因此发送空音频
+     */
+    TrimmedAudio trim(PcmAudio audio) {
+        PcmFormat format = audio.format();
+        List<Segment> speech = detect(audio);
+        if (speech.isEmpty()) {
+            return new TrimmedAudio(audio, new int[]{0}, new int[]{audio.frames()});
+        }
+        long total = audio.durationMillis();
+
+        List<long[]> kept = new ArrayList<>();   // 保留区间（毫秒）
+        long previousEnd = 0;
+        for (Segment segment : speech) {
+            long end = Math.min(total, segment.endMillis + paddingMillis);
+            if (kept.isEmpty()) {
+                kept.add(new long[]{Math.max(0, segment.startMillis - paddingMillis), end});
+            } else if (maxPauseMillis <= 0 || segment.startMillis - previousEnd <= maxPauseMillis) {
+                kept.get(kept.size() - 1)[1] = end;
+            } else {
+                // 过长的停顿缩短为 maxPause，前后各留一半
+                kept.get(kept.size() - 1)[1] = previousEnd + maxPauseMillis / 2;
+                kept.add(new long[]{segment.startMillis - (maxPauseMillis - maxPauseMillis / 2), end});
+            }
+            previousEnd = segment.endMillis;
+        }
+
+        int count = kept.size();
+        int[] originalFrom = new int[count];
+        int[] frames = new int[count];
+        for (int k = 0; k < count; k++) {
+            int from = format.bytesOf(kept.get(k)[0]) / format.frameBytes();
+            int to = Math.min(audio.frames(), format.bytesOf(kept.get(k)[1]) / format.frameBytes());
+            originalFrom[k] = from;
+            frames[k] = to - from;
+        }
+        return new TrimmedAudio(audio, originalFrom, frames);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VoiceActivityDetector{frame=%dms, start=%.1fdB, stop=%.1fdB, hangover=%dms, "
+                        + "minSpeech=%dms, padding=%dms, maxPause=%dms}",
+                frameMillis, startDb, stopDb, hangoverMillis, minSpeechMillis, paddingMillis, maxPauseMillis);
+    }
+
+    /**
+     * 一路音频的检测状态；不足一帧的采样留到下次
+     */
+    final class Stream {
+        private final int frameSamples;     // 每帧采样数（含所有声道）
+        private final long[] partial;       // 当前帧的平方和与已收采样数
+        private final List<Segment> segments = new ArrayList<>();
+        private long frameIndex;
+        private boolean speaking;
+        private long segmentStart;
+        private long lastVoicedEnd;
+
+        private Stream(PcmFormat format) {
+            this.frameSamples = Math.max(1, format.sampleRate * frameMillis / 1000) * format.channels;
+            this.partial = new long[2];
+        }
+
+        void accept(ShortBuffer samples) {
+            while (samples.hasRemaining()) {
+                int value = samples.get();
+                partial[0] += (long) value * value;
+                if (++partial[1] == frameSamples) {
+                    frame((double) partial[0] / frameSamples);
+                    partial[0] = 0;
+                    partial[1] = 0;
+                }
+            }
+        }
+
+        /**
+         * 当前是否处于语音中（含 hangover）
+         */
+        boolean speaking() {
+            return speaking;
+        }
+
+        /**
+         * 结束输入（丢弃不足一帧的尾部），返回全部语音片段
+         */
+        List<Segment> finish() {
+            if (speaking) {
+                close(Math.min(lastVoicedEnd + hangoverMillis, frameIndex * frameMillis));
+            }
+            return segments;
+        }
+
+        private void frame(double meanSquare) {
+            double db = 10 * Math.log10(meanSquare / (32768.0 * 32768.0) + 1e-12);
+            long start = frameIndex * frameMillis;
+            long end = start + frameMillis;
+            frameIndex++;
+            if (!speaking) {
+                if (db >= startDb) {
+                    speaking = true;
+                    segmentStart = start;
+                    lastVoicedEnd = end;
+                }
+            } else if (db >= stopDb) {
+                lastVoicedEnd = end;
+            } else if (end - lastVoicedEnd > hangoverMillis) {
+                close(lastVoicedEnd + hangoverMillis);
+            }
+        }
+
+        private void close(long end) {
+            speaking = false;
+            if (lastVoicedEnd - segmentStart >= minSpeechMillis) {
+                segments.add(new Segment(segmentStart, end));
+            }
+        }
+    }
+
+    static final class Builder {
+        private int frameMillis = 20;
+        private double startDb = -35;
+        private double stopDb = -40;
+        private int hangoverMillis = 200;
+        private int minSpeechMillis = 60;
+        private int paddingMillis = 100;
+        private int maxPauseMillis = 0;
+
+        Builder frameMillis(int frameMillis) {
+            this.frameMillis = frameMillis;
+            return this;
+        }
+
+        /**
+         * 能量不低于 startDb 时开始语音，低于 stopDb 并持续超过 hangover 时结束（stopDb <= startDb）
+         */
+        Builder thresholds(double startDb, double stopDb) {
+            if (stopDb > startDb) {
+                throw new IllegalArgumentException("stopDb must not exceed startDb");
+            }
+            this.startDb = startDb;
+            this.stopDb = stopDb;
+            return this;
+        }
+
+        Builder hangoverMillis(int hangoverMillis) {
+            this.hangoverMillis = hangoverMillis;
+            return this;
+        }
+
+        Builder minSpeechMillis(int minSpeechMillis) {
+            this.minSpeechMillis = minSpeechMillis;
+            return this;
+        }
+
+        /**
+         * 裁剪时语音前后保留的静音
+         */
+        Builder paddingMillis(int paddingMillis) {
+            this.paddingMillis = paddingMillis;
+            return this;
+        }
+
+        /**
+         * 内部停顿的最大保留时长，0 表示不处理内部停顿
+         */
+        Builder maxPauseMillis(int maxPauseMillis) {
+            this.maxPauseMillis = maxPauseMillis;
+            return this;
+        }
+
+        VoiceActivityDetector build() {
+            if (frameMillis <= 0) {
+                throw new IllegalArgumentException("frameMillis must be > 0");
+            }
+            return new VoiceActivityDetector(this);
+        }
+    }
+}
+
+/**
+ * 裁剪后的音频：若干保留区间（源音频的只读切片，不复制）和裁剪后时间到原始时间的映射
+ */
+final class TrimmedAudio {
+    final PcmAudio source;
+    private final int[] originalFrom;   // 各区间在源音频中的起始帧
+    private final int[] trimmedFrom;    // 各区间在裁剪后音频中的起始帧
+    private final int[] frames;
+    private final int totalFrames;
+
+    TrimmedAudio(PcmAudio source, int[] originalFrom, int[] frames) {
+        this.source = source;
+        this.originalFrom = originalFrom;
+        this.frames = frames;
+        this.trimmedFrom = new int[frames.length];
+        int total = 0;
+        for (int k = 0; k < frames.length; k++) {
+            trimmedFrom[k] = total;
+            total += frames[k];
+        }
+        this.totalFrames = total;
+    }
+
+    int frames() {
+        return totalFrames;
+    }
+
+    long durationMillis() {
+        return source.format().millisOf((long) totalFrames * source.format().frameBytes());
+    }
+
+    /**
+     * 裁掉的比例（按帧）
+     */
+    double removedRatio() {
+        return source.frames() == 0 ? 0.0 : 1.0 - (double) totalFrames / source.frames();
+    }
+
+    /**
+     * 保留区间的只读切片（视图，每次 get 生成新切片）
+     */
+    List<ByteBuffer> segments() {
+        int frameBytes = source.format().frameBytes();
+        return new AbstractList<>() {
+            @Override
+            public ByteBuffer get(int index) {
+                ByteBuffer data = source.data();
+                return data.slice(originalFrom[index] * frameBytes, frames[index] * frameBytes).order(data.order());
+            }
+
+            @Override
+            public int size() {
+                return frames.length;
+            }
+        };
+    }
+
+    HttpRequest.BodyPublisher bodyPublisher() {
+        return PcmAudio.publisher(segments(), (long) totalFrames * source.format().frameBytes());
+    }
+
+    /**
+     * 裁剪后的音频作为一段 PcmAudio（供后续增强）：只有一个保留区间时是源音频的切片，
+     * 有多个区间（maxPause > 0）时拼接复制一次
+     */
+    PcmAudio audio() {
+        return PcmAudio.join(source, segments());
+    }
+
+    /**
+     * 保留区间的摘要，用于区分同一源音频的不同裁剪结果（如缓存文件名）
+     */
+    String key() {
+        return Sha256.of(Arrays.toString(originalFrom) + Arrays.toString(frames)).substring(0, 16);
+    }
+
+    /**
+     * 裁剪后音频的第 frame 帧在原始音频中的帧号（frame == frames() 时映射到最后一个区间的末尾）
+     */
+    int originalFrame(int frame) {
+        if (frames.length == 0) {
+            return 0;
+        }
+        int k = Arrays.binarySearch(trimmedFrom, frame);
+        if (k < 0) {
+            k = -k - 2;
+        } else {
+            // 跳过长度为0的区间
+            while (k + 1 < frames.length && trimmedFrom[k + 1] == frame) k++;
+        }
+        return originalFrom[k] + (frame - trimmedFrom[k]);
+    }
+
+    /**
+     * 识别结果中的时间（相对裁剪后音频）换算为原始音频中的时间
+     */
+    long originalMillis(long trimmedMillis) {
+        PcmFormat format = source.format();
+        int frame = (int) Math.min(totalFrames, (long) format.bytesOf(trimmedMillis) / format.frameBytes());
+        return (long) originalFrame(frame) * 1000 / format.sampleRate;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TrimmedAudio{segments=%d, %dms of %dms}", frames.length, durationMillis(),
+                source.durationMillis());
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 带权重单词编辑距离的不可变权重表：单词权重（键按小写匹配，缺省为1）
+ * 以及插入、删除、替换的基础代价，支持小数。构建一次后可被多线程、多次比较共享
+ */
+final class WeightTable {
+
+    private static final double DEFAULT_WEIGHT = 1.0;
+
+    private final Map<String, Double> wordWeights;
+    final double insertCost;
+    final double deleteCost;
+    final double substituteCost;
+
+    WeightTable(Map<String, ? extends Number> wordWeights,
+                double insertCost, double deleteCost, double substituteCost) {
+        Map<String, Double> lower = new HashMap<>(Math.max(16, wordWeights.size() * 2));
+        for (Map.Entry<String, ? extends Number> entry : wordWeights.entrySet()) {
+            lower.put(entry.getKey().toLowerCase(), entry.getValue().doubleValue());
+        }
+        this.wordWeights = Collections.unmodifiableMap(lower);
+        this.insertCost = insertCost;
+        this.deleteCost = deleteCost;
+        this.substituteCost = substituteCost;
+    }
+
+    /**
+     * 单词权重（忽略大小写）
+     */
+    double weight(String word) {
+        return wordWeights.getOrDefault(word.toLowerCase(), DEFAULT_WEIGHT);
+    }
+
+    /**
+     * 逐位置解析权重向量，DP中不再做字符串转换和哈希查找
+     */
+    double[] weights(int[] ids, TokenVocabulary vocabulary) {
+        double[] weights = new double[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            weights[i] = weight(vocabulary.token(ids[i]));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,262 @@
+import java.nio.IntBuffer;
+
+/**
+ * 单词级DP的公共内核：输入为词表ID数组，方向表用byte存储，
+ * DP值只保留两行滚动数组，三种单词级算法共用同一套回溯
+ */
+final class WordAlignmentCore {
+
+    // 方向表取值（对角线细分为匹配和替换，回溯时不必再比较单词）
+    static final byte MATCH = 0;
+    static final byte INSERT = 1;
+    static final byte DELETE = 2;
+    static final byte SUBSTITUTE = 3;
+
+    // 计数DP单元格数不少于该值且 jdk.incubator.vector 可用时使用SIMD内核（-Dwer.vectorKernel=false 可关闭）
+    private static final long VECTOR_MIN_CELLS = 4096;
+    private static final boolean VECTOR_KERNEL =
+            Boolean.parseBoolean(System.getProperty("wer.vectorKernel", "true"))
+                    && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private WordAlignmentCore() {
+    }
+
+    /**
+     * 标准单词级Levenshtein（插入、删除、替换代价均为1）
+     */
+    static WordEditResult levenshtein(int[] source, int[] target, TokenVocabulary vocabulary) {
+        int m = source.length;
+        int n = target.length;
+
+        byte[][] direction = newDirectionTable(m, n);
+        int[] prev = new int[n + 1];
+        int[] curr = new int[n + 1];
+        for (int j = 0; j <= n; j++) prev[j] = j;
+
+        for (int i = 1; i <= m; i++) {
+            int sourceId = source[i - 1];
+            byte[] dirRow = direction[i];
+            curr[0] = i;
+            for (int j = 1; j <= n; j++) {
+                if (sourceId == target[j - 1]) {
+                    curr[j] = prev[j - 1];
+                    dirRow[j] = MATCH;
+                } else {
+                    int insertCost = curr[j - 1] + 1;
+                    int deleteCost = prev[j] + 1;
+                    int substituteCost = prev[j - 1] + 1;
+
+                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                    curr[j] = minCost;
+
+                    if (minCost == substituteCost) {
+                        dirRow[j] = SUBSTITUTE;
+                    } else if (minCost == insertCost) {
+                        dirRow[j] = INSERT;
+                    } else {
+                        dirRow[j] = DELETE;
+                    }
+                }
+            }
+            int[] tmp = prev; prev = curr; curr = tmp;
+        }
+
+        return backtrack(direction, prev[n], source, target, vocabulary);
+    }
+
+    /**
+     * 对角线代价：返回 -1 表示视为匹配，否则为替换代价
+     */
+    abstract static class DiagonalCost {
+        abstract int cost(int i, int j);
+    }
+
+    /**
+     * 标准Levenshtein：ID相同为匹配，否则替换代价为1
+     */
+    static DiagonalCost exact(int[] source, int[] target) {
+        return new DiagonalCost() {
+            @Override
+            int cost(int i, int j) {
+                return source[i] == target[j] ? -1 : 1;
+            }
+        };
+    }
+
+    /**
+     * 对角线代价可变的对齐（插入、删除代价为1），用于相似度打分
+     */
+    static WordEditResult align(int[] source, int[] target, TokenVocabulary vocabulary, DiagonalCost diagonal) {
+        int m = source.length;
+        int n = target.length;
+
+        byte[][] direction = newDirectionTable(m, n);
+        int[] prev = new int[n + 1];
+        int[] curr = new int[n + 1];
+        for (int j = 0; j <= n; j++) prev[j] = j;
+
+        for (int i = 1; i <= m; i++) {
+            byte[] dirRow = direction[i];
+            curr[0] = i;
+            for (int j = 1; j <= n; j++) {
+                int sub = diagonal.cost(i - 1, j - 1);
+                if (sub < 0) {
+                    curr[j] = prev[j - 1];
+                    dirRow[j] = MATCH;
+                } else {
+                    int insertCost = curr[j - 1] + 1;
+                    int deleteCost = prev[j] + 1;
+                    int substituteCost = prev[j - 1] + sub;
+
+                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                    curr[j] = minCost;
+
+                    if (minCost == substituteCost) {
+                        dirRow[j] = SUBSTITUTE;
+                    } else if (minCost == insertCost) {
+                        dirRow[j] = INSERT;
+                    } else {
+                        dirRow[j] = DELETE;
+                    }
+                }
+            }
+            int[] tmp = prev; prev = curr; curr = tmp;
+        }
+
+        return backtrack(direction, prev[n], source, target, vocabulary);
+    }
+
+    /**
+     * 只统计替换/删除/插入个数：与 levenshtein 使用相同的取舍顺序，
+     * 每个单元格沿其回溯前驱累加计数，因此结果与完整回溯后计数一致，但不建方向表
+     */
+    static WordErrorCounts countErrors(int[] source, int[] target) {
+        if (VECTOR_KERNEL && (long) source.length * target.length >= VECTOR_MIN_CELLS) {
+            return VectorErrorCounter.countErrors(source, target);
+        }
+        return countErrorsScalar(source, target);
+    }
+
+    /**
+     * 参考文本为只读 IntBuffer（如内存映射的语料）时的计数：标量DP每行只读一次参考单词，
+     * 直接在缓冲区上读取；走SIMD内核时复制为数组（O(m)，相对O(mn)的DP可以忽略）
+     */
+    static WordErrorCounts countErrors(IntBuffer source, int[] target) {
+        if (VECTOR_KERNEL && (long) source.remaining() * target.length >= VECTOR_MIN_CELLS) {
+            int[] copy = new int[source.remaining()];
+            source.get(source.position(), copy);
+            return VectorErrorCounter.countErrors(copy, target);
+        }
+        return countErrorsScalar(source, target);
+    }
+
+    static boolean vectorKernelAvailable() {
+        return VECTOR_KERNEL;
+    }
+
+    static WordErrorCounts countErrorsScalar(int[] source, int[] target) {
+        return countErrorsScalar(IntBuffer.wrap(source), target);
+    }
+
+    private static WordErrorCounts countErrorsScalar(IntBuffer source, int[] target) {
+        int offset = source.position();
+        int m = source.remaining();
+        int n = target.length;
+
+        int[] prev = new int[n + 1], curr = new int[n + 1];
+        int[] prevSub = new int[n + 1], currSub = new int[n + 1];
+        int[] prevDel = new int[n + 1], currDel = new int[n + 1];
+        for (int j = 0; j <= n; j++) prev[j] = j;
+
+        for (int i = 1; i <= m; i++) {
+            int sourceId = source.get(offset + i - 1);
+            curr[0] = i;
+            currSub[0] = 0;
+            currDel[0] = i;
+            for (int j = 1; j <= n; j++) {
+                if (sourceId == target[j - 1]) {
+                    curr[j] = prev[j - 1];
+                    currSub[j] = prevSub[j - 1];
+                    currDel[j] = prevDel[j - 1];
+                } else {
+                    int insertCost = curr[j - 1] + 1;
+                    int deleteCost = prev[j] + 1;
+                    int substituteCost = prev[j - 1] + 1;
+
+                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
+                    curr[j] = minCost;
+
+                    if (minCost == substituteCost) {
+                        currSub[j] = prevSub[j - 1] + 1;
+                        currDel[j] = prevDel[j - 1];
+                    } else if (minCost == insertCost) {
+                        currSub[j] = currSub[j - 1];
+                        currDel[j] = currDel[j - 1];
+                    } else {
+                        currSub[j] = prevSub[j];
+                        currDel[j] = prevDel[j] + 1;
+                    }
+                }
+            }
+            int[] tmp = prev; prev = curr; curr = tmp;
+            tmp = prevSub; prevSub = currSub; currSub = tmp;
+            tmp = prevDel; prevDel = currDel; currDel = tmp;
+        }
+
+        int substitutions = prevSub[n];
+        int deletions = prevDel[n];
+        return new WordErrorCounts(substitutions, deletions, prev[n] - substitutions - deletions, m);
+    }
+
+    /**
+     * 创建方向表并初始化边界（首列删除、首行插入）
+     */
+    static byte[][] newDirectionTable(int m, int n) {
+        byte[][] direction = new byte[m + 1][n + 1];
+        for (int i = 0; i <= m; i++) direction[i][0] = DELETE;
+        for (int j = 0; j <= n; j++) direction[0][j] = INSERT;
+        return direction;
+    }
+
+    /**
+     * 从右下角回溯方向表，生成游程编码的编辑脚本
+     */
+    static WordEditResult backtrack(byte[][] direction, int distance,
+                                    int[] source, int[] target, TokenVocabulary vocabulary) {
+        return new WordEditResult(distance, backtrackScript(direction, source, target, vocabulary));
+    }
+
+    static EditScript backtrackScript(byte[][] direction, int[] source, int[] target, TokenVocabulary vocabulary) {
+        EditScript.Builder script = new EditScript.Builder();
+
+        int i = source.length, j = target.length;
+        while (i > 0 || j > 0) {
+            byte dir = direction[i][j];
+            script.prepend(dir);
+            if (dir != INSERT) i--;
+            if (dir != DELETE) j--;
+        }
+        return script.build(source, target, vocabulary);
+    }
+
+    /**
+     * 单元格 (i, j) 处方向 dir 对应的操作
+     */
+    static WordEditOperation operationAt(byte dir, int i, int j,
+                                         int[] source, int[] target, TokenVocabulary vocabulary) {
+        switch (dir) {
+            case MATCH:
+                return new WordEditOperation(WordOperationType.MATCH,
+                        vocabulary.token(source[i - 1]), vocabulary.token(target[j - 1]), i - 1);
+            case SUBSTITUTE:
+                return new WordEditOperation(WordOperationType.SUBSTITUTE,
+                        vocabulary.token(source[i - 1]), vocabulary.token(target[j - 1]), i - 1);
+            case INSERT:
+                return new WordEditOperation(WordOperationType.INSERT,
+                        null, vocabulary.token(target[j - 1]), i);
+            default:
+                return new WordEditOperation(WordOperationType.DELETE,
+                        vocabulary.token(source[i - 1]), null, i - 1);
+        }
+    }
+}
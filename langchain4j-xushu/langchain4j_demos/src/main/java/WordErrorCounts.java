@@ -0,0 +1,34 @@
+/**
+ * 单词级错误统计（替换/删除/插入个数），源文本视为参考答案，目标文本视为识别结果
+ */
+class WordErrorCounts {
+    int distance;
+    int substitutions;
+    int deletions;
+    int insertions;
+    int referenceLength;   // 参考文本单词数（WER分母）
+
+    public WordErrorCounts(int substitutions, int deletions, int insertions, int referenceLength) {
+        this.substitutions = substitutions;
+        this.deletions = deletions;
+        this.insertions = insertions;
+        this.referenceLength = referenceLength;
+        this.distance = substitutions + deletions + insertions;
+    }
+
+    /**
+     * 词错误率；参考文本为空时，识别结果也为空记为0，否则记为1
+     */
+    public double wer() {
+        if (referenceLength == 0) {
+            return distance == 0 ? 0.0 : 1.0;
+        }
+        return (double) distance / referenceLength;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WER=%.4f (S=%d, D=%d, I=%d, N=%d)",
+                wer(), substitutions, deletions, insertions, referenceLength);
+    }
+}
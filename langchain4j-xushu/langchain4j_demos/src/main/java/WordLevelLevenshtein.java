@@ -45,6 +45,10 @@ class WordEditResult {
     int distance;
     List<WordEditOperation> operations;
     List<String> transformedText;
+    // 带 maxDistance 计算且距离超过上限时为 true，此时 distance = maxDistance + 1 且没有操作序列
+    boolean exceedsThreshold;
+    // 游程编码的编辑脚本；operations 和 transformedText 是它的只读视图，访问时才生成对象
+    EditScript script;
 
     public WordEditResult(int distance, List<WordEditOperation> operations, List<String> transformedText) {
         this.distance = distance;
@@ -52,7 +56,25 @@ class WordEditResult {
         this.transformedText = transformedText;
     }
 
+    WordEditResult(int distance, EditScript script) {
+        this(distance, script.operations(), script.transformedText());
+        this.script = script;
+    }
+
+    /**
+     * 距离超过 maxDistance 时的结果
+     */
+    static WordEditResult exceeding(int maxDistance) {
+        WordEditResult result = new WordEditResult(maxDistance + 1, new ArrayList<>(), new ArrayList<>());
+        result.exceedsThreshold = true;
+        return result;
+    }
+
     public void printResult() {
+        if (exceedsThreshold) {
+            System.out.println("单词编辑距离超过上限: " + (distance - 1));
+            return;
+        }
         System.out.println("单词编辑距离: " + distance);
         System.out.println("\n操作序列:");
         for (int i = 0; i < operations.size(); i++) {
@@ -70,16 +92,33 @@ class WordEditResult {
 
 public class WordLevelLevenshtein {
 
+    // DP表单元格数超过该值时自动改用线性内存的分治对齐（默认约两张32MB的表）
+    private static volatile long linearMemoryThreshold =
+            Long.getLong("wer.linearMemoryThreshold", 4_000_000L);
+
+    public static long getLinearMemoryThreshold() {
+        return linearMemoryThreshold;
+    }
+
     /**
-     * 将文本分割成单词列表（支持自定义分隔符）
+     * 设置切换到线性内存对齐的DP单元格数阈值
      */
-    public static List<String> splitIntoWords(String text) {
-        if (text == null || text.trim().isEmpty()) {
-            return new ArrayList<>();
+    public static void setLinearMemoryThreshold(long cells) {
+        if (cells < 0) {
+            throw new IllegalArgumentException("cells must be >= 0");
         }
-        // 按空格、标点等分割单词
-        String[] words = text.split("\\s+");
-        return new ArrayList<>(Arrays.asList(words));
+        linearMemoryThreshold = cells;
+    }
+
+    /**
+     * 将文本按空白分割成单词列表；需要大小写、标点、中文切分等规范化时使用 TextNormalizer
+     */
+    public static List<String> splitIntoWords(String text) {
+        return TextNormalizer.WHITESPACE.tokens(text);
+    }
+
+    public static List<String> splitIntoWords(String text, TextNormalizer normalizer) {
+        return normalizer.tokens(text);
     }
 
     /**
@@ -94,132 +133,100 @@ public class WordLevelLevenshtein {
 
     /**
      * 核心算法：处理单词列表
+     * 规模超过 linearMemoryThreshold 时自动使用线性内存模式，结果完全相同
      */
     public static WordEditResult wordLevelLevenshtein(List<String> sourceWords, List<String> targetWords) {
-        int m = sourceWords.size();
-        int n = targetWords.size();
-
-        // DP表：存储距离
-        int[][] dp = new int[m + 1][n + 1];
+        return wordLevelLevenshtein(sourceWords, targetWords, new TokenVocabulary());
+    }
 
-        // 方向表：用于回溯操作路径
-        // 0: 从左上角来（匹配或替换）
-        // 1: 从左边来（插入）
-        // 2: 从上边来（删除）
-        int[][] direction = new int[m + 1][n + 1];
+    /**
+     * 使用共享词表（例如整个语料共用一个）的版本
+     */
+    public static WordEditResult wordLevelLevenshtein(
+            List<String> sourceWords, List<String> targetWords, TokenVocabulary vocabulary) {
+        return wordLevelLevenshtein(vocabulary.encode(sourceWords), vocabulary.encode(targetWords), vocabulary);
+    }
 
-        // 初始化边界
-        for (int i = 0; i <= m; i++) {
-            dp[i][0] = i;
-            direction[i][0] = 2; // 从上边来（删除）
+    /**
+     * 已编码为词表ID的版本
+     */
+    public static WordEditResult wordLevelLevenshtein(int[] sourceIds, int[] targetIds, TokenVocabulary vocabulary) {
+        if ((long) (sourceIds.length + 1) * (targetIds.length + 1) > linearMemoryThreshold) {
+            return HirschbergWordAligner.align(sourceIds, targetIds, vocabulary);
         }
-        for (int j = 0; j <= n; j++) {
-            dp[0][j] = j;
-            direction[0][j] = 1; // 从左边来（插入）
+        return WordAlignmentCore.levenshtein(sourceIds, targetIds, vocabulary);
+    }
+
+    /**
+     * 带上限的版本：距离超过 maxDistance 时尽早返回 exceedsThreshold 的结果，
+     * 只计算宽度为 2*maxDistance+1 的对角带，未超过上限时结果与不带上限的版本相同
+     */
+    public static WordEditResult wordLevelLevenshtein(
+            List<String> sourceWords, List<String> targetWords, int maxDistance) {
+        checkMaxDistance(maxDistance);
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        int[] source = vocabulary.encode(sourceWords);
+        int[] target = vocabulary.encode(targetWords);
+        if (maxDistance >= Math.max(source.length, target.length)) {
+            return wordLevelLevenshtein(source, target, vocabulary);
         }
+        return BandedWordAligner.align(source, target, vocabulary,
+                WordAlignmentCore.exact(source, target), maxDistance);
+    }
 
-        // 填充DP表和方向表
-        for (int i = 1; i <= m; i++) {
-            for (int j = 1; j <= n; j++) {
-                if (sourceWords.get(i - 1).equals(targetWords.get(j - 1))) {
-                    // 单词相同，匹配操作
-                    dp[i][j] = dp[i - 1][j - 1];
-                    direction[i][j] = 0; // 从左上角来（匹配）
-                } else {
-                    // 计算三种操作的代价
-                    int insertCost = dp[i][j - 1] + 1;
-                    int deleteCost = dp[i - 1][j] + 1;
-                    int substituteCost = dp[i - 1][j - 1] + 1;
-
-                    // 取最小代价
-                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
-                    dp[i][j] = minCost;
-
-                    // 记录操作方向
-                    if (minCost == substituteCost) {
-                        direction[i][j] = 0; // 替换
-                    } else if (minCost == insertCost) {
-                        direction[i][j] = 1; // 插入
-                    } else {
-                        direction[i][j] = 2; // 删除
-                    }
-                }
-            }
+    /**
+     * 带上限的只求距离版本，超过上限时返回 maxDistance + 1
+     */
+    public static int wordLevelDistance(List<String> sourceWords, List<String> targetWords, int maxDistance) {
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        return wordLevelDistance(vocabulary.encode(sourceWords), vocabulary.encode(targetWords), maxDistance);
+    }
+
+    public static int wordLevelDistance(int[] sourceIds, int[] targetIds, int maxDistance) {
+        checkMaxDistance(maxDistance);
+        if (maxDistance >= Math.max(sourceIds.length, targetIds.length)) {
+            return wordLevelDistance(sourceIds, targetIds);
         }
+        return BandedWordAligner.distance(sourceIds, targetIds, maxDistance);
+    }
 
-        // 回溯获取操作序列
-        List<WordEditOperation> operations = new ArrayList<>();
-        List<String> currentText = new ArrayList<>(sourceWords);
-
-        int i = m, j = n;
-
-        while (i > 0 || j > 0) {
-            int dir = direction[i][j];
-
-            switch (dir) {
-                case 0: // 从左上角来（匹配或替换）
-                    if (i > 0 && j > 0) {
-                        if (sourceWords.get(i - 1).equals(targetWords.get(j - 1))) {
-                            // 匹配操作
-                            operations.add(0, new WordEditOperation(
-                                    WordOperationType.MATCH,
-                                    sourceWords.get(i - 1),
-                                    targetWords.get(j - 1),
-                                    i - 1
-                            ));
-                        } else {
-                            // 替换操作
-                            operations.add(0, new WordEditOperation(
-                                    WordOperationType.SUBSTITUTE,
-                                    sourceWords.get(i - 1),
-                                    targetWords.get(j - 1),
-                                    i - 1
-                            ));
-                            // 在实际文本中替换单词
-                            if (i - 1 < currentText.size()) {
-                                currentText.set(i - 1, targetWords.get(j - 1));
-                            }
-                        }
-                        i--;
-                        j--;
-                    }
-                    break;
-
-                case 1: // 从左边来（插入）
-                    if (j > 0) {
-                        operations.add(0, new WordEditOperation(
-                                WordOperationType.INSERT,
-                                null, // 源单词为空
-                                targetWords.get(j - 1),
-                                i // 在当前i位置插入
-                        ));
-                        // 在实际文本中插入单词
-                        if (i <= currentText.size()) {
-                            currentText.add(i, targetWords.get(j - 1));
-                        }
-                        j--;
-                    }
-                    break;
-
-                case 2: // 从上边来（删除）
-                    if (i > 0) {
-                        operations.add(0, new WordEditOperation(
-                                WordOperationType.DELETE,
-                                sourceWords.get(i - 1),
-                                null, // 目标单词为空
-                                i - 1
-                        ));
-                        // 在实际文本中删除单词
-                        if (i - 1 < currentText.size()) {
-                            currentText.remove(i - 1);
-                        }
-                        i--;
-                    }
-                    break;
-            }
+    private static void checkMaxDistance(int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must be >= 0");
         }
+    }
+
+    /**
+     * 只求单词编辑距离（位并行算法，不生成操作序列），适合批量打分
+     */
+    public static int wordLevelDistance(List<String> sourceWords, List<String> targetWords) {
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        return wordLevelDistance(vocabulary.encode(sourceWords), vocabulary.encode(targetWords));
+    }
 
-        return new WordEditResult(dp[m][n], operations, currentText);
+    public static int wordLevelDistance(int[] sourceIds, int[] targetIds) {
+        return BitParallelWordDistance.distance(sourceIds, targetIds);
+    }
+
+    /**
+     * 只统计替换/删除/插入个数（线性内存，不生成操作序列），与完整结果的计数一致
+     */
+    public static WordErrorCounts wordErrorCounts(List<String> sourceWords, List<String> targetWords) {
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        return wordErrorCounts(vocabulary.encode(sourceWords), vocabulary.encode(targetWords));
+    }
+
+    public static WordErrorCounts wordErrorCounts(int[] sourceIds, int[] targetIds) {
+        return WordAlignmentCore.countErrors(sourceIds, targetIds);
+    }
+
+    /**
+     * 线性内存模式：Hirschberg分治，只用 O(m+n) 级别的内存，适合小时级长录音
+     */
+    public static WordEditResult wordLevelLevenshteinLinearMemory(List<String> sourceWords, List<String> targetWords) {
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        return HirschbergWordAligner.align(
+                vocabulary.encode(sourceWords), vocabulary.encode(targetWords), vocabulary);
     }
 
     /**
@@ -236,198 +243,46 @@ public class WordLevelLevenshtein {
 
     /**
      * 考虑单词相似度的版本（如拼写错误、同义词等）
+     * 相似度只在DP访问到的单元格上按需计算，并通过共享缓存跨调用复用
      */
     public static WordEditResult wordLevelLevenshteinWithSimilarity(
             List<String> sourceWords, List<String> targetWords, double similarityThreshold) {
-
-        int m = sourceWords.size();
-        int n = targetWords.size();
-
-        int[][] dp = new int[m + 1][n + 1];
-        int[][] direction = new int[m + 1][n + 1];
-
-        // 初始化
-        for (int i = 0; i <= m; i++) {
-            dp[i][0] = i;
-            direction[i][0] = 2;
-        }
-        for (int j = 0; j <= n; j++) {
-            dp[0][j] = j;
-            direction[0][j] = 1;
-        }
-
-        // 计算单词相似度矩阵
-        double[][] similarity = new double[m][n];
-        for (int i = 0; i < m; i++) {
-            for (int j = 0; j < n; j++) {
-                similarity[i][j] = calculateWordSimilarity(
-                        sourceWords.get(i), targetWords.get(j)
-                );
-            }
-        }
-
-        // 填充DP表
-        for (int i = 1; i <= m; i++) {
-            for (int j = 1; j <= n; j++) {
-                double sim = similarity[i - 1][j - 1];
-
-                if (sim >= similarityThreshold) {
-                    // 相似度足够高，视为匹配
-                    dp[i][j] = dp[i - 1][j - 1];
-                    direction[i][j] = 0; // 匹配
-                } else {
-                    // 计算三种操作的代价
-                    int insertCost = dp[i][j - 1] + 1;
-                    int deleteCost = dp[i - 1][j] + 1;
-                    // 替换代价考虑相似度
-                    int substituteCost = dp[i - 1][j - 1] +
-                            (sim > 0.5 ? 0 : 1); // 如果相似度较高，替换代价小
-
-                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
-                    dp[i][j] = minCost;
-
-                    if (minCost == substituteCost) {
-                        direction[i][j] = 0; // 替换
-                    } else if (minCost == insertCost) {
-                        direction[i][j] = 1; // 插入
-                    } else {
-                        direction[i][j] = 2; // 删除
-                    }
-                }
-            }
-        }
-
-        // 回溯获取操作序列
-        return buildResultWithBacktracking(dp, direction, sourceWords, targetWords, similarity, similarityThreshold);
+        return wordLevelLevenshteinWithSimilarity(sourceWords, targetWords, similarityThreshold,
+                WordSimilarityCache.shared());
     }
 
-    /**
-     * 计算两个单词的相似度（简单实现：基于字符的Levenshtein距离）
-     */
-    private static double calculateWordSimilarity(String word1, String word2) {
-        if (word1.equalsIgnoreCase(word2)) {
-            return 1.0;
-        }
-
-        // 计算字符级别的编辑距离
-        int maxLen = Math.max(word1.length(), word2.length());
-        if (maxLen == 0) return 1.0;
-
-        int editDistance = calculateCharLevenshtein(word1.toLowerCase(), word2.toLowerCase());
-        return 1.0 - (double) editDistance / maxLen;
+    public static WordEditResult wordLevelLevenshteinWithSimilarity(
+            List<String> sourceWords, List<String> targetWords, double similarityThreshold,
+            TokenVocabulary vocabulary) {
+        return wordLevelLevenshteinWithSimilarity(sourceWords, targetWords, similarityThreshold,
+                new WordSimilarityCache(vocabulary, 1024));
     }
 
-    /**
-     * 字符级别的Levenshtein距离计算
-     */
-    private static int calculateCharLevenshtein(String a, String b) {
-        int m = a.length();
-        int n = b.length();
-
-        int[] prev = new int[n + 1];
-        for (int j = 0; j <= n; j++) prev[j] = j;
-
-        for (int i = 1; i <= m; i++) {
-            int[] curr = new int[n + 1];
-            curr[0] = i;
-
-            for (int j = 1; j <= n; j++) {
-                if (a.charAt(i - 1) == b.charAt(j - 1)) {
-                    curr[j] = prev[j - 1];
-                } else {
-                    curr[j] = Math.min(
-                            Math.min(prev[j] + 1, curr[j - 1] + 1),
-                            prev[j - 1] + 1
-                    );
-                }
-            }
-            prev = curr;
-        }
-
-        return prev[n];
+    public static WordEditResult wordLevelLevenshteinWithSimilarity(
+            List<String> sourceWords, List<String> targetWords, double similarityThreshold,
+            WordSimilarityCache cache) {
+        WordSimilarityCache.Scope scope = cache.open();
+        int[] source = scope.vocabulary.encode(sourceWords);
+        int[] target = scope.vocabulary.encode(targetWords);
+        return WordAlignmentCore.align(source, target, scope.vocabulary,
+                scope.diagonalCost(source, target, similarityThreshold));
     }
 
     /**
-     * 构建结果（带相似度考虑）
+     * 带相似度且带上限的版本，只计算对角带内单元格的相似度
      */
-    private static WordEditResult buildResultWithBacktracking(
-            int[][] dp, int[][] direction,
-            List<String> sourceWords, List<String> targetWords,
-            double[][] similarity, double threshold) {
-
-        int m = sourceWords.size();
-        int n = targetWords.size();
-
-        List<WordEditOperation> operations = new ArrayList<>();
-        List<String> currentText = new ArrayList<>(sourceWords);
-
-        int i = m, j = n;
-
-        while (i > 0 || j > 0) {
-            int dir = direction[i][j];
-
-            switch (dir) {
-                case 0: // 匹配或替换
-                    if (i > 0 && j > 0) {
-                        double sim = similarity[i - 1][j - 1];
-                        if (sim >= threshold) {
-                            // 视为匹配（即使单词不完全相同）
-                            operations.add(0, new WordEditOperation(
-                                    WordOperationType.MATCH,
-                                    sourceWords.get(i - 1),
-                                    targetWords.get(j - 1),
-                                    i - 1
-                            ));
-                        } else {
-                            // 替换
-                            operations.add(0, new WordEditOperation(
-                                    WordOperationType.SUBSTITUTE,
-                                    sourceWords.get(i - 1),
-                                    targetWords.get(j - 1),
-                                    i - 1
-                            ));
-                            if (i - 1 < currentText.size()) {
-                                currentText.set(i - 1, targetWords.get(j - 1));
-                            }
-                        }
-                        i--;
-                        j--;
-                    }
-                    break;
-
-                case 1: // 插入
-                    if (j > 0) {
-                        operations.add(0, new WordEditOperation(
-                                WordOperationType.INSERT,
-                                null,
-                                targetWords.get(j - 1),
-                                i
-                        ));
-                        if (i <= currentText.size()) {
-                            currentText.add(i, targetWords.get(j - 1));
-                        }
-                        j--;
-                    }
-                    break;
-
-                case 2: // 删除
-                    if (i > 0) {
-                        operations.add(0, new WordEditOperation(
-                                WordOperationType.DELETE,
-                                sourceWords.get(i - 1),
-                                null,
-                                i - 1
-                        ));
-                        if (i - 1 < currentText.size()) {
-                            currentText.remove(i - 1);
-                        }
-                        i--;
-                    }
-                    break;
-            }
+    public static WordEditResult wordLevelLevenshteinWithSimilarity(
+            List<String> sourceWords, List<String> targetWords, double similarityThreshold, int maxDistance) {
+        checkMaxDistance(maxDistance);
+        if (maxDistance >= Math.max(sourceWords.size(), targetWords.size())) {
+            return wordLevelLevenshteinWithSimilarity(sourceWords, targetWords, similarityThreshold);
         }
 
-        return new WordEditResult(dp[m][n], operations, currentText);
+        WordSimilarityCache.Scope scope = WordSimilarityCache.shared().open();
+        int[] source = scope.vocabulary.encode(sourceWords);
+        int[] target = scope.vocabulary.encode(targetWords);
+        return BandedWordAligner.align(source, target, scope.vocabulary,
+                scope.diagonalCost(source, target, similarityThreshold), maxDistance);
     }
 
     /**
@@ -486,6 +341,16 @@ public class WordLevelLevenshtein {
     }
 }
 
+// 带权重编辑结果：cost 为精确的加权代价（可为小数），distance 为其四舍五入值
+class WeightedWordEditResult extends WordEditResult {
+    double cost;
+
+    WeightedWordEditResult(double cost, EditScript script) {
+        super((int) Math.round(cost), script);
+        this.cost = cost;
+    }
+}
+
 class WeightedWordLevenshtein {
 
     /**
@@ -496,140 +361,95 @@ class WeightedWordLevenshtein {
             String sourceText, String targetText,
             Map<String, Integer> wordWeights,
             int insertWeight, int deleteWeight, int substituteWeight) {
+        return weightedWordLevenshtein(sourceText, targetText, wordWeights,
+                insertWeight, deleteWeight, substituteWeight, new TokenVocabulary());
+    }
 
-        List<String> sourceWords = splitIntoWords(sourceText);
-        List<String> targetWords = splitIntoWords(targetText);
+    public static WordEditResult weightedWordLevenshtein(
+            String sourceText, String targetText,
+            Map<String, Integer> wordWeights,
+            int insertWeight, int deleteWeight, int substituteWeight,
+            TokenVocabulary vocabulary) {
+        WeightTable table = new WeightTable(wordWeights, insertWeight, deleteWeight, substituteWeight);
+        return weightedWordLevenshtein(sourceText, targetText, table, vocabulary);
+    }
 
-        int m = sourceWords.size();
-        int n = targetWords.size();
+    /**
+     * 使用预先构建的权重表（可在多次比较间共享）
+     */
+    public static WeightedWordEditResult weightedWordLevenshtein(
+            String sourceText, String targetText, WeightTable table) {
+        return weightedWordLevenshtein(sourceText, targetText, table, new TokenVocabulary());
+    }
 
-        int[][] dp = new int[m + 1][n + 1];
-        int[][] direction = new int[m + 1][n + 1];
+    public static WeightedWordEditResult weightedWordLevenshtein(
+            String sourceText, String targetText, WeightTable table, TokenVocabulary vocabulary) {
+        int[] source = vocabulary.encode(splitIntoWords(sourceText));
+        int[] target = vocabulary.encode(splitIntoWords(targetText));
+        return weightedWordLevenshtein(source, target, table, vocabulary);
+    }
+
+    public static WeightedWordEditResult weightedWordLevenshtein(
+            int[] source, int[] target, WeightTable table, TokenVocabulary vocabulary) {
+        int m = source.length;
+        int n = target.length;
+
+        // DP之前逐位置解析权重：删除、插入代价向量，以及替换用的原始权重
+        double[] sourceWeight = table.weights(source, vocabulary);
+        double[] targetWeight = table.weights(target, vocabulary);
+        double[] deleteCost = new double[m];
+        double[] insertCost = new double[n];
+        for (int i = 0; i < m; i++) deleteCost[i] = table.deleteCost * sourceWeight[i];
+        for (int j = 0; j < n; j++) insertCost[j] = table.insertCost * targetWeight[j];
+        double substituteWeight = table.substituteCost;
+
+        byte[][] direction = WordAlignmentCore.newDirectionTable(m, n);
 
         // 初始化边界
-        for (int i = 0; i <= m; i++) {
-            dp[i][0] = i * deleteWeight;
-            direction[i][0] = 2;
-        }
+        double[] prev = new double[n + 1];
+        double[] curr = new double[n + 1];
         for (int j = 0; j <= n; j++) {
-            dp[0][j] = j * insertWeight;
-            direction[0][j] = 1;
+            prev[j] = j * table.insertCost;
         }
 
-        // 填充DP表
+        // 填充DP表（滚动两行）
         for (int i = 1; i <= m; i++) {
+            int srcId = source[i - 1];
+            double srcWeight = sourceWeight[i - 1];
+            double delete = deleteCost[i - 1];
+            byte[] dirRow = direction[i];
+            curr[0] = i * table.deleteCost;
             for (int j = 1; j <= n; j++) {
-                String srcWord = sourceWords.get(i - 1);
-                String tgtWord = targetWords.get(j - 1);
-
-                if (srcWord.equals(tgtWord)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                    direction[i][j] = 0;
+                if (srcId == target[j - 1]) {
+                    curr[j] = prev[j - 1];
+                    dirRow[j] = WordAlignmentCore.MATCH;
                 } else {
-                    // 获取单词权重
-                    int srcWeight = wordWeights.getOrDefault(srcWord.toLowerCase(), 1);
-                    int tgtWeight = wordWeights.getOrDefault(tgtWord.toLowerCase(), 1);
-
                     // 加权代价
-                    int insertCost = dp[i][j - 1] + insertWeight * tgtWeight;
-                    int deleteCost = dp[i - 1][j] + deleteWeight * srcWeight;
-                    int substituteCost = dp[i - 1][j - 1] + substituteWeight * Math.max(srcWeight, tgtWeight);
+                    double insert = curr[j - 1] + insertCost[j - 1];
+                    double deleteTotal = prev[j] + delete;
+                    double substitute = prev[j - 1] + substituteWeight * Math.max(srcWeight, targetWeight[j - 1]);
 
-                    int minCost = Math.min(Math.min(insertCost, deleteCost), substituteCost);
-                    dp[i][j] = minCost;
+                    double minCost = Math.min(Math.min(insert, deleteTotal), substitute);
+                    curr[j] = minCost;
 
-                    if (minCost == substituteCost) {
-                        direction[i][j] = 0;
-                    } else if (minCost == insertCost) {
-                        direction[i][j] = 1;
+                    if (minCost == substitute) {
+                        dirRow[j] = WordAlignmentCore.SUBSTITUTE;
+                    } else if (minCost == insert) {
+                        dirRow[j] = WordAlignmentCore.INSERT;
                     } else {
-                        direction[i][j] = 2;
+                        dirRow[j] = WordAlignmentCore.DELETE;
                     }
                 }
             }
+            double[] tmp = prev; prev = curr; curr = tmp;
         }
 
         // 回溯构建结果
-        return buildWeightedResult(dp, direction, sourceWords, targetWords);
+        return new WeightedWordEditResult(prev[n],
+                WordAlignmentCore.backtrackScript(direction, source, target, vocabulary));
     }
 
     private static List<String> splitIntoWords(String text) {
         return WordLevelLevenshtein.splitIntoWords(text);
     }
-
-    private static WordEditResult buildWeightedResult(
-            int[][] dp, int[][] direction,
-            List<String> sourceWords, List<String> targetWords) {
-
-        int m = sourceWords.size();
-        int n = targetWords.size();
-
-        List<WordEditOperation> operations = new ArrayList<>();
-        List<String> currentText = new ArrayList<>(sourceWords);
-
-        int i = m, j = n;
-
-        while (i > 0 || j > 0) {
-            int dir = direction[i][j];
-
-            switch (dir) {
-                case 0:
-                    if (i > 0 && j > 0) {
-                        if (sourceWords.get(i - 1).equals(targetWords.get(j - 1))) {
-                            operations.add(0, new WordEditOperation(
-                                    WordOperationType.MATCH,
-                                    sourceWords.get(i - 1),
-                                    targetWords.get(j - 1),
-                                    i - 1
-                            ));
-                        } else {
-                            operations.add(0, new WordEditOperation(
-                                    WordOperationType.SUBSTITUTE,
-                                    sourceWords.get(i - 1),
-                                    targetWords.get(j - 1),
-                                    i - 1
-                            ));
-                            if (i - 1 < currentText.size()) {
-                                currentText.set(i - 1, targetWords.get(j - 1));
-                            }
-                        }
-                        i--;
-                        j--;
-                    }
-                    break;
-
-                case 1:
-                    if (j > 0) {
-                        operations.add(0, new WordEditOperation(
-                                WordOperationType.INSERT,
-                                null,
-                                targetWords.get(j - 1),
-                                i
-                        ));
-                        if (i <= currentText.size()) {
-                            currentText.add(i, targetWords.get(j - 1));
-                        }
-                        j--;
-                    }
-                    break;
-
-                case 2:
-                    if (i > 0) {
-                        operations.add(0, new WordEditOperation(
-                                WordOperationType.DELETE,
-                                sourceWords.get(i - 1),
-                                null,
-                                i - 1
-                        ));
-                        if (i - 1 < currentText.size()) {
-                            currentText.remove(i - 1);
-                        }
-                        i--;
-                    }
-                    break;
-            }
-        }
-
-        return new WordEditResult(dp[m][n], operations, currentText);
-    }
 }
@@ -0,0 +1,168 @@
+/**
+ * 单词相似度缓存：按 (源单词ID, 目标单词ID) 缓存字符级相似度，跨多次调用复用。
+ * 缓存是固定容量的直接映射表（冲突时覆盖），内存有上界；
+ * 共享实例的词表过大时整体换新，正在进行的调用继续使用旧的快照
+ */
+class WordSimilarityCache {
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int DEFAULT_MAX_VOCABULARY = 1 << 20;
+
+    private static final WordSimilarityCache SHARED =
+            new WordSimilarityCache(DEFAULT_CAPACITY, DEFAULT_MAX_VOCABULARY);
+
+    /**
+     * 词表和缓存表的一份快照，一次打分调用只使用同一个快照
+     */
+    static final class Scope {
+        final TokenVocabulary vocabulary;
+        private final Entry[] entries;
+        private final int mask;
+
+        Scope(TokenVocabulary vocabulary, int capacity) {
+            this.vocabulary = vocabulary;
+            int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            this.entries = new Entry[size];
+            this.mask = size - 1;
+        }
+
+        /**
+         * 生成相似度打分用的对角线代价：相似度 >= 阈值视为匹配，> 0.5 时替换代价为0，否则为1。
+         * 每个位置的小写形式只计算一次，相似度只在DP真正访问到的单元格上按需计算
+         */
+        WordAlignmentCore.DiagonalCost diagonalCost(int[] source, int[] target, double threshold) {
+            String[] sourceWords = tokens(source);
+            String[] targetWords = tokens(target);
+            String[] sourceLower = lowerCase(sourceWords);
+            String[] targetLower = lowerCase(targetWords);
+            int[] sourceLength = codePointLengths(sourceWords);
+            int[] targetLength = codePointLengths(targetWords);
+            int[] sourceLowerLength = codePointLengths(sourceLower);
+            int[] targetLowerLength = codePointLengths(targetLower);
+
+            return new WordAlignmentCore.DiagonalCost() {
+                @Override
+                int cost(int i, int j) {
+                    int a = source[i];
+                    int b = target[j];
+                    if (a == b) {
+                        return threshold <= 1.0 ? -1 : 0;
+                    }
+
+                    long key = ((long) a << 32) | (b & 0xFFFFFFFFL);
+                    int slot = slot(key);
+                    Entry entry = entries[slot];
+                    double sim;
+                    if (entry != null && entry.key == key) {
+                        sim = entry.similarity;
+                    } else if (sourceWords[i].equalsIgnoreCase(targetWords[j])) {
+                        sim = 1.0;
+                    } else {
+                        int maxLen = Math.max(sourceLength[i], targetLength[j]);
+                        if (maxLen == 0) {
+                            sim = 1.0;
+                        } else {
+                            // 编辑距离至少为长度差：相似度上界既达不到阈值也不超过0.5时，直接按代价1处理
+                            double upperBound = 1.0 - (double) Math.abs(sourceLowerLength[i] - targetLowerLength[j]) / maxLen;
+                            if (upperBound < threshold && upperBound <= 0.5) {
+                                return 1;
+                            }
+                            int editDistance = CharErrorRate.distance(sourceLower[i], targetLower[j], false);
+                            sim = 1.0 - (double) editDistance / maxLen;
+                        }
+                        entries[slot] = new Entry(key, sim);
+                    }
+
+                    if (sim >= threshold) {
+                        return -1;
+                    }
+                    return sim > 0.5 ? 0 : 1;
+                }
+            };
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & mask;
+        }
+
+        private String[] tokens(int[] ids) {
+            String[] words = new String[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                words[i] = vocabulary.token(ids[i]);
+            }
+            return words;
+        }
+    }
+
+    /**
+     * 不可变的缓存项，引用写入是原子的，多线程读写不会读到不一致的键值
+     */
+    private static final class Entry {
+        final long key;
+        final double similarity;
+
+        Entry(long key, double similarity) {
+            this.key = key;
+            this.similarity = similarity;
+        }
+    }
+
+    private final int capacity;
+    private final int maxVocabulary;
+    private volatile Scope scope;
+
+    /**
+     * 自带词表的缓存，词表超过 maxVocabulary 时整体换新
+     */
+    WordSimilarityCache(int capacity, int maxVocabulary) {
+        this.capacity = capacity;
+        this.maxVocabulary = maxVocabulary;
+        this.scope = new Scope(new TokenVocabulary(), capacity);
+    }
+
+    /**
+     * 使用调用方提供的词表（不会换新）
+     */
+    WordSimilarityCache(TokenVocabulary vocabulary, int capacity) {
+        this.capacity = capacity;
+        this.maxVocabulary = Integer.MAX_VALUE;
+        this.scope = new Scope(vocabulary, capacity);
+    }
+
+    static WordSimilarityCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * 获取当前快照
+     */
+    Scope open() {
+        Scope current = scope;
+        if (current.vocabulary.size() > maxVocabulary) {
+            synchronized (this) {
+                if (scope == current) {
+                    scope = new Scope(new TokenVocabulary(), capacity);
+                }
+                current = scope;
+            }
+        }
+        return current;
+    }
+
+    private static String[] lowerCase(String[] words) {
+        String[] lower = new String[words.length];
+        for (int i = 0; i < words.length; i++) {
+            lower[i] = words[i].toLowerCase();
+        }
+        return lower;
+    }
+
+    private static int[] codePointLengths(String[] words) {
+        int[] lengths = new int[words.length];
+        for (int i = 0; i < words.length; i++) {
+            lengths[i] = words[i].codePointCount(0, words[i].length());
+        }
+        return lengths;
+    }
+}
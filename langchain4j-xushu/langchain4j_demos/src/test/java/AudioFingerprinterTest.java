@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AudioFingerprinterTest {
+
+    private static final int RATE = 24000;
+
+    /**
+     * 合成旋律：每100ms一个音，由两个随机频率的正弦叠加
+     */
+    static double[] melody(long seed, int millis) {
+        Random random = new Random(seed);
+        double[] signal = new double[RATE * millis / 1000];
+        int noteSamples = RATE / 10;
+        double f1 = 0, f2 = 0;
+        for (int k = 0; k < signal.length; k++) {
+            if (k % noteSamples == 0) {
+                f1 = 300 + random.nextDouble() * 3200;
+                f2 = 300 + random.nextDouble() * 3200;
+            }
+            signal[k] = 0.3 * Math.sin(2 * Math.PI * f1 * k / RATE) + 0.2 * Math.sin(2 * Math.PI * f2 * k / RATE);
+        }
+        return signal;
+    }
+
+    static Path write(Path file, double[] signal, int skip, double gain, double noise, long noiseSeed) throws IOException {
+        Random random = new Random(noiseSeed);
+        ByteBuffer bytes = ByteBuffer.allocate((signal.length - skip) * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int k = skip; k < signal.length; k++) {
+            double value = signal[k] * gain + noise * random.nextGaussian();
+            bytes.putShort((short) Math.max(-32768, Math.min(32767, Math.round(value * 32767))));
+        }
+        Files.write(file, bytes.array());
+        return file;
+    }
+
+    @Test
+    public void sha256MatchesWholeFileDigest(@TempDir Path directory) throws Exception {
+        Path file = write(directory.resolve("a.pcm"), melody(1, 2000), 0, 1.0, 0, 0);
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+        assertEquals(expected, AudioFingerprinter.sha256(file));
+    }
+
+    @Test
+    public void detectsExactAndNearDuplicates(@TempDir Path directory) throws IOException {
+        double[] original = melody(1, 10000);
+        Path a = write(directory.resolve("a.pcm"), original, 0, 1.0, 0, 0);
+        Path copy = directory.resolve("copy.pcm");
+        Files.copy(a, copy);
+        // 截掉开头1.3秒多一点（不是帧移的整数倍）、音量降低并加噪，模拟重新剪辑和编码
+        Path trimmed = write(directory.resolve("trimmed.pcm"), original, RATE * 13 / 10 + 37, 0.7, 0.02, 5);
+        Path other = write(directory.resolve("other.pcm"), melody(2, 10000), 0, 1.0, 0, 0);
+
+        List<AudioFingerprint> fingerprints = AudioFingerprinter.fingerprintAll(List.of(a, copy, trimmed, other),
+                new ForkJoinPool(2));
+        assertEquals(trimmed, fingerprints.get(2).file);
+
+        DuplicateIndex index = new DuplicateIndex();
+        assertEquals(DuplicateIndex.Kind.NEW, index.addIfNew("a", fingerprints.get(0)).kind);
+
+        DuplicateIndex.Check exact = index.addIfNew("copy", fingerprints.get(1));
+        assertEquals(DuplicateIndex.Kind.EXACT, exact.kind);
+        assertEquals("a", exact.sampleId);
+        assertTrue(index.seen(fingerprints.get(1).sha256));
+
+        DuplicateIndex.Check near = index.addIfNew("trimmed", fingerprints.get(2));
+        assertEquals(DuplicateIndex.Kind.NEAR, near.kind, near.toString());
+        assertEquals("a", near.sampleId);
+        assertTrue(Math.abs(near.offsetMillis - 1300) <= 2 * AudioFingerprinter.HOP_MILLIS, near.toString());
+
+        DuplicateIndex.Check fresh = index.addIfNew("other", fingerprints.get(3));
+        assertEquals(DuplicateIndex.Kind.NEW, fresh.kind, fresh.toString());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,203 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AugmentationTest {
+
+    private static final int RATE = 24000;
+
+    /**
+     * 若干正弦叠加（各幅度按满量程的比例），长度 millis
+     */
+    private static PcmAudio tones(Path directory, int millis, double[] hz, double[] amplitude) throws IOException {
+        int frames = RATE * millis / 1000;
+        ByteBuffer bytes = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int k = 0; k < frames; k++) {
+            double value = 0;
+            for (int t = 0; t < hz.length; t++) value += amplitude[t] * Math.sin(2 * Math.PI * hz[t] * k / RATE);
+            bytes.putShort((short) Math.round(value * 32767));
+        }
+        return PcmAudio.open(Files.write(directory.resolve("tones.pcm"), bytes.array()));
+    }
+
+    private static short[] render(AugmentedAudio audio) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ByteBuffer chunk : audio.render(300)) {
+            byte[] bytes = new byte[chunk.remaining()];
+            chunk.get(bytes);
+            out.writeBytes(bytes);
+        }
+        return toShorts(ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    private static short[] toShorts(ByteBuffer bytes) {
+        short[] samples = new short[bytes.remaining() / 2];
+        bytes.asShortBuffer().get(samples);
+        return samples;
+    }
+
+    /**
+     * 去掉两端过渡段后，按 Goertzel 算法估计 hz 处的幅度（满量程为1）
+     */
+    private static double amplitude(short[] samples, double hz) {
+        int margin = samples.length / 10;
+        int n = samples.length - 2 * margin;
+        double coefficient = 2 * Math.cos(2 * Math.PI * hz / RATE);
+        double s1 = 0, s2 = 0;
+        for (int k = margin; k < margin + n; k++) {
+            double s0 = samples[k] / 32767.0 + coefficient * s1 - s2;
+            s2 = s1;
+            s1 = s0;
+        }
+        return 2 * Math.sqrt(Math.max(0, s1 * s1 + s2 * s2 - coefficient * s1 * s2)) / n;
+    }
+
+    @Test
+    public void mixesNoiseAtTargetSnrDeterministically(@TempDir Path directory) throws IOException {
+        PcmAudio source = tones(directory, 2000, new double[]{440}, new double[]{0.3});
+        Augmentation noisy = Augmentation.builder().snrDb(10).seed(42).build();
+        AugmentedAudio first = new AugmentedAudio(source, noisy, noisy.seedFor("s1"));
+        short[] samples = render(first);
+        assertEquals(source.frames(), samples.length);
+
+        short[] clean = toShorts(source.data());
+        double signal = 0, noise = 0;
+        for (int k = 0; k < clean.length; k++) {
+            signal += (double) clean[k] * clean[k];
+            noise += (double) (samples[k] - clean[k]) * (samples[k] - clean[k]);
+        }
+        double snr = 10 * Math.log10(signal / noise);
+        assertTrue(Math.abs(snr - 10) < 0.2, "snr " + snr);
+
+        // 同一样本重复生成完全相同，不同样本噪声不同
+        assertArrayEquals(samples, render(new AugmentedAudio(source, noisy, noisy.seedFor("s1"))));
+        assertFalse(Arrays.equals(samples, render(new AugmentedAudio(source, noisy, noisy.seedFor("s2")))));
+
+        List<ByteBuffer> chunks = first.render(300);
+        assertThrows(IllegalStateException.class, () -> chunks.get(1));
+    }
+
+    @Test
+    public void changesSpeedAndLimitsBand(@TempDir Path directory) throws IOException {
+        PcmAudio source = tones(directory, 2000, new double[]{100, 1000, 6000}, new double[]{0.2, 0.2, 0.2});
+
+        AugmentedAudio faster = new AugmentedAudio(source, Augmentation.builder().speed(1.25).build(), 0);
+        assertEquals(1600, faster.durationMillis());
+        short[] sped = render(faster);
+        assertEquals(faster.frames(), sped.length);
+        assertTrue(Math.abs(amplitude(sped, 1250) - 0.2) < 0.01, "1250Hz " + amplitude(sped, 1250));
+        assertTrue(amplitude(sped, 1000) < 0.01);
+
+        short[] telephone = render(new AugmentedAudio(source, Augmentation.builder().band(300, 3400).build(), 0));
+        assertTrue(Math.abs(amplitude(telephone, 1000) - 0.2) < 0.02, "1000Hz " + amplitude(telephone, 1000));
+        assertTrue(amplitude(telephone, 100) < 0.02, "100Hz " + amplitude(telephone, 100));
+        assertTrue(amplitude(telephone, 6000) < 0.02, "6000Hz " + amplitude(telephone, 6000));
+    }
+
+    @Test
+    public void vectorMixMatchesScalar() {
+        Random random = new Random(3);
+        int length = 1037;
+        float[] signal = new float[length];
+        float[] noise = new float[length];
+        for (int k = 0; k < length; k++) {
+            signal[k] = (float) (random.nextGaussian() * 12000);
+            noise[k] = (float) random.nextGaussian();
+        }
+        short[] vector = new short[length];
+        short[] scalar = new short[length];
+        // 增益较大，包含饱和的采样
+        VectorMixer.mix(signal, noise, 9000f, vector, length);
+        AugmentedAudio.mixScalar(signal, noise, 9000f, scalar, length);
+        assertArrayEquals(scalar, vector);
+
+        // 平方和逐位一致：满量程采样、跨多个累加块，以及超过 2^53 的总和（按 double 顺序累加会有舍入）
+        ByteBuffer bytes = ByteBuffer.allocate(2 * 20001).order(ByteOrder.LITTLE_ENDIAN);
+        while (bytes.hasRemaining()) bytes.putShort((short) random.nextInt());
+        bytes.flip();
+        assertEquals(AugmentedAudio.sumSquaresScalar(bytes), VectorMixer.sumSquares(bytes));
+        ByteBuffer loud = ByteBuffer.allocate(2 * 9_000_001).order(ByteOrder.LITTLE_ENDIAN);
+        while (loud.hasRemaining()) loud.putShort(random.nextBoolean() ? Short.MIN_VALUE : Short.MAX_VALUE);
+        loud.flip();
+        assertEquals(AugmentedAudio.sumSquaresScalar(loud), VectorMixer.sumSquares(loud));
+    }
+
+    @Test
+    public void writesFilesOnlyWhenCaching(@TempDir Path directory) throws IOException {
+        PcmAudio source = tones(directory, 1000, new double[]{440}, new double[]{0.3});
+        Path file = directory.resolve("tones.pcm");
+        Augmentation augmentation = Augmentation.builder().speed(0.9).band(300, 0).snrDb(5).seed(7).build();
+        long seed = augmentation.seedFor("tones");
+        short[] lazy = render(new AugmentedAudio(source, augmentation, seed));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+
+        Path cacheDirectory = directory.resolve("cache");
+        AugmentationCache cache = new AugmentationCache(cacheDirectory);
+        PcmAudio cached = cache.get(file, source, augmentation, seed);
+        assertArrayEquals(lazy, toShorts(cached.data()));
+        cache.get(file, source, augmentation, seed);
+        assertEquals(1, cache.renders());
+
+        AugmentationCache restarted = new AugmentationCache(cacheDirectory);
+        assertArrayEquals(lazy, toShorts(restarted.get(file, source, augmentation, seed).data()));
+        assertEquals(0, restarted.renders());
+        assertEquals(1, restarted.diskHits());
+    }
+
+    /**
+     * 缓存文件名与默认区域无关（德语区域下小数点是逗号）
+     */
+    @Test
+    public void keyIgnoresDefaultLocale() {
+        Augmentation augmentation = Augmentation.builder().speed(0.9).snrDb(7.5).seed(3).build();
+        Locale original = Locale.getDefault();
+        String key;
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            key = augmentation.key(42);
+            assertEquals("speed=0.90 snr=7.5dB noise=white seed=3", augmentation.toString());
+        } finally {
+            Locale.setDefault(original);
+        }
+        assertEquals(augmentation.key(42), key);
+    }
+
+    /**
+     * 写变体失败时不留下临时文件，之后同一个键可以重试
+     */
+    @Test
+    public void removesTempFileWhenRenderFails(@TempDir Path directory) throws IOException {
+        PcmVariantCache cache = new PcmVariantCache(directory, 4);
+        PcmFormat format = new PcmFormat(16000, 1);
+        assertThrows(IOException.class, () -> cache.get("abcdef", () -> cache.stored("abcdef", format, channel -> {
+            channel.write(ByteBuffer.allocate(320));
+            throw new IOException("disk full");
+        })));
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+        PcmAudio audio = cache.get("abcdef", () -> cache.stored("abcdef", format,
+                channel -> channel.write(ByteBuffer.allocate(320))));
+        assertEquals(160, audio.frames());
+        assertEquals(1, cache.renders());
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BandedWordAlignerTest {
+
+    private static final String[] SIMILAR_WORDS = {"apple", "aple", "apply", "have", "hav", "an", "a", "the", "then"};
+
+    /**
+     * 未超过上限时与不带上限的结果一致，超过时返回 exceedsThreshold
+     */
+    @Test
+    public void boundedMatchesUnbounded() {
+        Random random = new Random(17);
+        for (int round = 0; round < 400; round++) {
+            List<String> source = WordLevelLevenshteinTest.randomWords(random, random.nextInt(60), 1 + random.nextInt(5));
+            List<String> target = mutate(random, source, random.nextInt(12));
+            int maxDistance = random.nextInt(10);
+
+            WordEditResult full = WordLevelLevenshtein.wordLevelLevenshtein(source, target);
+            WordEditResult bounded = WordLevelLevenshtein.wordLevelLevenshtein(source, target, maxDistance);
+            int distance = WordLevelLevenshtein.wordLevelDistance(source, target, maxDistance);
+
+            if (full.distance <= maxDistance) {
+                assertFalse(bounded.exceedsThreshold);
+                WordLevelLevenshteinTest.assertSameResult(full, bounded);
+                assertEquals(full.distance, distance);
+            } else {
+                assertTrue(bounded.exceedsThreshold);
+                assertEquals(maxDistance + 1, bounded.distance);
+                assertEquals(maxDistance + 1, distance);
+            }
+        }
+    }
+
+    @Test
+    public void boundedSimilarityMatchesUnbounded() {
+        Random random = new Random(23);
+        for (int round = 0; round < 300; round++) {
+            List<String> source = new ArrayList<>();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                source.add(SIMILAR_WORDS[random.nextInt(SIMILAR_WORDS.length)]);
+            }
+            List<String> target = mutate(random, source, random.nextInt(10));
+            int maxDistance = random.nextInt(8);
+            double threshold = 0.5 + random.nextDouble() / 2;
+
+            WordEditResult full = WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(source, target, threshold);
+            WordEditResult bounded = WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(
+                    source, target, threshold, maxDistance);
+
+            if (full.distance <= maxDistance) {
+                WordLevelLevenshteinTest.assertSameResult(full, bounded);
+            } else {
+                assertTrue(bounded.exceedsThreshold);
+            }
+        }
+    }
+
+    @Test
+    public void lengthDifferenceExceedsImmediately() {
+        List<String> source = List.of("a", "b", "c", "d", "e", "f");
+        assertTrue(WordLevelLevenshtein.wordLevelLevenshtein(source, List.of("a"), 3).exceedsThreshold);
+        assertEquals(4, WordLevelLevenshtein.wordLevelDistance(source, List.of("a"), 3));
+    }
+
+    private static List<String> mutate(Random random, List<String> words, int edits) {
+        List<String> result = new ArrayList<>(words);
+        for (int e = 0; e < edits; e++) {
+            int op = random.nextInt(3);
+            if (op == 0 || result.isEmpty()) {
+                result.add(random.nextInt(result.size() + 1), SIMILAR_WORDS[random.nextInt(SIMILAR_WORDS.length)]);
+            } else if (op == 1) {
+                result.remove(random.nextInt(result.size()));
+            } else {
+                result.set(random.nextInt(result.size()), "x" + random.nextInt(4));
+            }
+        }
+        return result;
+    }
+}
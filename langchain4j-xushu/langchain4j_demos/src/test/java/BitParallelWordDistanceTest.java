@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BitParallelWordDistanceTest {
+
+    /**
+     * 覆盖单块（<=64）和多块位向量，距离与完整DP一致
+     */
+    @Test
+    public void distanceMatchesFullDp() {
+        Random random = new Random(11);
+        int[] lengths = {0, 1, 5, 63, 64, 65, 127, 128, 129, 300};
+        for (int sourceLength : lengths) {
+            for (int targetLength : lengths) {
+                for (int vocabulary : new int[]{2, 10, 500}) {
+                    List<String> source = WordLevelLevenshteinTest.randomWords(random, sourceLength, vocabulary);
+                    List<String> target = WordLevelLevenshteinTest.randomWords(random, targetLength, vocabulary);
+
+                    int expected = WordLevelLevenshtein.wordLevelLevenshtein(source, target).distance;
+                    assertEquals(expected, WordLevelLevenshtein.wordLevelDistance(source, target),
+                            sourceLength + "x" + targetLength + " vocab=" + vocabulary);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void errorCountsMatchOperations() {
+        Random random = new Random(5);
+        for (int round = 0; round < 200; round++) {
+            List<String> source = WordLevelLevenshteinTest.randomWords(random, random.nextInt(80), 1 + random.nextInt(8));
+            List<String> target = WordLevelLevenshteinTest.randomWords(random, random.nextInt(80), 1 + random.nextInt(8));
+
+            WordEditResult result = WordLevelLevenshtein.wordLevelLevenshtein(source, target);
+            int substitutions = 0, deletions = 0, insertions = 0;
+            for (WordEditOperation op : result.operations) {
+                if (op.type == WordOperationType.SUBSTITUTE) substitutions++;
+                if (op.type == WordOperationType.DELETE) deletions++;
+                if (op.type == WordOperationType.INSERT) insertions++;
+            }
+
+            WordErrorCounts counts = WordLevelLevenshtein.wordErrorCounts(source, target);
+            assertEquals(result.distance, counts.distance);
+            assertEquals(substitutions, counts.substitutions);
+            assertEquals(deletions, counts.deletions);
+            assertEquals(insertions, counts.insertions);
+            assertEquals(source.size(), counts.referenceLength);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CharErrorRateTest {
+
+    @Test
+    public void mandarinCer() {
+        CharErrorCounts counts = CharErrorRate.counts("我要退票", "我要推票了");
+        assertEquals(1, counts.substitutions);
+        assertEquals(0, counts.deletions);
+        assertEquals(1, counts.insertions);
+        assertEquals(4, counts.referenceLength);
+        assertEquals(0.5, counts.cer(), 1e-9);
+    }
+
+    /**
+     * 代理对（如emoji、扩展区汉字）按一个字符计
+     */
+    @Test
+    public void surrogatePairsCountAsOneCharacter() {
+        String reference = "a\uD842\uDFB7b";    // a𠮷b
+        String hypothesis = "a\uD83D\uDE00b";   // a😀b
+        assertEquals(1, CharErrorRate.distance(reference, hypothesis));
+        assertEquals(3, CharErrorRate.counts(reference, hypothesis).referenceLength);
+        assertEquals(WordOperationType.SUBSTITUTE, CharErrorRate.align(reference, hypothesis).operations.get(1).type);
+    }
+
+    @Test
+    public void whitespaceIgnoredByDefault() {
+        assertEquals(0, CharErrorRate.distance("我 要 退票", "我要退票"));
+        assertEquals(2, CharErrorRate.distance("我 要 退票", "我要退票", false));
+    }
+
+    /**
+     * 计数与对齐模式的操作序列一致，长度变化时复用的缓冲区也正确
+     */
+    @Test
+    public void countsMatchAlignment() {
+        Random random = new Random(8);
+        String alphabet = "退票推改签航班我要";
+        for (int round = 0; round < 300; round++) {
+            String reference = randomText(random, alphabet, random.nextInt(round % 2 == 0 ? 10 : 200));
+            String hypothesis = randomText(random, alphabet, random.nextInt(round % 2 == 0 ? 10 : 200));
+
+            WordEditResult alignment = CharErrorRate.align(reference, hypothesis);
+            int substitutions = 0, deletions = 0, insertions = 0;
+            for (WordEditOperation op : alignment.operations) {
+                if (op.type == WordOperationType.SUBSTITUTE) substitutions++;
+                if (op.type == WordOperationType.DELETE) deletions++;
+                if (op.type == WordOperationType.INSERT) insertions++;
+            }
+
+            CharErrorCounts counts = CharErrorRate.counts(reference, hypothesis);
+            assertEquals(alignment.distance, counts.distance);
+            assertEquals(alignment.distance, CharErrorRate.distance(reference, hypothesis));
+            assertEquals(substitutions, counts.substitutions);
+            assertEquals(deletions, counts.deletions);
+            assertEquals(insertions, counts.insertions);
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
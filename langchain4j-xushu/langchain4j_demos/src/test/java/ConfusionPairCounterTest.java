@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConfusionPairCounterTest {
+
+    @Test
+    public void countsSubstitutionsFromAlignments() {
+        ConfusionPairCounter counter = new ConfusionPairCounter(16);
+        counter.add(WordLevelLevenshtein.wordLevelLevenshtein("我 想 退 票", "我 想 推 票"));
+        counter.add(WordLevelLevenshtein.wordLevelLevenshtein("退 票 多 久", "推 票 多 就"));
+
+        List<ConfusionPairCounter.ConfusionPair> top = counter.top(1);
+        assertEquals("退", top.get(0).reference);
+        assertEquals("推", top.get(0).hypothesis);
+        assertEquals(2, top.get(0).count);
+        assertEquals(0, top.get(0).error);
+        assertEquals(3, counter.totalSubstitutions());
+    }
+
+    /**
+     * 容量远小于混淆对种类时，高频混淆对仍被找到，且计数区间覆盖真实次数；
+     * 分线程统计后合并同样满足
+     */
+    @Test
+    public void heavyHittersWithinErrorBoundsAfterMerge() {
+        Random random = new Random(4);
+        ConfusionPairCounter first = new ConfusionPairCounter(20);
+        ConfusionPairCounter second = first.fork();
+        Map<String, Long> exact = new HashMap<>();
+        for (int k = 0; k < 20000; k++) {
+            // 少数高频对 + 大量低频噪声
+            String reference, hypothesis;
+            if (random.nextInt(4) == 0) {
+                int hot = random.nextInt(3);
+                reference = "r" + hot;
+                hypothesis = "h" + hot;
+            } else {
+                reference = "x" + random.nextInt(300);
+                hypothesis = "y" + random.nextInt(300);
+            }
+            exact.merge(reference + "->" + hypothesis, 1L, Long::sum);
+            (k % 2 == 0 ? first : second).add(reference, hypothesis, 1);
+        }
+        first.merge(second);
+
+        List<ConfusionPairCounter.ConfusionPair> top = first.top(3);
+        for (ConfusionPairCounter.ConfusionPair pair : top) {
+            assertTrue(pair.reference.startsWith("r"), pair.toString());
+            long truth = exact.get(pair.reference + "->" + pair.hypothesis);
+            assertTrue(pair.guaranteedCount() <= truth && truth <= pair.count, pair.toString());
+        }
+        assertEquals(20000, first.totalSubstitutions());
+    }
+
+    /**
+     * 超出初始容量时翻倍，删除后探测链不断；与 HashMap 对照
+     */
+    @Test
+    public void longIntHashMapGrowsAndRemoves() {
+        Random random = new Random(3);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            long key = random.nextInt(5000) - 2500L;
+            if (random.nextInt(4) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                assertEquals(expected.merge(key, 1, Integer::sum), map.add(key, 1));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        int occupied = 0;
+        for (int slot = 0; slot < map.slots(); slot++) {
+            if (map.occupied(slot)) {
+                occupied++;
+                assertEquals(expected.get(map.keyAt(slot)), map.valueAt(slot));
+            }
+        }
+        assertEquals(expected.size(), occupied);
+        assertEquals(-1, map.get(1L << 40));
+    }
+}
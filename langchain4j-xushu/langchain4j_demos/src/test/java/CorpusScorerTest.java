@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CorpusScorerTest {
+
+    @Test
+    public void smallCorpus() {
+        List<CorpusScorer.TextPair> pairs = List.of(
+                new CorpusScorer.TextPair("I love programming in Java", "I love coding in Python"),
+                new CorpusScorer.TextPair("the cat sat", "the cat sat"),
+                new CorpusScorer.TextPair("a b c d", "a c d e"));
+
+        CorpusScore score = new CorpusScorer().score(pairs);
+        assertEquals(3, score.pairs);
+        assertEquals(12, score.referenceWords);
+        assertEquals(2, score.substitutions);
+        assertEquals(1, score.deletions);
+        assertEquals(1, score.insertions);
+        assertEquals(4.0 / 12, score.microWer(), 1e-9);
+        assertEquals((2.0 / 5 + 0 + 2.0 / 4) / 3, score.macroWer(), 1e-9);
+        assertEquals(2.0 / 3, score.ser(), 1e-9);
+    }
+
+    /**
+     * 并行结果与逐句顺序累加一致（长短句混合，跨多个批次）
+     */
+    @Test
+    public void parallelMatchesSequential() {
+        Random random = new Random(99);
+        List<CorpusScorer.TextPair> pairs = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            int length = i % 500 == 0 ? 400 : random.nextInt(20);
+            String reference = String.join(" ", WordLevelLevenshteinTest.randomWords(random, length, 30));
+            String hypothesis = String.join(" ", WordLevelLevenshteinTest.randomWords(random, length, 30));
+            pairs.add(new CorpusScorer.TextPair(reference, hypothesis));
+        }
+
+        CorpusScore expected = new CorpusScore();
+        for (CorpusScorer.TextPair pair : pairs) {
+            CorpusScorer.scorePair(pair, expected);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            CorpusScore actual = new CorpusScorer(pool).score(pairs.stream());
+            assertEquals(expected.pairs, actual.pairs);
+            assertEquals(expected.referenceWords, actual.referenceWords);
+            assertEquals(expected.substitutions, actual.substitutions);
+            assertEquals(expected.deletions, actual.deletions);
+            assertEquals(expected.insertions, actual.insertions);
+            assertEquals(expected.charErrors, actual.charErrors);
+            assertEquals(expected.sentenceErrors, actual.sentenceErrors);
+            assertEquals(expected.macroWer(), actual.macroWer(), 1e-9);
+            assertEquals(expected.macroCer(), actual.macroCer(), 1e-9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 流水线下读取第二批不必等第一批算完：池里唯一的工作线程被占住，第一批无法开始，
+     * 迭代器仍要读过第 8192 个（第二批开头）
+     */
+    @Test
+    public void readsNextBatchWhileCurrentOneRuns() throws Exception {
+        Random random = new Random(5);
+        List<CorpusScorer.TextPair> pairs = new ArrayList<>();
+        for (int i = 0; i < 3 * 8192; i++) {
+            pairs.add(new CorpusScorer.TextPair(String.join(" ", WordLevelLevenshteinTest.randomWords(random, 5, 30)),
+                    String.join(" ", WordLevelLevenshteinTest.randomWords(random, 5, 30))));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            CountDownLatch secondBatchRead = new CountDownLatch(1);
+            ForkJoinTask<Boolean> blocker = pool.submit(() -> secondBatchRead.await(10, TimeUnit.SECONDS));
+            Iterator<CorpusScorer.TextPair> source = pairs.iterator();
+            Iterator<CorpusScorer.TextPair> watched = new Iterator<>() {
+                int index;
+
+                @Override
+                public boolean hasNext() {
+                    return source.hasNext();
+                }
+
+                @Override
+                public CorpusScorer.TextPair next() {
+                    if (index++ == 8192) secondBatchRead.countDown();
+                    return source.next();
+                }
+            };
+            assertEquals(pairs.size(), new CorpusScorer(pool).score(watched).pairs);
+            assertTrue(blocker.get(), "iterator did not advance past index 8192 while the first batch was blocked");
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
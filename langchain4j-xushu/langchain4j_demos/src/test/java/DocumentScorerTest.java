@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DocumentScorerTest {
+
+    @Test
+    public void attributesErrorsToReferenceSentences() {
+        TextNormalizer normalizer = TextNormalizer.builder()
+                .stripPunctuation(true)
+                .cjkSegmentation(TextNormalizer.CjkSegmentation.PER_CHARACTER)
+                .build();
+        DocumentScore score = new DocumentScorer(normalizer).score(
+                "我想退票。请问多久到账？好的谢谢。",
+                "我想推票请问多久到账呢好的谢谢");
+
+        assertEquals(3, score.sentences.size());
+        assertEquals(1, score.sentences.get(0).words.substitutions);
+        assertEquals("我 想 推 票", score.sentences.get(0).hypothesis);
+        // “呢”插在第二句末尾
+        assertEquals(1, score.sentences.get(1).words.insertions);
+        assertEquals(0, score.sentences.get(2).words.distance);
+        assertEquals(2.0 / 3, score.ser(), 1e-9);
+        assertEquals(2, score.words.distance);
+        assertEquals(2.0 / 14, score.cer(), 1e-9);
+    }
+
+    /**
+     * 各句计数之和等于整篇一次对齐的计数
+     */
+    @Test
+    public void sentenceCountsSumToDocumentCounts() {
+        Random random = new Random(21);
+        for (int round = 0; round < 100; round++) {
+            StringBuilder reference = new StringBuilder();
+            int sentences = random.nextInt(5);
+            for (int s = 0; s < sentences; s++) {
+                reference.append(String.join(" ", WordLevelLevenshteinTest.randomWords(random, random.nextInt(8), 5)))
+                        .append(". ");
+            }
+            List<String> hypothesis = WordLevelLevenshteinTest.randomWords(random, random.nextInt(30), 5);
+
+            DocumentScore score = new DocumentScorer().score(reference.toString(), String.join(" ", hypothesis));
+            WordErrorCounts expected = WordLevelLevenshtein.wordErrorCounts(
+                    WordLevelLevenshtein.splitIntoWords(reference.toString().replace(".", "")), hypothesis);
+            assertEquals(expected.distance, score.words.distance);
+            assertEquals(expected.referenceLength, score.words.referenceLength);
+        }
+    }
+
+    /**
+     * 参考文本为空时整篇识别结果算插入，字符数按规范化（去标点）后的单词计
+     */
+    @Test
+    public void emptyReferenceCountsNormalizedInsertions() {
+        DocumentScore score = new DocumentScorer().score("。", "hello, world!");
+        assertEquals(0, score.sentences.size());
+        assertEquals(2, score.words.insertions);
+        assertEquals(10, score.chars.insertions);
+    }
+
+    /**
+     * 小数点和称谓缩写后的点不切句，后面跟空白或在末尾的点和分号才切
+     */
+    @Test
+    public void splitsSentencesOnlyAtRealBoundaries() {
+        assertEquals(List.of("Mr. Smith paid 3.5 dollars."), DocumentScorer.splitSentences("Mr. Smith paid 3.5 dollars."));
+        assertEquals(List.of("See v1.2;", "it works.", "Done"),
+                DocumentScorer.splitSentences("See v1.2; it works. Done"));
+        assertEquals(List.of("我想退票。", "好的"), DocumentScorer.splitSentences("我想退票。好的"));
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EditScriptTest {
+
+    /**
+     * 连续的同类操作合并为一个游程，视图按位置还原出每个操作
+     */
+    @Test
+    public void consecutiveOperationsShareOneRun() {
+        List<String> source = Arrays.asList("a", "b", "c", "d", "e", "f");
+        List<String> target = Arrays.asList("a", "b", "c", "x", "y", "f", "g", "h");
+        WordEditResult result = WordLevelLevenshtein.wordLevelLevenshtein(source, target);
+
+        EditScript script = result.script;
+        assertEquals(4, script.runCount());
+        assertEquals(WordAlignmentCore.MATCH, script.runOp(0));
+        assertEquals(3, script.runLength(0));
+        assertEquals(2, script.count(WordAlignmentCore.SUBSTITUTE));
+        assertEquals(2, script.count(WordAlignmentCore.INSERT));
+
+        assertEquals(8, result.operations.size());
+        assertEquals("将位置 4 的单词 [e] 替换为 [y]", result.operations.get(4).toString());
+        assertEquals("在位置 6 插入单词 [h]", result.operations.get(7).toString());
+        assertEquals("a b c x y f g h", result.getTransformedString());
+        assertThrows(IndexOutOfBoundsException.class, () -> result.operations.get(8));
+    }
+
+    @Test
+    public void builderGrowsPastInitialCapacity() {
+        EditScript.Builder builder = new EditScript.Builder();
+        for (int i = 0; i < 100; i++) {
+            builder.prepend(i % 2 == 0 ? WordAlignmentCore.MATCH : WordAlignmentCore.DELETE);
+        }
+        int[] ids = new int[100];
+        EditScript script = builder.build(ids, new int[50], new TokenVocabulary());
+        assertEquals(100, script.runCount());
+        assertEquals(WordAlignmentCore.DELETE, script.runOp(0));
+        assertEquals(50, script.textLength());
+    }
+}
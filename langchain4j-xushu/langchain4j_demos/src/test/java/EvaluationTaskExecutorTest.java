@@ -0,0 +1,301 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 端到端：本地桩 STT HTTP 服务（按 X-Sample-Id 返回预设文本，每个请求延迟一段时间）
+ */
+public class EvaluationTaskExecutorTest {
+
+    private final Map<String, String> transcripts = new ConcurrentHashMap<>();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private final Queue<HttpExchange> held = new ConcurrentLinkedQueue<>();
+    private ExecutorService serverThreads;
+    private HttpServer server;
+    private EvaluationTaskExecutor executor;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.createContext("/asr", exchange -> {
+            int now = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                exchange.getRequestBody().readAllBytes();
+                Thread.sleep(10);
+                String text = transcripts.get(exchange.getRequestHeaders().getFirst("X-Sample-Id"));
+                byte[] body = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(text == null ? 404 : 200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                exchange.close();
+            }
+        });
+        // 收下请求但不回应，连接一直保持到测试结束
+        server.createContext("/hold", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            held.add(exchange);
+        });
+        serverThreads = Executors.newFixedThreadPool(32);
+        server.setExecutor(serverThreads);
+        server.start();
+        URI endpoint = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/asr");
+        executor = new EvaluationTaskExecutor(HttpSttClient.builder(job -> endpoint).build());
+    }
+
+    @AfterEach
+    public void stopServer() {
+        executor.close();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private List<EvaluationJob> jobs(int samples) {
+        Map<String, String> references = new LinkedHashMap<>();
+        for (int k = 0; k < samples; k++) {
+            references.put("s" + k, "我 想 退 票 " + k);
+            transcripts.put("s" + k, k % 2 == 0 ? "我 想 退 票 " + k : "我 想 推 票 " + k);
+        }
+        return EvaluationJob.cross(references, Map.of(), List.of("model-a", "model-b"));
+    }
+
+    @Test
+    public void runsEveryJobOnceWithinConcurrency() throws InterruptedException {
+        List<EvaluationJob> jobs = jobs(20);
+        AtomicInteger results = new AtomicInteger();
+        EvaluationTask task = executor.create("once", jobs, new ExecutionParams(null, 4, false),
+                result -> results.incrementAndGet());
+        task.start();
+
+        assertTrue(task.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(TaskStatus.COMPLETED, task.status());
+        assertEquals(40, results.get());
+        assertEquals(40, task.succeeded());
+        assertEquals(1.0, task.progress());
+        assertTrue(maxConcurrent.get() <= 4, "max concurrent " + maxConcurrent.get());
+
+        CorpusScore score = task.scores().get("model-a");
+        assertEquals(20, score.pairs);
+        assertEquals(10, score.substitutions);
+        assertEquals(0.5, score.ser(), 1e-12);
+    }
+
+    @Test
+    public void loopModeStopsAfterDuration() throws InterruptedException {
+        List<EvaluationJob> jobs = jobs(3);
+        EvaluationTask task = executor.create("loop", jobs, new ExecutionParams(Duration.ofMillis(400), 2, true));
+        task.start();
+
+        assertTrue(task.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(TaskStatus.COMPLETED, task.status());
+        assertTrue(task.succeeded() > jobs.size(), "looped " + task.succeeded());
+        assertEquals(task.issued(), task.succeeded());
+    }
+
+    @Test
+    public void pauseResumeAndCancel() throws InterruptedException {
+        EvaluationTask task = executor.create("control", jobs(5), new ExecutionParams(null, 3, true));
+        task.start();
+        waitFor(() -> task.succeeded() >= 10);
+
+        task.pause();
+        assertEquals(TaskStatus.PAUSED, task.status());
+        waitFor(() -> task.inFlight() == 0);
+        long paused = task.succeeded();
+        Thread.sleep(100);
+        assertEquals(paused, task.succeeded());
+
+        task.resume();
+        waitFor(() -> task.succeeded() > paused + 5);
+
+        task.cancel();
+        assertTrue(task.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(TaskStatus.CANCELLED, task.status());
+        assertEquals(0, task.inFlight());
+        assertEquals(0, task.failed());
+    }
+
+    @Test
+    public void httpErrorsAreReportedPerJob() throws InterruptedException {
+        List<EvaluationJob> jobs = jobs(4);
+        transcripts.remove("s1");
+        EvaluationTask task = executor.create("errors", jobs, new ExecutionParams(null, 8, false));
+        task.start();
+
+        assertTrue(task.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(TaskStatus.COMPLETED, task.status());
+        assertEquals(6, task.succeeded());
+        assertEquals(2, task.failed());
+    }
+
+    /**
+     * 数千个请求同时在途（桩服务不回应），取消后每个 HTTP 交换都被中止，结果不计分也不回调
+     */
+    @Test
+    public void cancelsThousandsOfRequestsInFlight() throws InterruptedException {
+        int count = 2000;
+        Queue<CompletableFuture<?>> exchanges = new ConcurrentLinkedQueue<>();
+        HttpClient http = new RecordingHttpClient(HttpClient.newHttpClient(), exchanges);
+        URI hold = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hold");
+        AtomicInteger results = new AtomicInteger();
+        try (EvaluationTaskExecutor many = new EvaluationTaskExecutor(
+                HttpSttClient.builder(job -> hold).httpClient(http).build())) {
+            EvaluationTask task = many.create("many", jobs(count / 2), new ExecutionParams(null, count, false),
+                    result -> results.incrementAndGet());
+            task.start();
+            waitFor(() -> held.size() == count);
+            assertEquals(count, task.inFlight());
+
+            task.cancel();
+            assertTrue(task.awaitTermination(30, TimeUnit.SECONDS));
+            assertEquals(TaskStatus.CANCELLED, task.status());
+            assertEquals(count, task.issued());
+            assertEquals(0, task.inFlight());
+            assertEquals(0, task.succeeded() + task.failed());
+            assertEquals(0, results.get());
+            assertEquals(count, exchanges.size());
+            assertTrue(exchanges.stream().allMatch(EvaluationTaskExecutorTest::aborted));
+        }
+    }
+
+    /**
+     * 交换已中止：future 本身被取消，或 HttpClient 中止交换后以 CancellationException 结束
+     */
+    private static boolean aborted(CompletableFuture<?> exchange) {
+        Throwable error = exchange.handle((response, t) -> t).getNow(null);
+        if (error instanceof CompletionException) {
+            error = error.getCause();
+        }
+        return error instanceof CancellationException;
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 记下 sendAsync 返回的 future（HttpClient 取消它时中止交换），其余委托给真实客户端
+     */
+    private static final class RecordingHttpClient extends HttpClient {
+        private final HttpClient delegate;
+        private final Queue<CompletableFuture<?>> exchanges;
+
+        RecordingHttpClient(HttpClient delegate, Queue<CompletableFuture<?>> exchanges) {
+            this.delegate = delegate;
+            this.exchanges = exchanges;
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> handler) {
+            CompletableFuture<HttpResponse<T>> exchange = delegate.sendAsync(request, handler);
+            exchanges.add(exchange);
+            return exchange;
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                                HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            CompletableFuture<HttpResponse<T>> exchange = delegate.sendAsync(request, handler, pushPromiseHandler);
+            exchanges.add(exchange);
+            return exchange;
+        }
+
+        @Override
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                throws IOException, InterruptedException {
+            return delegate.send(request, handler);
+        }
+
+        @Override
+        public Optional<CookieHandler> cookieHandler() {
+            return delegate.cookieHandler();
+        }
+
+        @Override
+        public Optional<Duration> connectTimeout() {
+            return delegate.connectTimeout();
+        }
+
+        @Override
+        public Redirect followRedirects() {
+            return delegate.followRedirects();
+        }
+
+        @Override
+        public Optional<ProxySelector> proxy() {
+            return delegate.proxy();
+        }
+
+        @Override
+        public SSLContext sslContext() {
+            return delegate.sslContext();
+        }
+
+        @Override
+        public SSLParameters sslParameters() {
+            return delegate.sslParameters();
+        }
+
+        @Override
+        public Optional<Authenticator> authenticator() {
+            return delegate.authenticator();
+        }
+
+        @Override
+        public Version version() {
+            return delegate.version();
+        }
+
+        @Override
+        public Optional<Executor> executor() {
+            return delegate.executor();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IncrementalWordAlignerTest {
+
+    /**
+     * 任意追加/改写序列之后，计数与整句重新打分一致
+     */
+    @Test
+    public void matchesFullRescoringAfterEveryUpdate() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            List<String> reference = WordLevelLevenshteinTest.randomWords(random, random.nextInt(40), 6);
+            IncrementalWordAligner aligner = new IncrementalWordAligner(reference);
+            List<String> partial = new ArrayList<>();
+            for (int update = 0; update < 30; update++) {
+                int keep = random.nextInt(3) == 0 ? random.nextInt(partial.size() + 1) : partial.size();
+                partial = new ArrayList<>(partial.subList(0, keep));
+                partial.addAll(WordLevelLevenshteinTest.randomWords(random, random.nextInt(4), 7));
+                aligner.update(partial);
+
+                WordErrorCounts expected = WordLevelLevenshtein.wordErrorCounts(reference, partial);
+                WordErrorCounts actual = aligner.counts();
+                assertEquals(expected.toString(), actual.toString());
+            }
+        }
+    }
+
+    @Test
+    public void tracksPrefixWerAndRewrites() {
+        IncrementalWordAligner aligner = new IncrementalWordAligner(List.of("我", "想", "退", "票", "谢谢"));
+        aligner.update(List.of("我", "想", "推"));
+        assertEquals(1, aligner.prefixCounts().distance);
+        assertEquals(3, aligner.prefixCounts().referenceLength);
+        assertEquals(3, aligner.counts().distance);
+
+        aligner.update(List.of("我", "想", "退", "票"));
+        assertEquals(0, aligner.prefixCounts().distance);
+        assertEquals(1, aligner.counts().deletions);
+        // 累计输出5个单词（我、想、推，之后的退、票），其中“推”被改写
+        assertEquals(1.0 / 5, aligner.rewriteRate(), 1e-9);
+        assertEquals(0.5, aligner.revisionRate(), 1e-9);
+    }
+}
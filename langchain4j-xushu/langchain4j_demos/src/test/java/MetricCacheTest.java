@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class MetricCacheTest {
+
+    private static final TextNormalizer NORMALIZER =
+            TextNormalizer.builder().lowerCase(true).stripPunctuation(true).build();
+
+    private static final String REFERENCE = "I want to cancel my ticket. Please refund it.";
+
+    @Test
+    public void normalizedDuplicatesHitMemory() {
+        MetricCache cache = new MetricCache(16);
+        String fingerprint = MetricCache.fingerprint(REFERENCE);
+
+        MetricSummary first = cache.score(fingerprint, REFERENCE, "I want to cancel the ticket please refund it", NORMALIZER);
+        MetricSummary second = cache.score(fingerprint, REFERENCE, "i want to cancel  the ticket, please refund it!", NORMALIZER);
+
+        assertEquals(1, cache.misses());
+        assertEquals(1, cache.memoryHits());
+        assertEquals(first.wer(), second.wer());
+        assertEquals(new DocumentScorer(NORMALIZER).score(REFERENCE, "I want to cancel the ticket please refund it").wer(),
+                first.wer(), 1e-12);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        MetricCache cache = new MetricCache(2);
+        String fingerprint = MetricCache.fingerprint(REFERENCE);
+        cache.score(fingerprint, REFERENCE, "a", NORMALIZER);
+        cache.score(fingerprint, REFERENCE, "b", NORMALIZER);
+        cache.score(fingerprint, REFERENCE, "a", NORMALIZER);
+        cache.score(fingerprint, REFERENCE, "c", NORMALIZER);   // 挤掉 b
+        cache.score(fingerprint, REFERENCE, "a", NORMALIZER);
+        cache.score(fingerprint, REFERENCE, "b", NORMALIZER);
+
+        assertEquals(2, cache.memoryHits());
+        assertEquals(4, cache.misses());
+    }
+
+    @Test
+    public void diskTierSurvivesRestart(@TempDir Path directory) throws IOException {
+        String fingerprint = MetricCache.fingerprint(REFERENCE);
+        String hypothesis = "I want cancel my tickets. Please refund it.";
+
+        MetricCache first = new MetricCache(16, directory);
+        MetricSummary computed = first.score(fingerprint, REFERENCE, hypothesis, NORMALIZER);
+        assertEquals(1, first.misses());
+
+        MetricCache restarted = new MetricCache(16, directory);
+        MetricSummary loaded = restarted.score(fingerprint, REFERENCE, hypothesis, NORMALIZER);
+        assertEquals(1, restarted.diskHits());
+        assertEquals(0, restarted.misses());
+        assertEquals(computed.toString(), loaded.toString());
+        assertEquals(computed.ser(), loaded.ser());
+
+        // 损坏的文件按未命中处理并重新写入
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Files.write(file, new byte[]{1, 2, 3});
+            }
+        }
+        MetricCache recovered = new MetricCache(16, directory);
+        assertEquals(computed.toString(), recovered.score(fingerprint, REFERENCE, hypothesis, NORMALIZER).toString());
+        assertEquals(1, recovered.misses());
+    }
+
+    /**
+     * 磁盘层写失败时照常返回结果，并清理临时文件
+     */
+    @Test
+    public void diskWriteFailureIsBestEffort(@TempDir Path directory) throws IOException {
+        String fingerprint = MetricCache.fingerprint(REFERENCE);
+        String hypothesis = "Please refund it";
+        String key = MetricCache.key(fingerprint, NORMALIZER.tokens(hypothesis), "DocumentScorer/" + NORMALIZER);
+        // 目标位置被一个非空目录占住，改名必然失败
+        Path blocked = directory.resolve(key.substring(0, 2)).resolve(key + ".bin");
+        Files.createDirectories(blocked.resolve("child"));
+
+        MetricCache cache = new MetricCache(16, directory);
+        MetricSummary summary = cache.score(fingerprint, REFERENCE, hypothesis, NORMALIZER);
+        assertEquals(MetricSummary.of(new DocumentScorer(NORMALIZER).score(REFERENCE, hypothesis)).toString(),
+                summary.toString());
+        assertEquals(1, cache.diskWriteFailures());
+        try (Stream<Path> files = Files.list(blocked.getParent())) {
+            assertEquals(List.of(blocked), files.collect(Collectors.toList()));
+        }
+
+        // 缓存目录本身是普通文件
+        Path file = Files.createFile(directory.resolve("not-a-directory"));
+        MetricCache broken = new MetricCache(16, file);
+        assertEquals(summary.toString(), broken.score(fingerprint, REFERENCE, hypothesis, NORMALIZER).toString());
+        assertEquals(1, broken.diskWriteFailures());
+    }
+
+    @Test
+    public void keyDependsOnScorerConfig() {
+        String fingerprint = MetricCache.fingerprint(REFERENCE);
+        String hypothesis = "Please refund it";
+        MetricCache cache = new MetricCache(16);
+        cache.score(fingerprint, REFERENCE, hypothesis, NORMALIZER);
+        cache.score(fingerprint, REFERENCE, hypothesis, TextNormalizer.builder().stripPunctuation(true).build());
+        assertEquals(2, cache.misses());
+        assertNotEquals(NORMALIZER.toString(), TextNormalizer.WHITESPACE.toString());
+    }
+}
@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OracleWerScorerTest {
+
+    @Test
+    public void reportsWinningPair() {
+        OracleWerScorer.OracleResult result = new OracleWerScorer().score(
+                List.of("I want to cancel my ticket", "I wanna cancel my ticket"),
+                List.of("I want to cancel the ticket", "I wanna cancel my ticket please", "I wanna cancel my ticket"));
+        assertEquals(1, result.referenceIndex);
+        assertEquals(2, result.hypothesisIndex);
+        assertEquals(0.0, result.wer());
+        assertEquals(1.0 / 6, result.wers[0][0], 1e-9);
+    }
+
+    /**
+     * 共享前缀复用不改变每个组合的WER
+     */
+    @Test
+    public void matchesIndependentScoring() {
+        Random random = new Random(8);
+        for (int round = 0; round < 30; round++) {
+            List<List<String>> references = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                references.add(WordLevelLevenshteinTest.randomWords(random, 1 + random.nextInt(20), 5));
+            }
+            List<String> base = WordLevelLevenshteinTest.randomWords(random, random.nextInt(20), 5);
+            List<List<String>> hypotheses = new ArrayList<>();
+            for (int h = 0; h < 8; h++) {
+                List<String> candidate = new ArrayList<>(base.subList(0, random.nextInt(base.size() + 1)));
+                candidate.addAll(WordLevelLevenshteinTest.randomWords(random, random.nextInt(6), 5));
+                hypotheses.add(candidate);
+            }
+
+            OracleWerScorer.OracleResult result = OracleWerScorer.scoreWords(references, hypotheses);
+            double best = Double.MAX_VALUE;
+            for (int r = 0; r < references.size(); r++) {
+                for (int h = 0; h < hypotheses.size(); h++) {
+                    double wer = WordLevelLevenshtein.wordErrorCounts(references.get(r), hypotheses.get(h)).wer();
+                    assertEquals(wer, result.wers[r][h], 1e-12);
+                    best = Math.min(best, wer);
+                }
+            }
+            assertEquals(best, result.wer(), 1e-12);
+            assertEquals(best, result.wers[result.referenceIndex][result.hypothesisIndex], 1e-12);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PcmAudioTest {
+
+    /**
+     * 2.5 秒 24kHz 单声道，采样值为帧号，末尾多一个不成帧的字节
+     */
+    private static Path writePcm(Path directory) throws IOException {
+        int frames = 60000;
+        ByteBuffer bytes = ByteBuffer.allocate(frames * 2 + 1).order(ByteOrder.LITTLE_ENDIAN);
+        for (int frame = 0; frame < frames; frame++) {
+            bytes.putShort((short) frame);
+        }
+        Path file = directory.resolve("sample.pcm");
+        Files.write(file, bytes.array());
+        return file;
+    }
+
+    @Test
+    public void chunksAreReadOnlySlices(@TempDir Path directory) throws IOException {
+        PcmAudio audio = PcmAudio.open(writePcm(directory));
+        assertEquals(60000, audio.frames());
+        assertEquals(2500, audio.durationMillis());
+        assertEquals((short) 12345, audio.sample(12345, 0));
+
+        List<ByteBuffer> chunks = audio.chunks(1000);
+        assertEquals(3, chunks.size());
+        assertEquals(48000, chunks.get(0).remaining());
+        assertEquals(24000, chunks.get(2).remaining());
+
+        ByteBuffer second = chunks.get(1);
+        assertTrue(second.isReadOnly());
+        assertEquals((short) 24000, second.getShort());
+        // 每次 get 是新的切片，读取位置互不影响
+        assertEquals((short) 24000, chunks.get(1).getShort(0));
+        assertThrows(java.nio.ReadOnlyBufferException.class, () -> chunks.get(0).put((byte) 1));
+
+        ByteBuffer slice = audio.slice(2400, 10000);
+        assertEquals(4800, slice.remaining());
+        assertEquals((short) 57600, slice.getShort(0));
+        assertThrows(IllegalArgumentException.class, () -> audio.chunks(0));
+    }
+
+    @Test
+    public void publishesWholeFileOverHttp(@TempDir Path directory) throws Exception {
+        Path file = writePcm(directory);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            byte[] reply = (body.length + ":" + Arrays.hashCode(body)).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, reply.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(reply);
+            }
+        });
+        server.start();
+        try {
+            PcmAudio audio = PcmAudio.open(file);
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/echo"))
+                    .POST(audio.bodyPublisher(200))
+                    .build();
+            String reply = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString()).body();
+
+            byte[] expected = Arrays.copyOf(Files.readAllBytes(file), 120000);
+            assertEquals(expected.length + ":" + Arrays.hashCode(expected), reply);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReferenceCorpusTest {
+
+    private static final TextNormalizer NORMALIZER = TextNormalizer.builder()
+            .lowerCase(true).stripPunctuation(true)
+            .cjkSegmentation(TextNormalizer.CjkSegmentation.PER_CHARACTER).build();
+
+    @Test
+    public void roundTripsThroughMappedFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("references.rcp");
+        ReferenceCorpus.writer(NORMALIZER)
+                .add("sample-2", "I want to cancel my ticket.")
+                .add("sample-1", "我想退票")
+                .add("sample-10", "")
+                .write(file);
+
+        ReferenceCorpus corpus = ReferenceCorpus.open(file);
+        assertEquals(3, corpus.size());
+        assertEquals("sample-1", corpus.id(0));
+        assertEquals(-1, corpus.indexOf("sample-3"));
+
+        int index = corpus.indexOf("sample-2");
+        assertEquals("i want to cancel my ticket", corpus.reference(index));
+        assertEquals(0, corpus.tokenCount(corpus.indexOf("sample-10")));
+        assertEquals("我 想 退 票", corpus.reference(corpus.indexOf("sample-1")));
+
+        IntBuffer tokens = corpus.tokens(index);
+        assertTrue(tokens.isReadOnly());
+        assertEquals(6, tokens.remaining());
+
+        WordErrorCounts counts = corpus.wordErrorCounts(index, "I want to cancel the tickets", NORMALIZER);
+        assertEquals(2, counts.substitutions);
+        assertEquals(6, counts.referenceLength);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> corpus.wordErrorCounts(index, "anything", TextNormalizer.WHITESPACE));
+    }
+
+    /**
+     * 映射区上的计数与按字符串重新分词后的计数一致，未登录单词互不相等
+     */
+    @Test
+    public void matchesStringScoring(@TempDir Path directory) throws IOException {
+        Random random = new Random(18);
+        ReferenceCorpus.Writer writer = ReferenceCorpus.writer(NORMALIZER);
+        List<String> references = new ArrayList<>();
+        for (int k = 0; k < 200; k++) {
+            String reference = String.join(" ", WordLevelLevenshteinTest.randomWords(random, random.nextInt(120), 30));
+            references.add(reference);
+            writer.add("utt" + k, reference);
+        }
+        Path file = directory.resolve("random.rcp");
+        writer.write(file);
+        ReferenceCorpus corpus = ReferenceCorpus.open(file);
+
+        for (int k = 0; k < references.size(); k++) {
+            // 词表大小60，约一半单词是语料中没有的
+            String hypothesis = String.join(" ", WordLevelLevenshteinTest.randomWords(random, random.nextInt(120), 60));
+            WordErrorCounts expected = WordLevelLevenshtein.wordErrorCounts(
+                    NORMALIZER.tokens(references.get(k)), NORMALIZER.tokens(hypothesis));
+            WordErrorCounts actual = corpus.wordErrorCounts(corpus.indexOf("utt" + k), hypothesis, NORMALIZER);
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    /**
+     * 映射区哈希表能查到词表中的每个单词（含多字节字符），查不到的返回 -1
+     */
+    @Test
+    public void looksUpWordsThroughMappedIndex(@TempDir Path directory) throws IOException {
+        ReferenceCorpus.Writer writer = ReferenceCorpus.writer(NORMALIZER);
+        StringBuilder reference = new StringBuilder();
+        for (int k = 0; k < 5000; k++) {
+            reference.append(" w").append(k).append("é");
+        }
+        writer.add("all", reference.toString()).add("chinese", "我想退票");
+        Path file = directory.resolve("index.rcp");
+        writer.write(file);
+        ReferenceCorpus corpus = ReferenceCorpus.open(file);
+
+        for (int id = 0; id < corpus.vocabularySize(); id++) {
+            assertEquals(id, corpus.idOf(corpus.token(id)));
+        }
+        assertEquals(-1, corpus.idOf("w5000é"));
+        assertEquals(-1, corpus.idOf("w1"));
+        assertEquals(-1, corpus.idOf(""));
+
+        int vocabularySize = corpus.vocabularySize();
+        assertArrayEquals(new int[]{corpus.idOf("我"), vocabularySize, corpus.idOf("w7é"), vocabularySize},
+                corpus.encode("我 不 W7É 不", NORMALIZER));
+
+        ReferenceCorpus.writer(NORMALIZER).write(file);
+        ReferenceCorpus empty = ReferenceCorpus.open(file);
+        assertEquals(-1, empty.idOf("我"));
+        assertArrayEquals(new int[]{0, 1, 0}, empty.encode("a b a", NORMALIZER));
+    }
+}
@@ -0,0 +1,160 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResamplerTest {
+
+    private static ShortBuffer tone(int rate, double hz, int frames) {
+        ShortBuffer samples = ShortBuffer.allocate(frames);
+        for (int k = 0; k < frames; k++) {
+            samples.put((short) Math.round(10000 * Math.sin(2 * Math.PI * hz * k / rate)));
+        }
+        return samples.flip();
+    }
+
+    /**
+     * 去掉两端滤波器过渡段后，按 Goertzel 算法估计 hz 处的幅度
+     */
+    private static double amplitude(ShortBuffer samples, int rate, double hz) {
+        int margin = samples.limit() / 10;
+        double coefficient = 2 * Math.cos(2 * Math.PI * hz / rate);
+        double s1 = 0, s2 = 0;
+        int n = samples.limit() - 2 * margin;
+        for (int k = margin; k < margin + n; k++) {
+            double s0 = samples.get(k) + coefficient * s1 - s2;
+            s2 = s1;
+            s1 = s0;
+        }
+        double power = s1 * s1 + s2 * s2 - coefficient * s1 * s2;
+        return 2 * Math.sqrt(Math.max(0, power)) / n;
+    }
+
+    private static ShortBuffer resample(ShortBuffer in, int from, int to) {
+        Resampler resampler = Resampler.of(from, to);
+        ShortBuffer out = ShortBuffer.allocate(resampler.outputFrames(in.remaining()));
+        resampler.resample(in.duplicate(), 1, out);
+        return out.flip();
+    }
+
+    @Test
+    public void preservesInBandTones() {
+        ShortBuffer input = tone(24000, 1000, 24000);
+        for (int rate : new int[]{8000, 16000, 44100, 48000}) {
+            ShortBuffer output = resample(input, 24000, rate);
+            assertEquals(rate, output.limit());
+            double gain = amplitude(output, rate, 1000) / 10000;
+            assertTrue(Math.abs(gain - 1) < 0.02, rate + "Hz gain " + gain);
+        }
+    }
+
+    @Test
+    public void suppressesAliasingWhenDownsampling() {
+        // 7kHz 在 8kHz 采样率下会混叠到 1kHz，低通后应几乎消失
+        ShortBuffer output = resample(tone(24000, 7000, 24000), 24000, 8000);
+        double alias = amplitude(output, 8000, 1000) / 10000;
+        assertTrue(alias < 0.01, "alias " + alias);
+    }
+
+    @Test
+    public void cachesEachRateOnce(@TempDir Path directory) throws Exception {
+        ShortBuffer samples = tone(24000, 440, 12000);
+        ByteBuffer bytes = ByteBuffer.allocate(samples.limit() * 2).order(ByteOrder.LITTLE_ENDIAN);
+        while (samples.hasRemaining()) bytes.putShort(samples.get());
+        Path pcm = Files.write(directory.resolve("sample.pcm"), bytes.array());
+        Path cacheDirectory = directory.resolve("cache");
+
+        // 五个模型并发取各自的采样率
+        int[] modelRates = {8000, 16000, 16000, 48000, 24000};
+        ResampleCache cache = new ResampleCache(cacheDirectory);
+        ExecutorService pool = Executors.newFixedThreadPool(modelRates.length);
+        try {
+            for (int round = 0; round < 3; round++) {
+                List<Future<PcmAudio>> variants = new ArrayList<>();
+                for (int rate : modelRates) {
+                    variants.add(pool.submit(() -> cache.get(pcm, rate)));
+                }
+                for (int m = 0; m < modelRates.length; m++) {
+                    PcmAudio variant = variants.get(m).get();
+                    assertEquals(modelRates[m], variant.format().sampleRate);
+                    assertEquals(500, variant.durationMillis());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(3, cache.conversions());
+
+        ResampleCache restarted = new ResampleCache(cacheDirectory);
+        PcmAudio reloaded = restarted.get(pcm, 16000);
+        assertEquals(0, restarted.conversions());
+        assertEquals(1, restarted.diskHits());
+        assertEquals(8000, reloaded.frames());
+    }
+
+    /**
+     * 内存中只保留 maxMapped 个映射，淘汰的变体从磁盘重新映射而不重新转换；样本文件改写后指纹重新计算
+     */
+    @Test
+    public void boundsMappedVariants(@TempDir Path directory) throws Exception {
+        Path pcm = Files.write(directory.resolve("sample.pcm"), pcm(tone(24000, 440, 12000)));
+        ResampleCache cache = new ResampleCache(directory.resolve("cache"), 1);
+
+        PcmAudio first = cache.get(pcm, 16000);
+        assertSame(first, cache.get(pcm, 16000));
+        PcmAudio same = cache.get(pcm, 24000);
+        assertEquals(12000, same.frames());
+        assertSame(same, cache.get(pcm, 24000));
+        assertEquals(8000, cache.get(pcm, 16000).frames());
+        assertEquals(1, cache.conversions());
+        assertEquals(1, cache.diskHits());
+
+        Files.write(pcm, pcm(tone(24000, 440, 6000)));
+        assertEquals(4000, cache.get(pcm, 16000).frames());
+        assertEquals(2, cache.conversions());
+    }
+
+    private static byte[] pcm(ShortBuffer samples) {
+        ByteBuffer bytes = ByteBuffer.allocate(samples.limit() * 2).order(ByteOrder.LITTLE_ENDIAN);
+        while (samples.hasRemaining()) bytes.putShort(samples.get());
+        return bytes.array();
+    }
+
+    /**
+     * 按块写出的结果跨越块边界时与整段计算逐采样一致
+     */
+    @Test
+    public void streamsOutputInChunks(@TempDir Path directory) throws Exception {
+        int frames = Resampler.CHUNK_FRAMES * 3 + 1234;
+        ShortBuffer samples = tone(24000, 440, frames);
+        ByteBuffer bytes = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+        while (samples.hasRemaining()) bytes.putShort(samples.get());
+        PcmAudio audio = PcmAudio.open(Files.write(directory.resolve("long.pcm"), bytes.array()));
+
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        Resampler.of(24000, 44100).resample(audio, Channels.newChannel(streamed));
+        ShortBuffer actual = ByteBuffer.wrap(streamed.toByteArray()).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+        assertEquals(resample(samples.flip(), 24000, 44100), actual);
+    }
+
+    @Test
+    public void outputLengthRoundsUp() {
+        assertEquals(3, Resampler.of(24000, 16000).outputFrames(4));
+        assertEquals(1838, Resampler.of(24000, 44100).outputFrames(1000));
+    }
+}
@@ -0,0 +1,215 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 端到端：本地最小 websocket 桩服务，每收到一块音频回一个覆盖到当前位置的中间结果，收到 EOS 回最终结果；
+ * 会话ID以 malformed 开头时第一块音频回一条无法解析的消息，以 hangup 开头时直接以 1011 关闭连接
+ */
+public class StreamingSimulatorTest {
+
+    private ServerSocket serverSocket;
+    private ExecutorService connections;
+    private StreamingSimulator simulator;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        connections = Executors.newCachedThreadPool();
+        connections.execute(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    connections.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        String endpoint = "ws://127.0.0.1:" + serverSocket.getLocalPort() + "/stream/";
+        simulator = new StreamingSimulator(
+                new WebSocketStreamingTransport(sessionId -> URI.create(endpoint + sessionId)), 2);
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        simulator.close();
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private static Path writePcm(Path directory, int millis) throws IOException {
+        Path file = directory.resolve(millis + "ms.pcm");
+        Files.write(file, new byte[millis * 48]);
+        return file;
+    }
+
+    @Test
+    public void pacesChunksAndRecordsPartialLatency(@TempDir Path directory) throws Exception {
+        PcmAudio audio = PcmAudio.open(writePcm(directory, 1000));
+        long begin = System.nanoTime();
+        List<StreamingSession> sessions = new ArrayList<>();
+        for (int k = 0; k < 20; k++) {
+            sessions.add(simulator.start("speaker-" + k, audio, 100, 4.0));
+        }
+        for (StreamingSession session : sessions) {
+            session.await(30, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        // 1秒音频按4倍速发送，至少需要250ms
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(240), "elapsed " + elapsed);
+        for (StreamingSession session : sessions) {
+            assertEquals("1000ms 10 chunks", session.finalText());
+            assertEquals(10, session.chunkCount());
+            for (int k = 0; k < session.chunkCount(); k++) {
+                assertTrue(session.chunkLatencyNanos(k) >= 0, session + " chunk " + k);
+                // 第 k 块的音频在会话开始后 (k+1)*25ms 才"说完"，不能提前发出
+                long earliest = begin + TimeUnit.MILLISECONDS.toNanos(25L * (k + 1));
+                assertTrue(session.sendNanos(k) >= earliest, session + " chunk " + k + " sent early");
+            }
+            assertTrue(session.firstPartialLatencyNanos() >= 0);
+            assertTrue(session.finalLatencyNanos() >= 0);
+            assertTrue(session.realTimeFactor() >= 0.95, session.toString());
+        }
+    }
+
+    @Test
+    public void speedScalesWallClock(@TempDir Path directory) throws Exception {
+        PcmAudio audio = PcmAudio.open(writePcm(directory, 400));
+        StreamingSession normal = simulator.start("normal", audio, 100, 1.0).await(30, TimeUnit.SECONDS);
+        StreamingSession fast = simulator.start("fast", audio, 100, 2.0).await(30, TimeUnit.SECONDS);
+
+        long normalSpan = normal.sendNanos(3) - normal.sendNanos(0);
+        long fastSpan = fast.sendNanos(3) - fast.sendNanos(0);
+        assertTrue(normalSpan >= TimeUnit.MILLISECONDS.toNanos(250), "normal " + normalSpan);
+        assertTrue(fastSpan >= TimeUnit.MILLISECONDS.toNanos(100), "fast " + fastSpan);
+        assertTrue(fastSpan < normalSpan, fastSpan + " vs " + normalSpan);
+    }
+
+    @Test
+    public void failsOnMalformedMessageOrEarlyClose(@TempDir Path directory) throws Exception {
+        PcmAudio audio = PcmAudio.open(writePcm(directory, 400));
+        StreamingSession malformed = simulator.start("malformed", audio, 100, 4.0);
+        ExecutionException parse = assertThrows(ExecutionException.class, () -> malformed.await(30, TimeUnit.SECONDS));
+        assertTrue(parse.getCause() instanceof IllegalArgumentException, parse.getCause().toString());
+
+        StreamingSession hangup = simulator.start("hangup", audio, 100, 4.0);
+        ExecutionException closed = assertThrows(ExecutionException.class, () -> hangup.await(30, TimeUnit.SECONDS));
+        assertTrue(closed.getCause() instanceof IOException, closed.getCause().toString());
+        assertTrue(closed.getCause().getMessage().contains("1011"), closed.getCause().getMessage());
+    }
+
+    @Test
+    public void emptyAudioHasNoLatencies(@TempDir Path directory) throws Exception {
+        PcmAudio audio = PcmAudio.open(writePcm(directory, 0));
+        StreamingSession session = simulator.start("empty", audio, 100, 1.0).await(30, TimeUnit.SECONDS);
+        assertEquals(0, session.chunkCount());
+        assertEquals("0ms 0 chunks", session.finalText());
+        assertEquals(-1, session.firstPartialLatencyNanos());
+        assertEquals(-1, session.finalLatencyNanos());
+        assertTrue(session.toString().contains("sent=0/0"), session.toString());
+    }
+
+    /**
+     * 只处理本测试需要的 websocket 子集：握手、客户端掩码帧、服务端文本帧
+     */
+    private static void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            OutputStream out = socket.getOutputStream();
+            BufferedReader headers = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+            String sessionId = headers.readLine().split(" ")[1].substring("/stream/".length());
+            String key = null;
+            for (String line = headers.readLine(); line != null && !line.isEmpty(); line = headers.readLine()) {
+                if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                    key = line.substring(line.indexOf(':') + 1).trim();
+                }
+            }
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+                    (key + "258EAFA5-E914-47DA-95CA-C5AB0DC85B11").getBytes(StandardCharsets.ISO_8859_1));
+            out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                    + "Sec-WebSocket-Accept: " + Base64.getEncoder().encodeToString(digest) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            long bytes = 0;
+            int chunks = 0;
+            while (true) {
+                int first = in.readUnsignedByte();
+                int opcode = first & 0x0F;
+                int second = in.readUnsignedByte();
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = in.readUnsignedShort();
+                } else if (length == 127) {
+                    length = in.readLong();
+                }
+                byte[] mask = new byte[4];
+                in.readFully(mask);
+                byte[] payload = new byte[(int) length];
+                in.readFully(payload);
+                for (int k = 0; k < payload.length; k++) {
+                    payload[k] ^= mask[k & 3];
+                }
+
+                if (opcode == 0x2 && sessionId.startsWith("hangup")) {
+                    out.write(new byte[]{(byte) 0x88, 2, 0x03, (byte) 0xF3});
+                    out.flush();
+                    return;
+                }
+                if (opcode == 0x2 && sessionId.startsWith("malformed")) {
+                    sendText(out, "partial\tnot-a-number\tchunk");
+                } else if (opcode == 0x2 || opcode == 0x0) {
+                    bytes += payload.length;
+                    if ((first & 0x80) != 0) {
+                        chunks++;
+                        sendText(out, "partial\t" + bytes / 48 + "\tchunk " + chunks);
+                    }
+                } else if (opcode == 0x1) {
+                    sendText(out, "final\t" + bytes / 48 + "\t" + bytes / 48 + "ms " + chunks + " chunks");
+                } else if (opcode == 0x8) {
+                    out.write(new byte[]{(byte) 0x88, 0});
+                    out.flush();
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            // 连接被关闭
+        }
+    }
+
+    private static void sendText(OutputStream out, String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        out.write(0x81);
+        out.write(payload.length);   // 桩服务的消息都短于126字节
+        out.write(payload);
+        out.flush();
+    }
+}
@@ -0,0 +1,108 @@
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 本地桩服务返回收到的请求体字节数
+ */
+public class SttClientTest {
+
+    private HttpServer server;
+    private URI endpoint;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/length", exchange -> {
+            byte[] body = String.valueOf(exchange.getRequestBody().readAllBytes().length)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        endpoint = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/length");
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * 重采样在准备线程池中进行，不占用调用 transcribe 的线程
+     */
+    @Test
+    public void preparesBodyOffTheCallingThread(@TempDir Path directory) throws Exception {
+        Path pcm = Files.write(directory.resolve("second.pcm"), new byte[48000]);
+        Map<Path, Thread> preparedOn = new ConcurrentHashMap<>();
+        ResampleCache cache = new ResampleCache(directory.resolve("cache")) {
+            @Override
+            PcmAudio get(Path file, int targetRate) throws IOException {
+                preparedOn.put(file, Thread.currentThread());
+                return super.get(file, targetRate);
+            }
+        };
+        HttpSttClient client = HttpSttClient.builder(job -> endpoint).resample(cache, job -> 16000).build();
+
+        String length = client.transcribe(new EvaluationJob("second", "model-a", "", pcm)).get(30, TimeUnit.SECONDS);
+        assertEquals("32000", length);
+        Thread thread = preparedOn.get(pcm);
+        assertTrue(thread != Thread.currentThread() && thread.getName().startsWith("stt-body-"), thread.getName());
+    }
+
+    /**
+     * 开启 VAD 时增强变体也先裁剪：发送的是裁剪后音频的2倍速版本，缓存文件按裁剪结果区分
+     */
+    @Test
+    public void augmentsTrimmedAudio(@TempDir Path directory) throws Exception {
+        // 1秒静音、1秒 440Hz、1秒静音
+        ByteBuffer bytes = ByteBuffer.allocate(3 * 48000).order(ByteOrder.LITTLE_ENDIAN);
+        for (int k = 0; k < 3 * 24000; k++) {
+            boolean tone = k >= 24000 && k < 48000;
+            bytes.putShort((short) (tone ? Math.round(10000 * Math.sin(2 * Math.PI * 440 * k / 24000)) : 0));
+        }
+        Path pcm = Files.write(directory.resolve("tone.pcm"), bytes.array());
+        VoiceActivityDetector vad = VoiceActivityDetector.builder().build();
+        Augmentation faster = Augmentation.builder().speed(2.0).build();
+        EvaluationJob job = new EvaluationJob("tone", "model-a", "", pcm, faster);
+
+        TrimmedAudio trimmed = vad.trim(PcmAudio.open(pcm));
+        assertTrue(trimmed.durationMillis() < 2000, trimmed.toString());
+        String expected = String.valueOf(
+                new AugmentedAudio(trimmed.audio(), faster, faster.seedFor("tone")).frames() * 2);
+
+        HttpSttClient lazy = HttpSttClient.builder(j -> endpoint).vad(vad).build();
+        assertEquals(expected, lazy.transcribe(job).get(30, TimeUnit.SECONDS));
+
+        AugmentationCache cache = new AugmentationCache(directory.resolve("augmented"));
+        HttpSttClient cached = HttpSttClient.builder(j -> endpoint).vad(vad).augmentationCache(cache).build();
+        assertEquals(expected, cached.transcribe(job).get(30, TimeUnit.SECONDS));
+        assertEquals(expected, cached.transcribe(job).get(30, TimeUnit.SECONDS));
+        assertEquals(1, cache.renders());
+        // 不裁剪的同一增强变体是另一个缓存文件
+        HttpSttClient untrimmed = HttpSttClient.builder(j -> endpoint).augmentationCache(cache).build();
+        assertEquals(String.valueOf(new AugmentedAudio(PcmAudio.open(pcm), faster, 0).frames() * 2),
+                untrimmed.transcribe(job).get(30, TimeUnit.SECONDS));
+        assertEquals(2, cache.renders());
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TextNormalizerTest {
+
+    @Test
+    public void whitespaceSplitMatchesRegexSplit() {
+        assertEquals(List.of("a", "b", "c"), WordLevelLevenshtein.splitIntoWords("a  b\t\nc "));
+        assertEquals(List.of(), WordLevelLevenshtein.splitIntoWords("   "));
+        assertEquals(List.of(), WordLevelLevenshtein.splitIntoWords(null));
+        // 开头的空白不再产生空单词
+        assertEquals(List.of("x"), WordLevelLevenshtein.splitIntoWords(" x"));
+    }
+
+    /**
+     * splitIntoWords 的分隔符与正则 \s 相同：Unicode 分隔符（全角空格、行分隔符、不换行空格）不切分；
+     * 规范化管线按 Character.isWhitespace 切分，全角空格和行分隔符会切开单词（不换行空格除外）
+     */
+    @Test
+    public void unicodeSeparators() {
+        String text = "a\u3000b\u2028c\u00A0d\u000Be";
+        List<String> legacy = List.of(text.split("\\s+"));
+        assertEquals(legacy, WordLevelLevenshtein.splitIntoWords(text));
+        assertEquals(List.of("a\u3000b\u2028c\u00A0d", "e"), WordLevelLevenshtein.splitIntoWords(text));
+
+        TextNormalizer lower = TextNormalizer.builder().lowerCase(true).build();
+        assertEquals(List.of("a", "b", "c\u00A0d", "e"), lower.tokens(text));
+    }
+
+    @Test
+    public void normalizesWidthCasePunctuationAndNumbers() {
+        TextNormalizer normalizer = TextNormalizer.builder()
+                .lowerCase(true)
+                .halfWidth(true)
+                .stripPunctuation(true)
+                .numberStyle(TextNormalizer.NumberStyle.CHINESE_DIGITS)
+                .cjkSegmentation(TextNormalizer.CjkSegmentation.PER_CHARACTER)
+                .build();
+        assertEquals(List.of("hello", "world", "我", "要", "二", "零"),
+                normalizer.tokens("Ｈｅｌｌｏ, World！我要20。"));
+    }
+
+    @Test
+    public void dictionarySegmentationUsesLongestMatch() {
+        TextNormalizer normalizer = TextNormalizer.builder()
+                .stripPunctuation(true)
+                .cjkSegmentation(TextNormalizer.CjkSegmentation.DICTIONARY)
+                .dictionary(List.of("退票", "火车票", "火车"))
+                .build();
+        assertEquals(List.of("我", "要", "退票", "火车票", "ok"), normalizer.tokens("我要退票，火车票ok"));
+
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        TokenBuffer buffer = new TokenBuffer(1);
+        assertEquals(5, normalizer.tokenize("我要退票，火车票ok", vocabulary, buffer));
+        assertEquals(2, normalizer.tokenize("退票退票", vocabulary, buffer));
+        assertEquals(7, buffer.size());
+        assertEquals(buffer.get(2), buffer.get(5));
+        assertEquals("火车票", vocabulary.token(buffer.get(3)));
+    }
+
+    /**
+     * "Aa" 与 "BB" 的 hashCode 相同，描述仍要区分两个词典；词典顺序不影响描述
+     */
+    @Test
+    public void describesDictionaryByContent() {
+        assertNotEquals(dictionaryNormalizer(List.of("Aa")).toString(), dictionaryNormalizer(List.of("BB")).toString());
+        assertEquals(dictionaryNormalizer(List.of("退票", "火车")).toString(),
+                dictionaryNormalizer(List.of("火车", "退票")).toString());
+    }
+
+    private static TextNormalizer dictionaryNormalizer(List<String> words) {
+        return TextNormalizer.builder()
+                .cjkSegmentation(TextNormalizer.CjkSegmentation.DICTIONARY)
+                .dictionary(words)
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VectorErrorCounterTest {
+
+    /**
+     * SIMD内核与逐行标量实现的距离和S/D/I计数完全一致（包括向量尾部和空输入）
+     */
+    @Test
+    public void matchesScalarCounts() {
+        assertTrue(WordAlignmentCore.vectorKernelAvailable(), "tests run with --add-modules jdk.incubator.vector");
+        Random random = new Random(5);
+        for (int round = 0; round < 400; round++) {
+            int[] source = randomIds(random, random.nextInt(round < 200 ? 40 : 300), 1 + random.nextInt(8));
+            int[] target = randomIds(random, random.nextInt(round < 200 ? 40 : 300), 1 + random.nextInt(8));
+            assertEquals(WordAlignmentCore.countErrorsScalar(source, target).toString(),
+                    VectorErrorCounter.countErrors(source, target).toString());
+        }
+    }
+
+    private static int[] randomIds(Random random, int length, int vocabulary) {
+        int[] ids = new int[length];
+        for (int i = 0; i < length; i++) {
+            ids[i] = random.nextInt(vocabulary);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,189 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VoiceActivityDetectorTest {
+
+    private static final int RATE = 24000;
+
+    private static PcmAudio speech(Path directory) throws IOException {
+        return speech(directory, 1.0);
+    }
+
+    /**
+     * 静音（弱噪声）与 440Hz 音交替：0-500 静，500-1500 音，1500-1800 静，1800-2800 音，
+     * 2800-4600 静，4600-5200 音，5200-5900 静；整体乘以 gain
+     */
+    private static PcmAudio speech(Path directory, double gain) throws IOException {
+        int[] toneMillis = {500, 1500, 1800, 2800, 4600, 5200};
+        int frames = RATE * 59 / 10;
+        Random random = new Random(7);
+        ByteBuffer bytes = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int k = 0; k < frames; k++) {
+            long millis = k * 1000L / RATE;
+            boolean tone = false;
+            for (int t = 0; t < toneMillis.length; t += 2) {
+                tone |= millis >= toneMillis[t] && millis < toneMillis[t + 1];
+            }
+            double value = 0.001 * random.nextGaussian() + (tone ? 0.3 * Math.sin(2 * Math.PI * 440 * k / RATE) : 0);
+            bytes.putShort((short) Math.round(gain * value * 32767));
+        }
+        return PcmAudio.open(Files.write(directory.resolve("speech.pcm"), bytes.array()));
+    }
+
+    private static VoiceActivityDetector.Builder detector() {
+        return VoiceActivityDetector.builder().hangoverMillis(200).paddingMillis(100);
+    }
+
+    private static byte[] collect(HttpRequest.BodyPublisher publisher) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompletableFuture<byte[]> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] chunk = new byte[item.remaining()];
+                item.get(chunk);
+                out.writeBytes(chunk);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(out.toByteArray());
+            }
+        });
+        return done.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void detectsSegmentsWithHangover(@TempDir Path directory) throws IOException {
+        List<VoiceActivityDetector.Segment> segments = detector().build().detect(speech(directory));
+        assertEquals("[[500, 1700), [1800, 3000), [4600, 5400)]", segments.toString());
+    }
+
+    @Test
+    public void streamingMatchesWholeFile(@TempDir Path directory) throws IOException {
+        PcmAudio audio = speech(directory);
+        VoiceActivityDetector vad = detector().build();
+        VoiceActivityDetector.Stream stream = vad.stream(audio.format());
+        ShortBuffer samples = audio.data().asShortBuffer();
+        boolean sawSpeech = false;
+        // 分块长度不是帧长的整数倍
+        while (samples.hasRemaining()) {
+            int size = Math.min(777, samples.remaining());
+            stream.accept(samples.slice(samples.position(), size));
+            samples.position(samples.position() + size);
+            sawSpeech |= stream.speaking();
+        }
+        assertTrue(sawSpeech);
+        assertFalse(stream.speaking());
+        assertEquals(vad.detect(audio).toString(), stream.finish().toString());
+    }
+
+    @Test
+    public void ignoresShortClicks(@TempDir Path directory) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(RATE * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int k = 0; k < RATE; k++) {
+            // 第500ms处 20ms 的脉冲
+            boolean click = k >= RATE / 2 && k < RATE / 2 + RATE / 50;
+            bytes.putShort((short) (click ? 10000 : 0));
+        }
+        PcmAudio audio = PcmAudio.open(Files.write(directory.resolve("click.pcm"), bytes.array()));
+        assertTrue(detector().build().detect(audio).isEmpty());
+        // 没有语音时不裁剪
+        TrimmedAudio trimmed = detector().build().trim(audio);
+        assertEquals(audio.frames(), trimmed.frames());
+        assertEquals(0.0, trimmed.removedRatio());
+    }
+
+    /**
+     * 增益很低（-50dB 左右）的录音整段低于起始阈值，仍要发送完整音频而不是空请求体
+     */
+    @Test
+    public void keepsLowGainAudioUntrimmed(@TempDir Path directory) throws Exception {
+        PcmAudio audio = speech(directory, 0.01);
+        VoiceActivityDetector vad = detector().build();
+        assertTrue(vad.detect(audio).isEmpty());
+
+        TrimmedAudio trimmed = vad.trim(audio);
+        assertEquals(audio.durationMillis(), trimmed.durationMillis());
+        assertEquals(1000, trimmed.originalMillis(1000));
+        byte[] expected = new byte[audio.byteLength()];
+        audio.data().get(expected);
+        assertArrayEquals(expected, collect(trimmed.bodyPublisher()));
+    }
+
+    @Test
+    public void trimsEdgesAndKeepsInternalPauses(@TempDir Path directory) throws Exception {
+        PcmAudio audio = speech(directory);
+        TrimmedAudio trimmed = detector().build().trim(audio);
+        assertEquals(5100, trimmed.durationMillis());
+        assertEquals(1, trimmed.segments().size());
+        assertEquals(400, trimmed.originalMillis(0));
+        assertEquals(2400, trimmed.originalMillis(2000));
+
+        ByteBuffer expected = audio.slice(400, 5500);
+        byte[] expectedBytes = new byte[expected.remaining()];
+        expected.get(expectedBytes);
+        assertArrayEquals(expectedBytes, collect(trimmed.bodyPublisher()));
+    }
+
+    @Test
+    public void shortensLongPausesAndMapsOffsetsBack(@TempDir Path directory) throws Exception {
+        PcmAudio audio = speech(directory);
+        TrimmedAudio trimmed = detector().maxPauseMillis(1000).build().trim(audio);
+        // [400, 3500) + [4100, 5500)：1.6 秒的停顿缩短为 1 秒，0.1 秒的停顿保留
+        assertEquals(4500, trimmed.durationMillis());
+        List<ByteBuffer> segments = trimmed.segments();
+        assertEquals(2, segments.size());
+        assertTrue(segments.get(0).isReadOnly());
+        assertEquals(audio.format().bytesOf(3100), segments.get(0).remaining());
+
+        assertEquals(400, trimmed.originalMillis(0));
+        assertEquals(1400, trimmed.originalMillis(1000));
+        assertEquals(3499, trimmed.originalMillis(3099));
+        assertEquals(4100, trimmed.originalMillis(3100));
+        assertEquals(4600, trimmed.originalMillis(3600));
+        assertEquals(5500, trimmed.originalMillis(4500));
+        assertEquals(5500, trimmed.originalMillis(9999));
+
+        byte[] body = collect(trimmed.bodyPublisher());
+        assertEquals(trimmed.frames() * 2, body.length);
+        ByteBuffer second = audio.slice(4100, 5500);
+        assertEquals(second.getShort(0), ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN)
+                .getShort(audio.format().bytesOf(3100)));
+    }
+
+    @Test
+    public void rejectsInvertedThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> VoiceActivityDetector.builder().thresholds(-40, -30));
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WordLevelLevenshteinTest {
+
+    static List<String> randomWords(Random random, int length, int vocabulary) {
+        List<String> words = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            words.add("w" + random.nextInt(vocabulary));
+        }
+        return words;
+    }
+
+    static void assertSameResult(WordEditResult expected, WordEditResult actual) {
+        assertEquals(expected.distance, actual.distance);
+        assertEquals(expected.operations.size(), actual.operations.size());
+        for (int i = 0; i < expected.operations.size(); i++) {
+            assertEquals(expected.operations.get(i).toString(), actual.operations.get(i).toString());
+        }
+        assertEquals(expected.transformedText, actual.transformedText);
+    }
+
+    /**
+     * 线性内存模式与全表DP的结果（距离、操作序列、改写文本）完全一致
+     */
+    @Test
+    public void linearMemoryMatchesFullTable() {
+        Random random = new Random(42);
+        for (int round = 0; round < 300; round++) {
+            List<String> source = randomWords(random, random.nextInt(120), 1 + random.nextInt(6));
+            List<String> target = randomWords(random, random.nextInt(120), 1 + random.nextInt(6));
+
+            WordEditResult expected = WordLevelLevenshtein.wordLevelLevenshtein(source, target);
+            WordEditResult actual = WordLevelLevenshtein.wordLevelLevenshteinLinearMemory(source, target);
+            assertSameResult(expected, actual);
+        }
+    }
+
+    @Test
+    public void linearMemoryHandlesEmptyInput() {
+        List<String> words = List.of("a", "b", "c");
+        assertSameResult(
+                WordLevelLevenshtein.wordLevelLevenshtein(words, List.of()),
+                WordLevelLevenshtein.wordLevelLevenshteinLinearMemory(words, List.of()));
+        assertSameResult(
+                WordLevelLevenshtein.wordLevelLevenshtein(List.of(), words),
+                WordLevelLevenshtein.wordLevelLevenshteinLinearMemory(List.of(), words));
+    }
+
+    @Test
+    public void switchesToLinearMemoryAboveThreshold() {
+        Random random = new Random(7);
+        List<String> source = randomWords(random, 400, 20);
+        List<String> target = randomWords(random, 380, 20);
+
+        WordEditResult expected = WordLevelLevenshtein.wordLevelLevenshtein(source, target);
+        long saved = WordLevelLevenshtein.getLinearMemoryThreshold();
+        try {
+            WordLevelLevenshtein.setLinearMemoryThreshold(1000);
+            assertSameResult(expected, WordLevelLevenshtein.wordLevelLevenshtein(source, target));
+        } finally {
+            WordLevelLevenshtein.setLinearMemoryThreshold(saved);
+        }
+    }
+
+    /**
+     * 共享词表与每次新建词表的结果一致
+     */
+    @Test
+    public void sharedVocabularyGivesSameResult() {
+        Random random = new Random(3);
+        TokenVocabulary vocabulary = new TokenVocabulary();
+        for (int round = 0; round < 100; round++) {
+            List<String> source = randomWords(random, random.nextInt(60), 8);
+            List<String> target = randomWords(random, random.nextInt(60), 8);
+            assertSameResult(
+                    WordLevelLevenshtein.wordLevelLevenshtein(source, target),
+                    WordLevelLevenshtein.wordLevelLevenshtein(source, target, vocabulary));
+        }
+        assertEquals(8, vocabulary.size());
+    }
+
+    @Test
+    public void similarityAndWeightedScorers() {
+        WordEditResult similar = WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(
+                "I hav a apple", "I have an apple", 0.7);
+        // 相似匹配保留源单词
+        assertEquals("I hav an apple", similar.getTransformedString());
+        assertEquals(WordOperationType.MATCH, similar.operations.get(1).type);
+
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("important", 3);
+        weights.put("critical", 3);
+        WordEditResult weighted = WeightedWordLevenshtein.weightedWordLevenshtein(
+                "This is important information", "This is critical information", weights, 1, 1, 2);
+        assertEquals(6, weighted.distance);
+        assertEquals(WordOperationType.SUBSTITUTE, weighted.operations.get(2).type);
+    }
+
+    /**
+     * 小数代价，权重键忽略大小写，同一张权重表可重复使用
+     */
+    @Test
+    public void sharedWeightTableWithFractionalCosts() {
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("Important", 2.5);
+        WeightTable table = new WeightTable(weights, 0.5, 0.75, 0.8);
+
+        WeightedWordEditResult deleted = WeightedWordLevenshtein.weightedWordLevenshtein(
+                "this is important", "this is", table);
+        assertEquals(1.875, deleted.cost, 1e-9);
+        assertEquals(2, deleted.distance);
+        assertEquals(WordOperationType.DELETE, deleted.operations.get(2).type);
+
+        WeightedWordEditResult substituted = WeightedWordLevenshtein.weightedWordLevenshtein(
+                "this is IMPORTANT", "this is critical", table);
+        assertEquals(2.0, substituted.cost, 1e-9);
+        assertEquals("this is critical", substituted.getTransformedString());
+    }
+}
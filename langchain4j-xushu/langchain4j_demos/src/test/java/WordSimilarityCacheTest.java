@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class WordSimilarityCacheTest {
+
+    private static final String[] WORDS = {"apple", "Apple", "aple", "apply", "have", "hav", "an", "a",
+            "the", "then", "internationalization", "i"};
+
+    /**
+     * 跨调用复用（以及容量很小、频繁覆盖的）缓存不改变结果
+     */
+    @Test
+    public void cachedResultsMatchUncached() {
+        Random random = new Random(31);
+        WordSimilarityCache tiny = new WordSimilarityCache(16, 1 << 20);
+        for (int round = 0; round < 300; round++) {
+            List<String> source = randomWords(random);
+            List<String> target = randomWords(random);
+            double threshold = random.nextDouble() * 1.2;
+
+            WordEditResult expected = WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(
+                    source, target, threshold, new TokenVocabulary());
+            WordLevelLevenshteinTest.assertSameResult(expected,
+                    WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(source, target, threshold));
+            WordLevelLevenshteinTest.assertSameResult(expected,
+                    WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(source, target, threshold, tiny));
+        }
+    }
+
+    @Test
+    public void scopeRotatesWhenVocabularyGrows() {
+        WordSimilarityCache cache = new WordSimilarityCache(64, 4);
+        WordSimilarityCache.Scope first = cache.open();
+        first.vocabulary.encode(List.of("a", "b", "c"));
+        assertSame(first, cache.open());
+
+        first.vocabulary.encode(List.of("d", "e"));
+        assertNotSame(first, cache.open());
+    }
+
+    /**
+     * 相似度按码点计算：代理对算一个字符。"😀a"/"😀b" 的相似度是 1 - 1/2 = 0.5
+     * （按 UTF-16 计算时曾是 1 - 1/3），达不到 0.6 的阈值，也不算低代价替换
+     */
+    @Test
+    public void similarityCountsCodePoints() {
+        WordEditResult emoji = WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(
+                List.of("x", "\uD83D\uDE00a"), List.of("x", "\uD83D\uDE00b"), 0.6);
+        assertEquals(1, emoji.distance);
+        assertEquals(WordOperationType.SUBSTITUTE, emoji.operations.get(1).type);
+
+        // 不含代理对的单词不受影响：1 - 1/3 >= 0.6
+        WordEditResult plain = WordLevelLevenshtein.wordLevelLevenshteinWithSimilarity(
+                List.of("x", "abc"), List.of("x", "abd"), 0.6);
+        assertEquals(0, plain.distance);
+        assertEquals(WordOperationType.MATCH, plain.operations.get(1).type);
+    }
+
+    private static List<String> randomWords(Random random) {
+        int length = random.nextInt(30);
+        List<String> words = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            words.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return words;
+    }
+}